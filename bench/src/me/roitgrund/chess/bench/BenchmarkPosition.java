@@ -0,0 +1,97 @@
+package me.roitgrund.chess.bench;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Castle;
+import me.roitgrund.chess.game.Coord;
+import me.roitgrund.chess.game.Piece;
+import me.roitgrund.chess.game.Piece.Color;
+import me.roitgrund.chess.game.Piece.Type;
+
+import java.util.stream.Stream;
+
+/**
+ * The fixed positions every benchmark runs against, so that numbers stay
+ * comparable from one release to the next.
+ */
+public enum BenchmarkPosition {
+    /**
+     * The Ruy Lopez after 3. Bb5, with both sides still able to castle.
+     */
+    OPENING {
+        @Override
+        public Board create() {
+            return play(
+                    "e2", "e4", "e7", "e5",
+                    "g1", "f3", "b8", "c6",
+                    "f1", "b5", "g8", "f6");
+        }
+    },
+
+    /**
+     * Twenty moves into Kasparov's game from the board tests, with most
+     * pieces still on and open lines for the sliders.
+     */
+    MIDDLEGAME {
+        @Override
+        public Board create() {
+            return play(
+                    "d2", "d4", "g8", "f6", "c2", "c4", "g7", "g6",
+                    "b1", "c3", "f8", "g7", "e2", "e4", "d7", "d6",
+                    "f2", "f3", "e8", "g8", "c1", "e3", "e7", "e5",
+                    "g1", "e2", "c7", "c6", "d1", "d2", "b8", "d7",
+                    "a1", "d1", "a7", "a6", "d4", "e5", "d7", "e5",
+                    "b2", "b3", "b7", "b5", "c4", "b5", "a6", "b5");
+        }
+    },
+
+    /**
+     * Kings on their home squares with a rook and three pawns each.
+     */
+    ENDGAME {
+        @Override
+        public Board create() {
+            Board board = new Board();
+            for (int row = 0; row < 8; row++) {
+                for (int col = 0; col < 8; col++) {
+                    board.removePiece(Coord.of(row, col));
+                }
+            }
+            Stream.of(Castle.values()).forEach(board::removeCastlingRight);
+
+            place(board, "e1", Type.KING, Color.WHITE);
+            place(board, "d1", Type.ROOK, Color.WHITE);
+            place(board, "f2", Type.PAWN, Color.WHITE);
+            place(board, "g3", Type.PAWN, Color.WHITE);
+            place(board, "h4", Type.PAWN, Color.WHITE);
+            place(board, "e8", Type.KING, Color.BLACK);
+            place(board, "c8", Type.ROOK, Color.BLACK);
+            place(board, "a5", Type.PAWN, Color.BLACK);
+            place(board, "f7", Type.PAWN, Color.BLACK);
+            place(board, "g6", Type.PAWN, Color.BLACK);
+            return board;
+        }
+    };
+
+    public abstract Board create();
+
+    private static Board play(String... squares) {
+        Board board = new Board();
+        for (int i = 0; i < squares.length; i += 2) {
+            if (board.move(squares[i], squares[i + 1]) !=
+                    Board.GameState.PLAYING) {
+                throw new IllegalStateException(String.format(
+                        "Benchmark move from %s to %s is not playable",
+                        squares[i],
+                        squares[i + 1]));
+            }
+        }
+        return board;
+    }
+
+    private static void place(Board board,
+                              String square,
+                              Type type,
+                              Color color) {
+        board.setPiece(Coord.fromNotation(square), Piece.of(type, color));
+    }
+}
@@ -0,0 +1,63 @@
+package me.roitgrund.chess.bench;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.BoardSnapshot;
+import me.roitgrund.chess.game.Coord;
+import me.roitgrund.chess.game.Move;
+import me.roitgrund.chess.game.Piece.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BoardBenchmark {
+
+    @Param
+    public BenchmarkPosition position;
+
+    private Board board;
+    private Move move;
+    private Coord kingSquare;
+
+    @Setup
+    public void setUp() {
+        board = position.create();
+        move = board.legalMoves().get(0);
+        kingSquare = Coord.fromNotation("e1");
+    }
+
+    /**
+     * Plays a legal move, including the game state check that follows it,
+     * and takes it back so that every invocation sees the same position.
+     */
+    @Benchmark
+    public Board.GameState move() {
+        Board.GameState gameState = board.move(move.getFrom(), move.getTo());
+        board.unmakeMove();
+        return gameState;
+    }
+
+    @Benchmark
+    public Board.GameState getGameState() {
+        return board.getGameState();
+    }
+
+    @Benchmark
+    public BoardSnapshot snapshot() {
+        return board.snapshot();
+    }
+
+    @Benchmark
+    public boolean squareVulnerableFromColor() {
+        return board.squareVulnerableFromColor(kingSquare, Color.BLACK);
+    }
+}
@@ -0,0 +1,57 @@
+package me.roitgrund.chess.bench;
+
+import me.roitgrund.chess.format.BoardFormatter;
+import me.roitgrund.chess.game.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class BoardFormatterBenchmark {
+
+    @Param
+    public BenchmarkPosition position;
+
+    private BoardFormatter boardFormatter;
+    private Board board;
+    private StringBuilder builder;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        boardFormatter = new BoardFormatter();
+        board = position.create();
+        builder = new StringBuilder(BoardFormatter.LENGTH);
+        buffer = ByteBuffer.allocateDirect(BoardFormatter.LENGTH);
+    }
+
+    @Benchmark
+    public String format() {
+        return boardFormatter.format(board);
+    }
+
+    @Benchmark
+    public StringBuilder formatToStringBuilder() throws IOException {
+        builder.setLength(0);
+        boardFormatter.formatTo(board, builder);
+        return builder;
+    }
+
+    @Benchmark
+    public ByteBuffer formatToByteBuffer() {
+        buffer.clear();
+        boardFormatter.formatTo(board, buffer);
+        return buffer;
+    }
+}
@@ -0,0 +1,42 @@
+package me.roitgrund.chess.bench;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Castle;
+import me.roitgrund.chess.game.Coord;
+import me.roitgrund.chess.game.Piece.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CastleBenchmark {
+
+    @Param
+    public BenchmarkPosition position;
+
+    private Board board;
+    private Coord kingFrom;
+    private Coord kingTo;
+
+    @Setup
+    public void setUp() {
+        board = position.create();
+        kingFrom = Coord.fromNotation("e1");
+        kingTo = Coord.fromNotation("g1");
+    }
+
+    @Benchmark
+    public boolean canCastle() {
+        return Castle.WHITE_KING.canCastle(
+                kingFrom, kingTo, board, Color.WHITE);
+    }
+}
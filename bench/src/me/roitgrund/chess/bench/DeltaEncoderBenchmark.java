@@ -0,0 +1,56 @@
+package me.roitgrund.chess.bench;
+
+import me.roitgrund.chess.format.DeltaEncoder;
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.MoveList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeltaEncoderBenchmark {
+
+    @Param
+    public BenchmarkPosition position;
+
+    private DeltaEncoder encoder;
+    private Board board;
+    private int move;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        // Never due a resync, so that every frame is a delta.
+        encoder = new DeltaEncoder(Integer.MAX_VALUE);
+        board = position.create();
+        MoveList moves = new MoveList();
+        board.legalMoves(moves);
+        move = moves.get(0);
+        buffer = ByteBuffer.allocateDirect(DeltaEncoder.MAX_FRAME_BYTES);
+        encoder.encode(board, buffer);
+    }
+
+    /**
+     * Encodes the position after a move and again after taking it back,
+     * so that every invocation sees the same positions.
+     */
+    @Benchmark
+    public ByteBuffer encodeMoveAndBack() {
+        buffer.clear();
+        board.makeMove(move);
+        encoder.encode(board, buffer);
+        board.unmakeMove();
+        encoder.encode(board, buffer);
+        return buffer;
+    }
+}
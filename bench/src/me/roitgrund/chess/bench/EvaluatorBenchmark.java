@@ -0,0 +1,37 @@
+package me.roitgrund.chess.bench;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.search.Evaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EvaluatorBenchmark {
+
+    @Param
+    public BenchmarkPosition position;
+
+    private Board board;
+    private Evaluator evaluator;
+
+    @Setup
+    public void setUp() {
+        board = position.create();
+        evaluator = new Evaluator();
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return evaluator.evaluate(board);
+    }
+}
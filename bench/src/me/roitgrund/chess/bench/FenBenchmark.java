@@ -0,0 +1,46 @@
+package me.roitgrund.chess.bench;
+
+import me.roitgrund.chess.game.Board;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FenBenchmark {
+
+    @Param
+    public BenchmarkPosition position;
+
+    private String fen;
+    private Board board;
+    private StringBuilder out;
+
+    @Setup
+    public void setUp() {
+        board = position.create();
+        fen = board.toFen();
+        out = new StringBuilder(100);
+    }
+
+    @Benchmark
+    public Board fromFen() {
+        return Board.fromFen(fen);
+    }
+
+    @Benchmark
+    public StringBuilder toFen() throws IOException {
+        out.setLength(0);
+        board.toFen(out);
+        return out;
+    }
+}
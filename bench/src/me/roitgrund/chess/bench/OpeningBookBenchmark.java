@@ -0,0 +1,73 @@
+package me.roitgrund.chess.bench;
+
+import me.roitgrund.chess.book.BookMoves;
+import me.roitgrund.chess.book.BookWriter;
+import me.roitgrund.chess.book.OpeningBook;
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.MoveList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OpeningBookBenchmark {
+
+    @Param
+    public BenchmarkPosition position;
+
+    private Path path;
+    private OpeningBook book;
+    private Board board;
+    private BookMoves moves;
+
+    /**
+     * Builds a book of every position two plies from the benchmark
+     * position, plus the position itself.
+     */
+    @Setup
+    public void setUp() throws IOException {
+        board = position.create();
+        BookWriter writer = new BookWriter();
+        MoveList first = new MoveList();
+        MoveList second = new MoveList();
+        board.legalMoves(first);
+        for (int i = 0; i < first.size(); i++) {
+            writer.add(board, first.get(i), i + 1);
+            board.makeMove(first.get(i));
+            board.legalMoves(second);
+            for (int j = 0; j < second.size(); j++) {
+                writer.add(board, second.get(j), j + 1);
+            }
+            board.unmakeMove();
+        }
+        path = Files.createTempFile("book", ".bin");
+        writer.write(path);
+        book = OpeningBook.open(path);
+        moves = new BookMoves();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        book.close();
+        Files.delete(path);
+    }
+
+    @Benchmark
+    public BookMoves probe() {
+        book.probe(board, moves);
+        return moves;
+    }
+}
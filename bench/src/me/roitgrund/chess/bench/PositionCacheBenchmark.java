@@ -0,0 +1,54 @@
+package me.roitgrund.chess.bench;
+
+import me.roitgrund.chess.cache.PositionCache;
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Move;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cached counterparts of {@link BoardBenchmark#move()} and
+ * {@link BoardBenchmark#getGameState()}, with both positions already in
+ * the cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PositionCacheBenchmark {
+
+    @Param
+    public BenchmarkPosition position;
+
+    private PositionCache cache;
+    private Board board;
+    private Move move;
+
+    @Setup
+    public void setUp() {
+        cache = new PositionCache(1024);
+        board = position.create();
+        move = board.legalMoves().get(0);
+        move();
+    }
+
+    @Benchmark
+    public Board.GameState move() {
+        Board.GameState gameState =
+                cache.move(board, move.getFrom(), move.getTo());
+        board.unmakeMove();
+        return gameState;
+    }
+
+    @Benchmark
+    public Board.GameState getGameState() {
+        return cache.getGameState(board);
+    }
+}
@@ -0,0 +1,46 @@
+package me.roitgrund.chess.bench;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.PositionCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PositionCodecBenchmark {
+
+    @Param
+    public BenchmarkPosition position;
+
+    private Board board;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        board = position.create();
+        buffer = ByteBuffer.allocateDirect(PositionCodec.BYTES);
+        PositionCodec.encode(board, buffer, 0);
+    }
+
+    @Benchmark
+    public Board decode() {
+        return PositionCodec.decode(
+                buffer, 0, Board.Representation.BITBOARD);
+    }
+
+    @Benchmark
+    public ByteBuffer encode() {
+        PositionCodec.encode(board, buffer, 0);
+        return buffer;
+    }
+}
@@ -0,0 +1,72 @@
+package me.roitgrund.chess.book;
+
+import me.roitgrund.chess.game.Moves;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A reusable buffer of the moves an {@link OpeningBook} gives for a
+ * position, encoded as in {@link Moves}, with their weights. Refilling it
+ * allocates nothing once it has grown to fit.
+ */
+public class BookMoves {
+    private int[] moves = new int[16];
+    private int[] weights = new int[16];
+    private int size;
+    private long totalWeight;
+
+    void add(int move, int weight) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+            weights = Arrays.copyOf(weights, size * 2);
+        }
+        moves[size] = move;
+        weights[size] = weight;
+        size++;
+        totalWeight += weight;
+    }
+
+    void clear() {
+        size = 0;
+        totalWeight = 0;
+    }
+
+    public int getMove(int index) {
+        return moves[index];
+    }
+
+    public int getWeight(int index) {
+        return weights[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    /**
+     * Picks a move at random, in proportion to the weights, or returns
+     * {@link Moves#NONE} if there are no moves with any weight.
+     */
+    public int choose(Random random) {
+        if (totalWeight == 0) {
+            return Moves.NONE;
+        }
+        long pick = (long) (random.nextDouble() * totalWeight);
+        for (int i = 0; i < size; i++) {
+            pick -= weights[i];
+            if (pick < 0) {
+                return moves[i];
+            }
+        }
+        return moves[size - 1];
+    }
+}
@@ -0,0 +1,88 @@
+package me.roitgrund.chess.book;
+
+import com.google.common.base.Preconditions;
+import me.roitgrund.chess.game.Board;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Collects weighted moves by position and writes them as an
+ * {@link OpeningBook}, keyed by {@link PolyglotKey} unless another key is
+ * given. Weights for the same move in the same position add up, to at most
+ * 65535.
+ */
+public class BookWriter {
+    private final ToLongFunction<Board> key;
+    // Weights by position key, then by Polyglot move.
+    private final Map<Long, Map<Integer, Integer>> weights = new HashMap<>();
+
+    public BookWriter() {
+        this(PolyglotKey::key);
+    }
+
+    public BookWriter(ToLongFunction<Board> key) {
+        this.key = key;
+    }
+
+    /**
+     * Adds weight to a move, encoded as in
+     * {@link me.roitgrund.chess.game.Moves}, in the position.
+     */
+    public void add(Board board, int move, int weight) {
+        Preconditions.checkArgument(weight >= 0, "Negative weight %s", weight);
+        weights.computeIfAbsent(key.applyAsLong(board), k -> new HashMap<>())
+                .merge(OpeningBook.toPolyglot(move), weight,
+                        (a, b) -> Math.min(a + b, 0xFFFF));
+    }
+
+    /**
+     * Writes the book, with the moves for each position heaviest first.
+     */
+    public void write(Path path) throws IOException {
+        long[] keys = new long[weights.size()];
+        int count = 0;
+        int entries = 0;
+        for (Map.Entry<Long, Map<Integer, Integer>> position :
+                weights.entrySet()) {
+            keys[count++] = position.getKey();
+            entries += position.getValue().size();
+        }
+        // Polyglot sorts keys as unsigned numbers.
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] ^= Long.MIN_VALUE;
+        }
+        Arrays.sort(keys);
+
+        ByteBuffer buffer = ByteBuffer.allocate(
+                entries * OpeningBook.ENTRY_BYTES);
+        for (long sortedKey : keys) {
+            long positionKey = sortedKey ^ Long.MIN_VALUE;
+            weights.get(positionKey).entrySet().stream()
+                    .sorted(Map.Entry.<Integer, Integer>comparingByValue()
+                            .reversed())
+                    .forEach(move -> buffer
+                            .putLong(positionKey)
+                            .putShort((short) (int) move.getKey())
+                            .putShort((short) (int) move.getValue())
+                            .putInt(0));
+        }
+        buffer.flip();
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package me.roitgrund.chess.book;
+
+import com.google.common.base.Preconditions;
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Moves;
+import me.roitgrund.chess.game.Piece;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ToLongFunction;
+
+/**
+ * An opening book read through a memory map: a file of 16-byte big-endian
+ * entries sorted by position key, each holding the key, a move, its
+ * weight and a learning value this class ignores.
+ *
+ * <p>Entries are laid out, sorted and encode moves as Polyglot's do, and
+ * positions are keyed by {@link PolyglotKey} unless another key is given,
+ * so Polyglot books can be read and books written by {@link BookWriter}
+ * read by other programs. Since keys can collide, moves should be checked
+ * for legality before they are played, for example with
+ * {@link Board#legalMove}.
+ *
+ * <p>Moves for a position are found by a binary search on the key, so a
+ * probe touches a few pages of the file and allocates nothing.
+ *
+ * <p>Probes may be made from several threads at once, each with its own
+ * {@link BookMoves}.
+ */
+public class OpeningBook implements Closeable {
+    static final int ENTRY_BYTES = 16;
+
+    // Polyglot promotion codes, 1 to 4, to types.
+    private static final Piece.Type[] PROMOTIONS = {
+            null,
+            Piece.Type.KNIGHT,
+            Piece.Type.BISHOP,
+            Piece.Type.ROOK,
+            Piece.Type.QUEEN,
+    };
+
+    private final FileChannel channel;
+    private final ByteBuffer entries;
+    private final int size;
+    private final ToLongFunction<Board> key;
+
+    OpeningBook(FileChannel channel, ToLongFunction<Board> key)
+            throws IOException {
+        long length = channel.size();
+        Preconditions.checkArgument(length % ENTRY_BYTES == 0,
+                "Book length %s is not a multiple of %s", length, ENTRY_BYTES);
+        Preconditions.checkArgument(length <= Integer.MAX_VALUE,
+                "Book of %s bytes is too large", length);
+        this.channel = channel;
+        this.entries = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        this.size = (int) (length / ENTRY_BYTES);
+        this.key = key;
+    }
+
+    public static OpeningBook open(Path path) throws IOException {
+        return open(path, PolyglotKey::key);
+    }
+
+    /**
+     * Opens a book whose positions are keyed by the given function.
+     */
+    public static OpeningBook open(Path path, ToLongFunction<Board> key)
+            throws IOException {
+        return new OpeningBook(
+                FileChannel.open(path, StandardOpenOption.READ), key);
+    }
+
+    /**
+     * The number of entries in the book.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Replaces the contents of moves with the book moves for the position,
+     * and returns whether there were any.
+     */
+    public boolean probe(Board board, BookMoves moves) {
+        moves.clear();
+        long target = key.applyAsLong(board);
+        for (int i = lowerBound(target);
+             i < size && keyAt(i) == target;
+             i++) {
+            int offset = i * ENTRY_BYTES;
+            moves.add(fromPolyglot(board, entries.getShort(offset + 8)),
+                    entries.getShort(offset + 10) & 0xFFFF);
+        }
+        return !moves.isEmpty();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * The index of the first entry whose key is not below the target, as
+     * unsigned numbers.
+     */
+    private int lowerBound(long target) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Long.compareUnsigned(keyAt(middle), target) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long keyAt(int index) {
+        return entries.getLong(index * ENTRY_BYTES);
+    }
+
+    /**
+     * Polyglot moves put the destination square in bits 0-5 and the origin
+     * in bits 6-11, with squares numbered as ours are, and write castling
+     * as the king taking its own rook. The flags {@link Board#legalMoves}
+     * would give the move are worked out from the position.
+     */
+    static int fromPolyglot(Board board, int polyglotMove) {
+        int to = polyglotMove & 0x3F;
+        int from = polyglotMove >>> 6 & 0x3F;
+        int code = polyglotMove >>> 12 & 0x7;
+        Piece.Type promotion = code < PROMOTIONS.length
+                ? PROMOTIONS[code]
+                : null;
+
+        long fromBit = 1L << from;
+        int flags = (board.getOccupancy() & 1L << to) != 0
+                ? Moves.CAPTURE
+                : 0;
+        if ((board.getPieces(Piece.Type.PAWN, board.getTurn()) &
+                fromBit) != 0) {
+            if (from % 8 != to % 8 && flags == 0) {
+                flags = Moves.CAPTURE | Moves.EN_PASSANT;
+            } else if (Math.abs(to - from) == 16) {
+                flags = Moves.DOUBLE_PUSH;
+            }
+        } else if ((board.getPieces(Piece.Type.KING, board.getTurn()) &
+                fromBit) != 0 && from / 8 == to / 8 &&
+                Math.abs(from % 8 - to % 8) > 1) {
+            to = to % 8 == 0 ? from - 2 : from + 2;
+            flags = Moves.CASTLE;
+        }
+        return Moves.encode(from, to, promotion, flags);
+    }
+
+    /**
+     * The inverse of {@link #fromPolyglot}.
+     */
+    static int toPolyglot(int move) {
+        int from = Moves.from(move);
+        int to = Moves.to(move);
+        if (Moves.isCastle(move)) {
+            to = to > from ? to + 1 : to - 2;
+        }
+        int promotion = 0;
+        if (Moves.isPromotion(move)) {
+            for (int i = 1; i < PROMOTIONS.length; i++) {
+                if (PROMOTIONS[i] == Moves.promotion(move)) {
+                    promotion = i;
+                }
+            }
+        }
+        return to | from << 6 | promotion << 12;
+    }
+}
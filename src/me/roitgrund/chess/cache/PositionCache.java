@@ -0,0 +1,172 @@
+package me.roitgrund.chess.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Board.GameState;
+import me.roitgrund.chess.game.Coord;
+import me.roitgrund.chess.game.MoveList;
+import me.roitgrund.chess.game.Moves;
+import me.roitgrund.chess.game.Piece;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Remembers the legal moves and game state of positions seen before, keyed
+ * by {@link Board#hash()}, so that checking a move in a position the cache
+ * holds costs a lookup rather than a sweep of the board.
+ *
+ * <p>The cache holds at most a given number of positions, evicting those
+ * least recently used, and may also drop positions unused for a while.
+ * Positions with the same hash are taken to be the same position.
+ *
+ * <p>The cache is thread-safe, though each board must only be used by one
+ * thread at a time.
+ */
+public final class PositionCache {
+    private final Cache<Long, Entry> cache;
+
+    public PositionCache(long maximumSize) {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Also drops positions that have not been looked up for the given time.
+     */
+    public PositionCache(long maximumSize, Duration expireAfterAccess) {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The state of the game in the position on the board, as
+     * {@link Board#getGameState()} gives it. Only mate and stalemate are
+     * cached; draws by rule depend on the moves that led to the position.
+     */
+    public GameState getGameState(Board board) {
+        GameState gameState = entry(board).gameState;
+        return gameState == GameState.PLAYING
+                ? board.getDrawByRule()
+                : gameState;
+    }
+
+    /**
+     * Replaces the list's contents with the legal moves on the board, as
+     * {@link Board#legalMoves(MoveList)} gives them.
+     */
+    public void legalMoves(Board board, MoveList moves) {
+        moves.clear();
+        for (int move : entry(board).moves) {
+            moves.add(move);
+        }
+    }
+
+    /**
+     * The legal move between the squares, as
+     * {@link Board#legalMove(Coord, Coord, Piece.Type)} gives it.
+     */
+    public int legalMove(Board board,
+                         Coord from,
+                         Coord to,
+                         Piece.Type promotion) {
+        for (int move : entry(board).moves) {
+            if (Moves.from(move) == from.getIndex() &&
+                    Moves.to(move) == to.getIndex() &&
+                    (Moves.promotion(move) == promotion ||
+                            promotion == null &&
+                                    Moves.promotion(move) ==
+                                            Piece.Type.QUEEN)) {
+                return move;
+            }
+        }
+        return Moves.NONE;
+    }
+
+    /**
+     * Plays the move if it is legal, as {@link Board#move(Coord, Coord)}
+     * does, and returns the state of the game after it.
+     */
+    public GameState move(Board board, Coord from, Coord to) {
+        int move = legalMove(board, from, to, null);
+        if (move == Moves.NONE) {
+            return GameState.ILLEGAL_MOVE;
+        }
+        board.makeMove(move);
+        return getGameState(board);
+    }
+
+    /**
+     * The number of positions held.
+     */
+    public long size() {
+        return cache.size();
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    public long getHits() {
+        return cache.stats().hitCount();
+    }
+
+    /**
+     * The number of lookups that had to work out a position's entry.
+     */
+    public long getMisses() {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * The number of positions dropped for lack of room or use, not counting
+     * those removed by {@link #clear()}.
+     */
+    public long getEvictions() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public String toString() {
+        CacheStats stats = cache.stats();
+        return String.format("%d positions, %d hits, %d misses, %d evictions",
+                cache.size(),
+                stats.hitCount(),
+                stats.missCount(),
+                stats.evictionCount());
+    }
+
+    /**
+     * Looks the position up, working out its entry on a miss. Threads
+     * missing on the same position at once wait for one of them to do it.
+     */
+    private Entry entry(Board board) {
+        try {
+            return cache.get(board.hash(), () -> new Entry(board));
+        } catch (ExecutionException e) {
+            // Entry throws no checked exceptions.
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static final class Entry {
+        private final int[] moves;
+        private final GameState gameState;
+
+        Entry(Board board) {
+            MoveList moves = new MoveList();
+            board.legalMoves(moves);
+            this.moves = moves.toArray();
+            gameState = moves.isEmpty()
+                    ? board.getGameState()
+                    : GameState.PLAYING;
+        }
+    }
+}
@@ -1,46 +1,154 @@
 package me.roitgrund.chess.format;
 
-import me.roitgrund.chess.game.Board;
-import me.roitgrund.chess.game.Coord;
 import me.roitgrund.chess.game.Piece;
+import me.roitgrund.chess.game.ReadableBoard;
 
-import java.util.Optional;
-import java.util.stream.IntStream;
-
-import static me.roitgrund.chess.stream.Streams.reverseIntStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 
+/**
+ * Draws a board as text, white at the bottom:
+ *
+ * <pre>
+ *  a  b  c  d  e  f  g  h
+ * -------------------------
+ * |BR|BC|BB|BQ|BK|BB|BC|BR| 8
+ * ...
+ * |WR|WC|WB|WQ|WK|WB|WC|WR| 1
+ * -------------------------
+ * </pre>
+ *
+ * <p>Every drawing is {@value #LENGTH} ASCII characters long, so it is made
+ * by copying a drawing of the empty board and writing in the pieces. The
+ * {@code formatTo} methods write into the caller's buffers without
+ * allocating. A formatter reuses its own buffers for this and is not
+ * thread-safe; give each thread its own.
+ */
 public class BoardFormatter {
+    public static final int LENGTH = 300;
+
+    private static final String HEADER = " a  b  c  d  e  f  g  h\n";
+    private static final String BORDER = "-------------------------\n";
+    private static final int ROW_LENGTH = 28;
+    private static final char[] EMPTY_BOARD = drawEmptyBoard();
+    private static final byte[] EMPTY_BOARD_BYTES =
+            new String(EMPTY_BOARD).getBytes(StandardCharsets.US_ASCII);
+    private static final Piece.Type[] TYPES = Piece.Type.values();
+    private static final Piece.Color[] COLORS = Piece.Color.values();
+
+    private final char[] chars = new char[LENGTH];
+    private final CharBuffer charView = CharBuffer.wrap(chars);
+    private ByteBuffer bytes;
+
+    public String format(ReadableBoard board) {
+        draw(board);
+        return new String(chars);
+    }
 
-    public String format(Board board) {
-        StringBuffer boardRepresentation = new StringBuffer(29 * 11);
-        boardRepresentation.append(" a  b  c  d  e  f  g  h\n");
-        addBorder(boardRepresentation);
-        addNewline(boardRepresentation);
-        reverseIntStream(7, 0).forEach(row -> {
-            boardRepresentation.append("|");
-            IntStream.rangeClosed(0, 7).forEach(col -> {
-                boardRepresentation.append(getRepresentation(board.getPiece(
-                        new Coord(row, col))));
-                boardRepresentation.append("|");
-            });
-            boardRepresentation.append(String.format(" %s", row + 1));
-            addNewline(boardRepresentation);
-        });
-        addBorder(boardRepresentation);
-        addNewline(boardRepresentation);
+    public void formatTo(ReadableBoard board, Appendable out)
+            throws IOException {
+        draw(board);
+        if (out instanceof Writer) {
+            ((Writer) out).write(chars);
+        } else {
+            out.append(charView, 0, LENGTH);
+        }
+    }
+
+    /**
+     * Writes the drawing as ASCII at the buffer's position, and moves past
+     * it. Nothing is written if it does not fit.
+     *
+     * @throws BufferOverflowException if fewer than {@value #LENGTH} bytes
+     *                                 remain
+     */
+    public void formatTo(ReadableBoard board, ByteBuffer buffer) {
+        if (buffer.remaining() < LENGTH) {
+            throw new BufferOverflowException();
+        }
+        int start = buffer.position();
+        buffer.put(EMPTY_BOARD_BYTES);
+        for (Piece.Color color : COLORS) {
+            for (Piece.Type type : TYPES) {
+                String cell = Piece.of(type, color).getStringRepresentation();
+                long squares = board.getPieces(type, color);
+                while (squares != 0) {
+                    int offset = start + offset(
+                            Long.numberOfTrailingZeros(squares));
+                    squares &= squares - 1;
+                    buffer.put(offset, (byte) cell.charAt(0));
+                    buffer.put(offset + 1, (byte) cell.charAt(1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the drawing as ASCII to the channel, blocking until all of it
+     * is written.
+     */
+    public void formatTo(ReadableBoard board, WritableByteChannel channel)
+            throws IOException {
+        if (bytes == null) {
+            bytes = ByteBuffer.allocateDirect(LENGTH);
+        }
+        bytes.clear();
+        formatTo(board, bytes);
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
 
-        return boardRepresentation.toString();
+    private void draw(ReadableBoard board) {
+        System.arraycopy(EMPTY_BOARD, 0, chars, 0, LENGTH);
+        for (Piece.Color color : COLORS) {
+            for (Piece.Type type : TYPES) {
+                String cell = Piece.of(type, color).getStringRepresentation();
+                long squares = board.getPieces(type, color);
+                while (squares != 0) {
+                    int offset = offset(Long.numberOfTrailingZeros(squares));
+                    squares &= squares - 1;
+                    chars[offset] = cell.charAt(0);
+                    chars[offset + 1] = cell.charAt(1);
+                }
+            }
+        }
     }
 
-    private static void addBorder(StringBuffer boardRepresentation) {
-        IntStream.range(0, 25).forEach(i -> boardRepresentation.append("-"));
+    /**
+     * Where the square's cell starts in a drawing.
+     */
+    static int offset(int square) {
+        int row = square / 8;
+        int col = square % 8;
+        return HEADER.length() + BORDER.length() +
+                (7 - row) * ROW_LENGTH + 1 + col * 3;
     }
 
-    private static void addNewline(StringBuffer boardRepresentation) {
-        boardRepresentation.append("\n");
+    /**
+     * A drawing of the board with no pieces on it.
+     */
+    static char[] emptyBoard() {
+        return EMPTY_BOARD.clone();
     }
 
-    private static String getRepresentation(Optional<Piece> piece) {
-        return piece.map(Piece::getStringRepresentation).orElse("  ");
+    private static char[] drawEmptyBoard() {
+        StringBuilder board = new StringBuilder(LENGTH);
+        board.append(HEADER).append(BORDER);
+        for (int row = 7; row >= 0; row--) {
+            board.append('|');
+            for (int col = 0; col < 8; col++) {
+                board.append("  |");
+            }
+            board.append(' ').append(row + 1).append('\n');
+        }
+        board.append(BORDER);
+        return board.toString().toCharArray();
     }
 }
@@ -0,0 +1,133 @@
+package me.roitgrund.chess.format;
+
+import com.google.common.base.Preconditions;
+import me.roitgrund.chess.game.Coord;
+import me.roitgrund.chess.game.Piece;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The client's side of {@link DeltaEncoder}: applies frames to its copy of
+ * the board and keeps the drawing {@link BoardFormatter} would make of it,
+ * redrawing only the squares each frame changes.
+ *
+ * <p>A delta is only applied on top of the frame just before it. After a
+ * gap the decoder is out of sync, and skips deltas until the next full
+ * frame; the client may ask the server for one sooner.
+ */
+public class DeltaDecoder {
+    private static final Piece.Type[] TYPES = Piece.Type.values();
+    private static final Piece.Color[] COLORS = Piece.Color.values();
+    private static final int CODES = TYPES.length * COLORS.length;
+    private static final char[] EMPTY_BOARD = BoardFormatter.emptyBoard();
+
+    private final byte[] codes = new byte[64];
+    private final char[] drawing = BoardFormatter.emptyBoard();
+    private final CharBuffer drawingView = CharBuffer.wrap(drawing);
+    private int sequence = -1;
+    private boolean inSync;
+
+    public DeltaDecoder() {
+        Arrays.fill(codes, DeltaEncoder.EMPTY);
+    }
+
+    /**
+     * Reads the frame at the buffer's position, moving past it, and applies
+     * it if it can. Returns whether it did, which is not the case for a
+     * delta that does not follow the last frame applied.
+     *
+     * @throws IllegalArgumentException if the bytes are not a frame
+     */
+    public boolean apply(ByteBuffer frame) {
+        byte type = frame.get();
+        int frameSequence = frame.getInt();
+        int squares = frame.get() & 0xFF;
+        Preconditions.checkArgument(
+                type == DeltaEncoder.FULL || type == DeltaEncoder.DELTA,
+                "Bad frame type %s", type);
+        Preconditions.checkArgument(squares <= 64,
+                "Frame has %s squares", squares);
+
+        if (type == DeltaEncoder.FULL) {
+            Arrays.fill(codes, DeltaEncoder.EMPTY);
+            System.arraycopy(EMPTY_BOARD, 0, drawing, 0, drawing.length);
+            inSync = true;
+        } else if (!inSync || frameSequence != sequence + 1) {
+            inSync = false;
+            frame.position(frame.position() + 2 * squares);
+            return false;
+        }
+
+        for (int i = 0; i < squares; i++) {
+            int square = frame.get();
+            byte code = frame.get();
+            Preconditions.checkArgument(square >= 0 && square < 64,
+                    "Bad square %s in frame", square);
+            Preconditions.checkArgument(
+                    code == DeltaEncoder.EMPTY || code >= 0 && code < CODES,
+                    "Bad piece code %s in frame", code);
+            set(square, code);
+        }
+        sequence = frameSequence;
+        return true;
+    }
+
+    /**
+     * Whether the last full frame and every delta since have been applied.
+     */
+    public boolean isInSync() {
+        return inSync;
+    }
+
+    /**
+     * The sequence number of the last frame applied, or -1 if none was.
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    public Optional<Piece> getPiece(Coord coord) {
+        byte code = codes[coord.getIndex()];
+        return code == DeltaEncoder.EMPTY
+                ? Optional.empty()
+                : Optional.of(piece(code));
+    }
+
+    /**
+     * The board as {@link BoardFormatter#format} draws it.
+     */
+    public String format() {
+        return new String(drawing);
+    }
+
+    public void formatTo(Appendable out) throws IOException {
+        if (out instanceof Writer) {
+            ((Writer) out).write(drawing);
+        } else {
+            out.append(drawingView, 0, drawing.length);
+        }
+    }
+
+    private void set(int square, byte code) {
+        codes[square] = code;
+        int offset = BoardFormatter.offset(square);
+        if (code == DeltaEncoder.EMPTY) {
+            drawing[offset] = ' ';
+            drawing[offset + 1] = ' ';
+        } else {
+            String cell = piece(code).getStringRepresentation();
+            drawing[offset] = cell.charAt(0);
+            drawing[offset + 1] = cell.charAt(1);
+        }
+    }
+
+    private static Piece piece(byte code) {
+        return Piece.of(
+                TYPES[code % TYPES.length], COLORS[code / TYPES.length]);
+    }
+}
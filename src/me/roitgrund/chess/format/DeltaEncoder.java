@@ -0,0 +1,161 @@
+package me.roitgrund.chess.format;
+
+import com.google.common.base.Preconditions;
+import me.roitgrund.chess.game.Piece;
+import me.roitgrund.chess.game.ReadableBoard;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Turns the positions of a game into a stream of small frames for
+ * {@link DeltaDecoder}s to draw, sending only the squares that changed
+ * since the last frame. Castling and en passant need nothing special: the
+ * rook's squares and the captured pawn's square simply change too.
+ *
+ * <p>Each frame is laid out as:
+ *
+ * <ul>
+ * <li>byte 0: {@link #FULL} or {@link #DELTA};
+ * <li>bytes 1-4: the frame's sequence number, big-endian, one more than
+ * the frame before;
+ * <li>byte 5: the number of squares that follow;
+ * <li>two bytes per square: its index, as in
+ * {@link me.roitgrund.chess.game.Coord#getIndex()}, then the code of the
+ * piece on it, {@code color.ordinal() * 6 + type.ordinal()}, or
+ * {@link #EMPTY}.
+ * </ul>
+ *
+ * <p>A full frame lists every piece, and the squares it leaves out are
+ * empty. One is sent first and then after every so many deltas, so that a
+ * client that missed a frame is not out of step for long; one can also be
+ * written at any time with {@link #writeFull(ByteBuffer)}, for a client
+ * that has just joined. A move takes a ten-byte delta, against
+ * {@value BoardFormatter#LENGTH} bytes for the whole drawing.
+ */
+public class DeltaEncoder {
+    public static final byte FULL = 1;
+    public static final byte DELTA = 2;
+    public static final byte EMPTY = (byte) 0xFF;
+    public static final int HEADER_BYTES = 6;
+    public static final int MAX_FRAME_BYTES = HEADER_BYTES + 64 * 2;
+
+    private static final int DEFAULT_RESYNC_INTERVAL = 64;
+    private static final Piece.Type[] TYPES = Piece.Type.values();
+    private static final Piece.Color[] COLORS = Piece.Color.values();
+
+    private final int resyncInterval;
+    // The pieces as of the last frame, by code.
+    private final long[] pieces = new long[TYPES.length * COLORS.length];
+    private int sequence = -1;
+    private int deltasSinceFull;
+
+    public DeltaEncoder() {
+        this(DEFAULT_RESYNC_INTERVAL);
+    }
+
+    /**
+     * Sends a full frame instead of a delta once the given number of deltas
+     * have been sent since the last one.
+     */
+    public DeltaEncoder(int resyncInterval) {
+        Preconditions.checkArgument(resyncInterval >= 1,
+                "Resync interval must be positive");
+        this.resyncInterval = resyncInterval;
+    }
+
+    /**
+     * The sequence number of the last frame, or -1 if there was none.
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Writes the next frame, for the given position, at the buffer's
+     * position. It is a full frame if it is the first or a resync is due,
+     * and a delta otherwise.
+     *
+     * @throws BufferOverflowException if fewer than
+     *                                 {@link #MAX_FRAME_BYTES} bytes remain
+     */
+    public void encode(ReadableBoard board, ByteBuffer out) {
+        checkRoom(out);
+        boolean full = sequence < 0 || deltasSinceFull >= resyncInterval;
+        sequence++;
+        if (full) {
+            deltasSinceFull = 0;
+            for (Piece.Color color : COLORS) {
+                for (Piece.Type type : TYPES) {
+                    pieces[code(type, color)] = board.getPieces(type, color);
+                }
+            }
+            writeFull(out);
+            return;
+        }
+
+        deltasSinceFull++;
+        int start = out.position();
+        out.put(DELTA).putInt(sequence).put((byte) 0);
+        int squares = 0;
+        long changed = 0;
+        for (Piece.Color color : COLORS) {
+            for (Piece.Type type : TYPES) {
+                int code = code(type, color);
+                long now = board.getPieces(type, color);
+                changed |= pieces[code] ^ now;
+                pieces[code] = now;
+            }
+        }
+        while (changed != 0) {
+            int square = Long.numberOfTrailingZeros(changed);
+            changed &= changed - 1;
+            out.put((byte) square).put(codeAt(square));
+            squares++;
+        }
+        out.put(start + 5, (byte) squares);
+    }
+
+    /**
+     * Writes a full frame of the last position encoded, with the same
+     * sequence number as its frame, for a client that has just joined or
+     * lost track. Deltas that follow apply to it.
+     */
+    public void writeFull(ByteBuffer out) {
+        Preconditions.checkState(sequence >= 0, "Nothing encoded yet");
+        checkRoom(out);
+        int start = out.position();
+        out.put(FULL).putInt(sequence).put((byte) 0);
+        int squares = 0;
+        for (int code = 0; code < pieces.length; code++) {
+            long bits = pieces[code];
+            while (bits != 0) {
+                out.put((byte) Long.numberOfTrailingZeros(bits))
+                        .put((byte) code);
+                bits &= bits - 1;
+                squares++;
+            }
+        }
+        out.put(start + 5, (byte) squares);
+    }
+
+    private byte codeAt(int square) {
+        long bit = 1L << square;
+        for (int code = 0; code < pieces.length; code++) {
+            if ((pieces[code] & bit) != 0) {
+                return (byte) code;
+            }
+        }
+        return EMPTY;
+    }
+
+    private static void checkRoom(ByteBuffer out) {
+        if (out.remaining() < MAX_FRAME_BYTES) {
+            throw new BufferOverflowException();
+        }
+    }
+
+    static int code(Piece.Type type, Piece.Color color) {
+        return color.ordinal() * TYPES.length + type.ordinal();
+    }
+}
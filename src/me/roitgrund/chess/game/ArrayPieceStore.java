@@ -0,0 +1,80 @@
+package me.roitgrund.chess.game;
+
+import me.roitgrund.chess.game.Piece.Color;
+import me.roitgrund.chess.game.Piece.Type;
+
+/**
+ * Keeps pieces in an 8x8 array and answers set queries by scanning it.
+ */
+class ArrayPieceStore implements PieceStore {
+    private final Piece[][] board;
+
+    ArrayPieceStore() {
+        this(new Piece[8][8]);
+    }
+
+    private ArrayPieceStore(Piece[][] board) {
+        this.board = board;
+    }
+
+    @Override
+    public Piece get(int square) {
+        return board[square / 8][square % 8];
+    }
+
+    @Override
+    public void set(int square, Piece piece) {
+        board[square / 8][square % 8] = piece;
+    }
+
+    @Override
+    public void remove(int square) {
+        board[square / 8][square % 8] = null;
+    }
+
+    @Override
+    public long occupancy() {
+        long occupancy = 0;
+        for (int square = 0; square < 64; square++) {
+            if (get(square) != null) {
+                occupancy |= Bitboards.squareBit(square);
+            }
+        }
+        return occupancy;
+    }
+
+    @Override
+    public long occupancy(Color color) {
+        long occupancy = 0;
+        for (int square = 0; square < 64; square++) {
+            Piece piece = get(square);
+            if (piece != null && piece.getColor() == color) {
+                occupancy |= Bitboards.squareBit(square);
+            }
+        }
+        return occupancy;
+    }
+
+    @Override
+    public long pieces(Type type, Color color) {
+        long pieces = 0;
+        for (int square = 0; square < 64; square++) {
+            Piece piece = get(square);
+            if (piece != null &&
+                    piece.getType() == type &&
+                    piece.getColor() == color) {
+                pieces |= Bitboards.squareBit(square);
+            }
+        }
+        return pieces;
+    }
+
+    @Override
+    public PieceStore copy() {
+        Piece[][] copy = new Piece[8][8];
+        for (int i = 0; i < 8; i++) {
+            System.arraycopy(board[i], 0, copy[i], 0, 8);
+        }
+        return new ArrayPieceStore(copy);
+    }
+}
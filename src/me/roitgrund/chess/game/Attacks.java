@@ -0,0 +1,215 @@
+package me.roitgrund.chess.game;
+
+import me.roitgrund.chess.game.Piece.Color;
+
+/**
+ * Precomputed attack sets, so that finding the squares a piece attacks
+ * costs a few table lookups. Sliding pieces use magic bitboards: the
+ * blockers on a piece's lines are multiplied by a magic number whose top
+ * bits index a table of attack sets for that square.
+ */
+public class Attacks {
+
+    private static final int[][] KNIGHT_OFFSETS = {
+            {1, 2}, {2, 1}, {2, -1}, {1, -2},
+            {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+    private static final int[][] KING_OFFSETS = {
+            {1, -1}, {1, 0}, {1, 1}, {0, 1},
+            {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}};
+    private static final int[][] ROOK_DIRECTIONS = {
+            {1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    private static final int[][] BISHOP_DIRECTIONS = {
+            {1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+
+    // Found by trial with a fixed seed. Any number that sends every blocker
+    // set of a square to a slot holding its attacks would do.
+    private static final long[] ROOK_MAGICS = {
+            0x0080136080004000L, 0x00c0100040002000L, 0x0300104088a00300L,
+            0x0880080004801000L, 0x1200100804200200L, 0x2200080102001004L,
+            0x2080308002004100L, 0x0200051484002042L, 0x4808800887604000L,
+            0x10014000e01000c4L, 0x0053001300200140L, 0x1001808018001000L,
+            0x0022001006000820L, 0x0022000200108804L, 0x0001000100040200L,
+            0x0002000041008204L, 0x100c208000401080L, 0x4010004040002010L,
+            0x5030018020008011L, 0x0080090010002100L, 0x8010050008010090L,
+            0x0202010100080400L, 0x010124000f029018L, 0x0000020000841061L,
+            0x000080228002c002L, 0x0180400080200080L, 0x0e04401100200101L,
+            0x00a0080480100080L, 0x0028008280040008L, 0x0200020080040080L,
+            0x1101000100020004L, 0x2003004200040081L, 0x8040004028800087L,
+            0x0508401004402000L, 0x0410001880802000L, 0x0110004400400800L,
+            0x8014000800808004L, 0x0005020080800400L, 0x0c20900204000188L,
+            0x0401204402000881L, 0x0c80004100810022L, 0x1900402010004001L,
+            0x0c10080024002000L, 0x0000201001030009L, 0x0a20040008008080L,
+            0x0442000810020004L, 0x83d2100881040042L, 0x0c10158069020004L,
+            0x0100800100204100L, 0x0282200040100640L, 0x0090422001001900L,
+            0x8010002100091500L, 0x4040040008008280L, 0x4001001400080300L,
+            0x3040020128108400L, 0x2008040c80510200L, 0x820902e0d4800041L,
+            0x9420190040008021L, 0x010413082000c101L, 0x0004100005002109L,
+            0x1112000820100402L, 0x0441000208040001L, 0x0482009002410804L,
+            0x0002041240248102L};
+    private static final long[] BISHOP_MAGICS = {
+            0x20e0040d22043200L, 0x0404100a08430000L, 0x0021020082012010L,
+            0x0102408100000800L, 0x8042121040008000L, 0x0060821040400d0aL,
+            0x4006580808188001L, 0x08a0d20610024815L, 0x0424400501022200L,
+            0x88411002a8010022L, 0xa100100102102420L, 0x9000292042000228L,
+            0x8021420210204205L, 0x0000011002104040L, 0x0000008804422200L,
+            0x00288200a6211000L, 0x0020a11020020090L, 0x0210a12004008080L,
+            0x0011001000520142L, 0x000800c40c10b022L, 0x008200240121000cL,
+            0x0400804808240200L, 0x1048842908d01002L, 0x9001100021081210L,
+            0x0c119000c8200100L, 0x08100800120a9c00L, 0x0004010010010020L,
+            0x0004040040410200L, 0x0020840280802000L, 0x0500820000221000L,
+            0x0402120400481a24L, 0x0020a02000820800L, 0x0021080814612040L,
+            0x014c044300200200L, 0x8200108800100050L, 0x20a0420280480080L,
+            0x00140840101c0100L, 0x0620042100002080L, 0x01020200400c0410L,
+            0x0088004043010108L, 0x2048013012000812L, 0x1000520220015020L,
+            0x1002218020801000L, 0x4002120202030423L, 0x200002020a012400L,
+            0x184010130240020aL, 0x0004010802040112L, 0x0c10040048801040L,
+            0x0000540220910081L, 0x0c82004218840000L, 0x00000c4200908000L,
+            0x2000020042020000L, 0x1001010460820000L, 0x4040400801810016L,
+            0xc008020808012200L, 0x2a42104200850200L, 0x0208210110012001L,
+            0xc000002101101080L, 0x0002028202016402L, 0x0200200231040900L,
+            0x0080000310020210L, 0x4704044184040c22L, 0x2020420408008100L,
+            0x0208812800850203L};
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final long[][] ROOK = new long[64][];
+    private static final long[][] BISHOP = new long[64][];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            KNIGHT[square] = offsetAttacks(square, KNIGHT_OFFSETS);
+            KING[square] = offsetAttacks(square, KING_OFFSETS);
+            PAWN[Color.WHITE.ordinal()][square] =
+                    offsetAttacks(square, new int[][]{{1, -1}, {1, 1}});
+            PAWN[Color.BLACK.ordinal()][square] =
+                    offsetAttacks(square, new int[][]{{-1, -1}, {-1, 1}});
+
+            ROOK_MASKS[square] = relevantBlockers(square, ROOK_DIRECTIONS);
+            BISHOP_MASKS[square] = relevantBlockers(square, BISHOP_DIRECTIONS);
+            ROOK_SHIFTS[square] = 64 - Long.bitCount(ROOK_MASKS[square]);
+            BISHOP_SHIFTS[square] = 64 - Long.bitCount(BISHOP_MASKS[square]);
+            ROOK[square] = slidingTable(square,
+                    ROOK_MASKS[square],
+                    ROOK_MAGICS[square],
+                    ROOK_SHIFTS[square],
+                    ROOK_DIRECTIONS);
+            BISHOP[square] = slidingTable(square,
+                    BISHOP_MASKS[square],
+                    BISHOP_MAGICS[square],
+                    BISHOP_SHIFTS[square],
+                    BISHOP_DIRECTIONS);
+        }
+    }
+
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * The squares a pawn of the given color attacks from the square.
+     */
+    public static long pawn(Color color, int square) {
+        return PAWN[color.ordinal()][square];
+    }
+
+    public static long rook(int square, long occupancy) {
+        return ROOK[square][magicIndex(occupancy & ROOK_MASKS[square],
+                ROOK_MAGICS[square],
+                ROOK_SHIFTS[square])];
+    }
+
+    public static long bishop(int square, long occupancy) {
+        return BISHOP[square][magicIndex(occupancy & BISHOP_MASKS[square],
+                BISHOP_MAGICS[square],
+                BISHOP_SHIFTS[square])];
+    }
+
+    public static long queen(int square, long occupancy) {
+        return rook(square, occupancy) | bishop(square, occupancy);
+    }
+
+    private static int magicIndex(long blockers, long magic, int shift) {
+        return (int) ((blockers * magic) >>> shift);
+    }
+
+    private static long offsetAttacks(int square, int[][] offsets) {
+        long attacks = 0;
+        for (int[] offset : offsets) {
+            int row = square / 8 + offset[0];
+            int col = square % 8 + offset[1];
+            if (isOnBoard(row, col)) {
+                attacks |= Bitboards.squareBit(row * 8 + col);
+            }
+        }
+        return attacks;
+    }
+
+    /**
+     * The squares whose occupancy can stop a slider on the square. The
+     * last square of each line has nothing behind it to hide, so it is left
+     * out.
+     */
+    private static long relevantBlockers(int square, int[][] directions) {
+        long blockers = 0;
+        for (int[] direction : directions) {
+            int row = square / 8 + direction[0];
+            int col = square % 8 + direction[1];
+            while (isOnBoard(row + direction[0], col + direction[1])) {
+                blockers |= Bitboards.squareBit(row * 8 + col);
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return blockers;
+    }
+
+    private static long slidingAttacks(int square,
+                                       long occupancy,
+                                       int[][] directions) {
+        long attacks = 0;
+        for (int[] direction : directions) {
+            int row = square / 8 + direction[0];
+            int col = square % 8 + direction[1];
+            while (isOnBoard(row, col)) {
+                int target = row * 8 + col;
+                attacks |= Bitboards.squareBit(target);
+                if (Bitboards.contains(occupancy, target)) {
+                    break;
+                }
+                row += direction[0];
+                col += direction[1];
+            }
+        }
+        return attacks;
+    }
+
+    private static long[] slidingTable(int square,
+                                       long mask,
+                                       long magic,
+                                       int shift,
+                                       int[][] directions) {
+        long[] table = new long[1 << (64 - shift)];
+        // Visit every subset of the mask, starting and ending with none.
+        long blockers = 0;
+        do {
+            table[magicIndex(blockers, magic, shift)] =
+                    slidingAttacks(square, blockers, directions);
+            blockers = (blockers - mask) & mask;
+        } while (blockers != 0);
+        return table;
+    }
+
+    private static boolean isOnBoard(int row, int col) {
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
+    }
+}
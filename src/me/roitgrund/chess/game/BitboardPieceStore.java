@@ -0,0 +1,112 @@
+package me.roitgrund.chess.game;
+
+import me.roitgrund.chess.game.Piece.Color;
+import me.roitgrund.chess.game.Piece.Type;
+
+/**
+ * Keeps one bitboard per piece type and color, so that set queries such as
+ * occupancy are single lookups.
+ */
+class BitboardPieceStore implements PieceStore {
+    private static final Type[] TYPE_VALUES = Type.values();
+    private static final int TYPES = TYPE_VALUES.length;
+
+    private final long[] pieces;
+    private final long[] colorOccupancy;
+
+    BitboardPieceStore() {
+        this(new long[TYPES * 2], new long[2]);
+    }
+
+    private BitboardPieceStore(long[] pieces, long[] colorOccupancy) {
+        this.pieces = pieces;
+        this.colorOccupancy = colorOccupancy;
+    }
+
+    /**
+     * A copy of the store, which is cheap if it already keeps bitboards.
+     */
+    static PieceStore copyOf(PieceStore store) {
+        if (store instanceof BitboardPieceStore) {
+            return store.copy();
+        }
+        BitboardPieceStore copy = new BitboardPieceStore();
+        long occupancy = store.occupancy();
+        while (occupancy != 0) {
+            int square = Long.numberOfTrailingZeros(occupancy);
+            occupancy &= occupancy - 1;
+            copy.set(square, store.get(square));
+        }
+        return copy;
+    }
+
+    @Override
+    public Piece get(int square) {
+        long bit = Bitboards.squareBit(square);
+        Color color;
+        if ((colorOccupancy[Color.WHITE.ordinal()] & bit) != 0) {
+            color = Color.WHITE;
+        } else if ((colorOccupancy[Color.BLACK.ordinal()] & bit) != 0) {
+            color = Color.BLACK;
+        } else {
+            return null;
+        }
+
+        int offset = color.ordinal() * TYPES;
+        for (Type type : TYPE_VALUES) {
+            if ((pieces[offset + type.ordinal()] & bit) != 0) {
+                return Piece.of(type, color);
+            }
+        }
+        throw new IllegalStateException(
+                "Square occupied without any piece on it.");
+    }
+
+    @Override
+    public void set(int square, Piece piece) {
+        remove(square);
+        long bit = Bitboards.squareBit(square);
+        pieces[index(piece.getType(), piece.getColor())] |= bit;
+        colorOccupancy[piece.getColor().ordinal()] |= bit;
+    }
+
+    @Override
+    public void remove(int square) {
+        long bit = Bitboards.squareBit(square);
+        if (((colorOccupancy[0] | colorOccupancy[1]) & bit) == 0) {
+            return;
+        }
+
+        long mask = ~bit;
+        for (int i = 0; i < pieces.length; i++) {
+            pieces[i] &= mask;
+        }
+        colorOccupancy[0] &= mask;
+        colorOccupancy[1] &= mask;
+    }
+
+    @Override
+    public long occupancy() {
+        return colorOccupancy[0] | colorOccupancy[1];
+    }
+
+    @Override
+    public long occupancy(Color color) {
+        return colorOccupancy[color.ordinal()];
+    }
+
+    @Override
+    public long pieces(Type type, Color color) {
+        return pieces[index(type, color)];
+    }
+
+    @Override
+    public PieceStore copy() {
+        return new BitboardPieceStore(
+                pieces.clone(), colorOccupancy.clone());
+    }
+
+    private static int index(Type type, Color color) {
+        return color.ordinal() * TYPES + type.ordinal();
+    }
+}
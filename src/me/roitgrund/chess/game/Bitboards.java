@@ -0,0 +1,51 @@
+package me.roitgrund.chess.game;
+
+/**
+ * Helpers for bitboards: 64-bit sets of squares where bit
+ * {@code row * 8 + col} stands for the square at that row and column.
+ */
+public class Bitboards {
+
+    private static final long[][] BETWEEN = new long[64][64];
+
+    static {
+        for (int from = 0; from < 64; from++) {
+            for (int to = 0; to < 64; to++) {
+                BETWEEN[from][to] = computeBetween(from, to);
+            }
+        }
+    }
+
+    public static long squareBit(int square) {
+        return 1L << square;
+    }
+
+    public static boolean contains(long bitboard, int square) {
+        return (bitboard & squareBit(square)) != 0;
+    }
+
+    /**
+     * The squares strictly between two squares on the same row, column or
+     * diagonal, or the empty set if the squares are not aligned.
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    private static long computeBetween(int from, int to) {
+        int rowDiff = to / 8 - from / 8;
+        int colDiff = to % 8 - from % 8;
+        if (from == to ||
+                rowDiff != 0 && colDiff != 0 &&
+                        Math.abs(rowDiff) != Math.abs(colDiff)) {
+            return 0;
+        }
+
+        int step = Integer.signum(rowDiff) * 8 + Integer.signum(colDiff);
+        long between = 0;
+        for (int square = from + step; square != to; square += step) {
+            between |= squareBit(square);
+        }
+        return between;
+    }
+}
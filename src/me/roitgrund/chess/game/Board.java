@@ -3,8 +3,9 @@ package me.roitgrund.chess.game;
 import com.google.common.base.Preconditions;
 import me.roitgrund.chess.game.Piece.Color;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.IntStream;
 
@@ -21,99 +22,493 @@ import static me.roitgrund.chess.game.Piece.Type.ROOK;
  * Represents a chess board including where the pieces are, whose turn it is,
  * and the en-passant and castling states for both players.
  */
-public class Board {
-    private final Piece[][] board;
-    private Optional<Integer> enPassant;
+public class Board implements ReadableBoard {
+    // Plies without a capture or pawn move after which the game is drawn.
+    public static final int FIFTY_MOVES = 100;
+
+    private static final int NO_EN_PASSANT = -1;
+    private static final Piece.Type[] PROMOTIONS =
+            {QUEEN, ROOK, BISHOP, KNIGHT};
+
+    private final PieceStore pieces;
+    private final UndoStack undoStack = new UndoStack();
+    private final PositionHistory history;
+    private int enPassantFile;
     private Coord whiteKing;
     private Coord blackKing;
     private Piece.Color turn;
-    private Map<Coord, Boolean> castlingPermissions;
+    private int castlingRights;
+    private int halfmoveClock;
+    private int fullmoveNumber;
+    private long hash;
+    // Kept up to date as pieces are set and removed; see PieceSquareTables.
+    private int middlegameScore;
+    private int endgameScore;
+    private int phase;
 
     public Board() {
-        board = new Piece[8][8];
+        this(Representation.BITBOARD);
+    }
+
+    public Board(Representation representation) {
+        this(representation.createPieceStore());
 
         setupPieces(0, WHITE);
         setupPieces(7, BLACK);
-        blackKing = new Coord(7, 4);
-        whiteKing = new Coord(0, 4);
+        blackKing = Coord.of(7, 4);
+        whiteKing = Coord.of(0, 4);
+        castlingRights = Castle.getInitialCastlingRights();
+        hash = computeHash();
+        history.push(hash);
+    }
+
+    /**
+     * Creates an empty board with white to move.
+     */
+    private Board(PieceStore pieces) {
+        this.pieces = pieces;
+        history = new PositionHistory();
+        enPassantFile = NO_EN_PASSANT;
         turn = WHITE;
-        castlingPermissions = Castle.getInitialCastlingPermissions();
-    }
-
-    private Board(
-            Piece[][] board,
-            Optional<Integer> enPassant,
-            Coord whiteKing,
-            Coord blackKing,
-            Color turn,
-            Map<Coord, Boolean> castlingPermissions) {
-        this.board = board;
-        this.enPassant = enPassant;
-        this.whiteKing = whiteKing;
-        this.blackKing = blackKing;
-        this.turn = turn;
-        this.castlingPermissions = castlingPermissions;
+        fullmoveNumber = 1;
+    }
+
+    private Board(Board from) {
+        pieces = from.pieces.copy();
+        history = from.history.copy();
+        enPassantFile = from.enPassantFile;
+        whiteKing = from.whiteKing;
+        blackKing = from.blackKing;
+        turn = from.turn;
+        castlingRights = from.castlingRights;
+        halfmoveClock = from.halfmoveClock;
+        fullmoveNumber = from.fullmoveNumber;
+        hash = from.hash;
+        middlegameScore = from.middlegameScore;
+        endgameScore = from.endgameScore;
+        phase = from.phase;
+    }
+
+    /**
+     * Returns an independent copy of the position, for handing to another
+     * thread. The copy has no moves to unmake, but remembers the positions
+     * before it for spotting repetitions.
+     */
+    public Board copy() {
+        return new Board(this);
+    }
+
+    /**
+     * Reads a position in Forsyth-Edwards Notation. The halfmove clock and
+     * fullmove number may be left out, as they are in EPD files.
+     *
+     * @throws IllegalArgumentException if the FEN is malformed, or the
+     *                                  position could not have been reached
+     *                                  (for example without both kings)
+     */
+    public static Board fromFen(CharSequence fen) {
+        return fromFen(fen, Representation.BITBOARD);
+    }
+
+    public static Board fromFen(
+            CharSequence fen, Representation representation) {
+        Board board = new Board(representation.createPieceStore());
+        board.parseFen(fen);
+        return board;
     }
 
-    public boolean canCastleTo(Coord coord) {
-        return castlingPermissions.get(coord);
+    /**
+     * Creates an empty board for {@link PositionCodec} to fill in.
+     */
+    static Board empty(Representation representation) {
+        return new Board(representation.createPieceStore());
+    }
+
+    @Override
+    public void toFen(Appendable out) throws IOException {
+        writeFen(pieces,
+                turn,
+                castlingRights,
+                enPassantFile,
+                halfmoveClock,
+                fullmoveNumber,
+                out);
+    }
+
+    /**
+     * Writes a position in Forsyth-Edwards Notation, for boards and their
+     * snapshots alike.
+     */
+    static void writeFen(PieceStore pieces,
+                         Color turn,
+                         int castlingRights,
+                         int enPassantFile,
+                         int halfmoveClock,
+                         int fullmoveNumber,
+                         Appendable out) throws IOException {
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                Piece piece = pieces.get(row * 8 + col);
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+                out.append(fenLetter(piece));
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (row > 0) {
+                out.append('/');
+            }
+        }
+
+        out.append(' ').append(turn == WHITE ? 'w' : 'b').append(' ');
+        if (castlingRights == 0) {
+            out.append('-');
+        }
+        for (Castle castle : Castle.values()) {
+            if ((castlingRights & castle.getRightBit()) != 0) {
+                out.append(castle.getFenLetter());
+            }
+        }
+
+        out.append(' ');
+        if (enPassantFile == NO_EN_PASSANT) {
+            out.append('-');
+        } else {
+            out.append((char) ('a' + enPassantFile))
+                    .append(turn == WHITE ? '6' : '3');
+        }
+        out.append(' ')
+                .append(Integer.toString(halfmoveClock))
+                .append(' ')
+                .append(Integer.toString(fullmoveNumber));
     }
 
-    public void preventCastlingTo(Coord coord) {
-        castlingPermissions.put(coord, false);
+    /**
+     * An immutable copy of the position, for publishing to threads that
+     * only read it. Taking one copies a few dozen longs.
+     */
+    public BoardSnapshot snapshot() {
+        return new BoardSnapshot(BitboardPieceStore.copyOf(pieces),
+                turn,
+                castlingRights,
+                enPassantFile,
+                halfmoveClock,
+                fullmoveNumber,
+                hash);
+    }
+
+    /**
+     * Creates a board in the position of the snapshot, with no moves to
+     * unmake or positions before it.
+     */
+    static Board fromSnapshot(BoardSnapshot snapshot,
+                              Representation representation) {
+        Board board = empty(representation);
+        long occupancy = snapshot.getOccupancy();
+        while (occupancy != 0) {
+            int square = Long.numberOfTrailingZeros(occupancy);
+            occupancy &= occupancy - 1;
+            board.setPiece(square, snapshot.getPieceStore().get(square));
+        }
+        board.setUp(snapshot.getTurn(),
+                snapshot.getCastlingRights(),
+                snapshot.getEnPassantFile(),
+                snapshot.getHalfmoveClock(),
+                snapshot.getFullmoveNumber());
+        return board;
+    }
+
+    @Override
+    public boolean hasCastlingRight(Castle castle) {
+        return (castlingRights & castle.getRightBit()) != 0;
+    }
+
+    public void removeCastlingRight(Castle castle) {
+        setCastlingRights(castlingRights & ~castle.getRightBit());
+    }
+
+    /**
+     * A 64-bit Zobrist hash of the position, covering the pieces, whose turn
+     * it is, the castling rights and the en passant file. It is kept up to
+     * date as moves are made, so reading it is free.
+     */
+    @Override
+    public long hash() {
+        return hash;
     }
 
     public GameState move(Coord from, Coord to) {
         if (isLegalMove(from, to)) {
-            actuallyMove(from, to);
+            makeMove(from, to);
+            return getGameState();
+        }
+
+        return GameState.ILLEGAL_MOVE;
+    }
+
+    /**
+     * Plays a move encoded as in {@link Moves}. Pawns reaching the last row
+     * promote to the move's promotion piece, or to a queen if it has none.
+     */
+    public GameState move(int move) {
+        Coord from = Coord.fromIndex(Moves.from(move));
+        Coord to = Coord.fromIndex(Moves.to(move));
+        Piece.Type promotion = Moves.promotion(move);
+        if (isLegalMove(from, to) &&
+                (promotion == null ||
+                        isPromotion(from, to) &&
+                                promotion != PAWN &&
+                                promotion != KING)) {
+            makeMove(from, to, promotion == null ? QUEEN : promotion);
             return getGameState();
         }
 
         return GameState.ILLEGAL_MOVE;
     }
 
+    /**
+     * Returns the legal move between the squares, encoded with its flags as
+     * in {@link Moves}, or {@link Moves#NONE} if there is none. Promotions
+     * are to the given piece, or to a queen if it is null; the piece must
+     * be null for other moves.
+     */
+    public int legalMove(Coord from, Coord to, Piece.Type promotion) {
+        if (!isLegalMove(from, to)) {
+            return Moves.NONE;
+        }
+        if (isPromotion(from, to)) {
+            if (promotion == PAWN || promotion == KING) {
+                return Moves.NONE;
+            }
+            promotion = promotion == null ? QUEEN : promotion;
+        } else if (promotion != null) {
+            return Moves.NONE;
+        }
+        return Moves.encode(from.getIndex(),
+                to.getIndex(),
+                promotion,
+                flags(pieces.get(from.getIndex()), from, to));
+    }
+
+    /**
+     * Plays a move without checking that it is legal, remembering what is
+     * needed to take it back with {@link #unmakeMove()}. Pawns reaching the
+     * last row promote to a queen.
+     */
+    public void makeMove(Coord from, Coord to) {
+        makeMove(from, to, QUEEN);
+    }
+
+    /**
+     * Plays a move encoded as in {@link Moves} without checking that it is
+     * legal. Pawns reaching the last row promote to the move's promotion
+     * piece, or to a queen if it has none.
+     */
+    public void makeMove(int move) {
+        Piece.Type promotion = Moves.promotion(move);
+        makeMove(Coord.fromIndex(Moves.from(move)),
+                Coord.fromIndex(Moves.to(move)),
+                promotion == null ? QUEEN : promotion);
+    }
+
+    private void makeMove(Coord from, Coord to, Piece.Type promotion) {
+        int fromSquare = from.getIndex();
+        int toSquare = to.getIndex();
+        Piece fromPiece = pieces.get(fromSquare);
+
+        int slot = undoStack.push();
+        undoStack.from[slot] = fromSquare;
+        undoStack.to[slot] = toSquare;
+        undoStack.moved[slot] = fromPiece;
+        undoStack.enPassantFile[slot] = enPassantFile;
+        undoStack.castlingRights[slot] = castlingRights;
+        undoStack.halfmoveClock[slot] = halfmoveClock;
+        undoStack.whiteKing[slot] = whiteKing;
+        undoStack.blackKing[slot] = blackKing;
+        undoStack.hash[slot] = hash;
+
+        // Remember the captured piece, which for en passant is not on the
+        // destination square.
+        int capturedSquare = toSquare;
+        if (fromPiece.getType() == PAWN &&
+                from.getCol() != to.getCol() &&
+                pieces.get(toSquare) == null) {
+            capturedSquare = Coord.oneInFrontOf(to, Piece.Color.other(turn))
+                    .getIndex();
+        }
+        undoStack.captured[slot] = pieces.get(capturedSquare);
+        undoStack.capturedSquare[slot] = capturedSquare;
+
+        if (fromPiece.getType() == PAWN || undoStack.captured[slot] != null) {
+            halfmoveClock = 0;
+        } else {
+            halfmoveClock++;
+        }
+        if (turn == BLACK) {
+            fullmoveNumber++;
+        }
+
+        // Delete en passant piece.
+        if (capturedSquare != toSquare) {
+            removePiece(capturedSquare);
+        }
+
+        // Set new king position.
+        if (fromPiece.getType() == KING) {
+            if (fromPiece.getColor() == WHITE) {
+                whiteKing = to;
+            } else {
+                blackKing = to;
+            }
+        }
+
+        // Set possible en passant for next turn.
+        if (fromPiece.getType() == PAWN &&
+                to.isOneInFrontOf(Coord.oneInFrontOf(from, turn), turn)) {
+            setEnPassantFile(from.getCol());
+        } else {
+            setEnPassantFile(NO_EN_PASSANT);
+        }
+
+        // Handle castling.
+        Castle.handleCastling(from, to, this);
+
+        // Move piece.
+        removePiece(from);
+        removePiece(to);
+        setPiece(to, fromPiece);
+
+        // Promote pawn.
+        if (fromPiece.getType() == PAWN &&
+                (to.getRow() == 0 || to.getRow() == 7)) {
+            setPiece(to, Piece.of(promotion, fromPiece.getColor()));
+        }
+
+        turn = Piece.Color.other(turn);
+        hash ^= Zobrist.turn(WHITE) ^ Zobrist.turn(BLACK);
+        history.push(hash);
+    }
+
+    /**
+     * Takes back the last move made with {@link #makeMove(Coord, Coord)} or
+     * {@link #makeMove(int)}.
+     */
+    public void unmakeMove() {
+        Preconditions.checkState(undoStack.size() > 0, "No move to unmake.");
+        int slot = undoStack.pop();
+        history.pop();
+        int fromSquare = undoStack.from[slot];
+        int toSquare = undoStack.to[slot];
+
+        turn = Piece.Color.other(turn);
+        if (turn == BLACK) {
+            fullmoveNumber--;
+        }
+
+        removePiece(toSquare);
+        setPiece(fromSquare, undoStack.moved[slot]);
+        if (undoStack.captured[slot] != null) {
+            setPiece(undoStack.capturedSquare[slot], undoStack.captured[slot]);
+        }
+        if (undoStack.moved[slot].getType() == KING) {
+            Castle.undoCastling(
+                    Coord.fromIndex(fromSquare),
+                    Coord.fromIndex(toSquare),
+                    this);
+        }
+
+        enPassantFile = undoStack.enPassantFile[slot];
+        castlingRights = undoStack.castlingRights[slot];
+        halfmoveClock = undoStack.halfmoveClock[slot];
+        whiteKing = undoStack.whiteKing[slot];
+        blackKing = undoStack.blackKing[slot];
+        hash = undoStack.hash[slot];
+    }
+
+    /**
+     * The castling rights left, as a mask of {@link Castle#getRightBit()}.
+     */
+    int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * The column of the pawn that just moved two squares, or -1.
+     */
+    int getEnPassantFile() {
+        return enPassantFile;
+    }
+
+    @Override
     public boolean canEnPassant(Coord to) {
-        return enPassant.isPresent() && enPassant.get() == to.getCol();
+        return enPassantFile == to.getCol();
+    }
+
+    @Override
+    public Color getTurn() {
+        return turn;
+    }
+
+    /**
+     * The number of moves since the last capture or pawn move.
+     */
+    @Override
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    /**
+     * The number of the current move, starting at 1 and going up after
+     * each black move.
+     */
+    @Override
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    /**
+     * Whether the king of the player whose turn it is is attacked.
+     */
+    public boolean isInCheck() {
+        return squareVulnerableFromColor(
+                turn == WHITE ? whiteKing : blackKing,
+                Piece.Color.other(turn));
+    }
+
+    /**
+     * The squares holding the given piece, as a bitboard.
+     */
+    @Override
+    public long getPieces(Piece.Type type, Color color) {
+        return pieces.pieces(type, color);
     }
 
     public boolean nothingOnRowBetween(Coord from, Coord to) {
         Preconditions.checkArgument(from.isSameRowAs(to));
-        return IntStream.range(Math.min(from.getCol(), to.getCol()) + 1,
-                Math.max(from.getCol(), to.getCol()))
-                .noneMatch(col -> getPiece(new Coord(from.getRow(),
-                        col)).isPresent());
+        return nothingBetween(from, to);
     }
 
+    @Override
     public Optional<Piece> getPiece(Coord coord) {
-        return Optional.ofNullable(board[coord.getRow()][coord.getCol()]);
+        return Optional.ofNullable(pieces.get(coord.getIndex()));
     }
 
     public boolean nothingOnColBetween(Coord from, Coord to) {
         Preconditions.checkArgument(from.isSameColAs(to));
-        return IntStream
-                .range(
-                        Math.min(from.getRow(), to.getRow()) + 1,
-                        Math.max(from.getRow(), to.getRow()))
-                .noneMatch(row -> getPiece(
-                        new Coord(row, from.getCol())).isPresent());
+        return nothingBetween(from, to);
     }
 
     public boolean nothingOnDiagonalBetween(Coord from, Coord to) {
         Preconditions.checkArgument(from.isSameDiagonalAs(to));
-        int rowDirection = from.getRowDirection(to);
-        int colDirection = from.getColDirection(to);
-
-        Coord curr = from.next(rowDirection, colDirection);
-
-        while (!curr.equals(to)) {
-            if (getPiece(curr).isPresent()) {
-                return false;
-            }
-
-            curr = curr.next(rowDirection, colDirection);
-        }
-
-        return true;
+        return nothingBetween(from, to);
     }
 
     public GameState move(String from, String to) {
@@ -121,38 +516,133 @@ public class Board {
     }
 
     public boolean squareVulnerableFromColor(Coord square, Color color) {
-        return !falseForAllCoords(
-                potentialDangerFrom -> getPiece(potentialDangerFrom)
-                        .map(piece -> piece.getColor() == color &&
-                                piece.isValidMove(
-                                        this,
-                                        potentialDangerFrom,
-                                        square))
-                        .orElse(false));
+        return squareVulnerableFromColor(square.getIndex(), color);
     }
 
+    /**
+     * Whether the given color attacks the square with the given index.
+     */
+    public boolean squareVulnerableFromColor(int index, Color color) {
+        long occupancy = pieces.occupancy();
+        long queens = pieces.pieces(QUEEN, color);
+        return (Attacks.pawn(Piece.Color.other(color), index) &
+                pieces.pieces(PAWN, color)) != 0 ||
+                (Attacks.knight(index) & pieces.pieces(KNIGHT, color)) != 0 ||
+                (Attacks.king(index) & pieces.pieces(KING, color)) != 0 ||
+                (Attacks.bishop(index, occupancy) &
+                        (pieces.pieces(BISHOP, color) | queens)) != 0 ||
+                (Attacks.rook(index, occupancy) &
+                        (pieces.pieces(ROOK, color) | queens)) != 0;
+    }
+
+    /**
+     * The state of the game: won, stalemated or drawn by rule, or still
+     * being played. Checkmate takes precedence over the fifty-move rule.
+     */
     public GameState getGameState() {
-        if (falseForAllCoords(
-                from -> falseForAllCoords(to -> isLegalMove(from, to)))) {
+        if (!generateMoves(null, true, true)) {
             return getWinnerOrStaleMate();
         }
 
+        return getDrawByRule();
+    }
+
+    /**
+     * The draw the position calls for whatever the moves available: by the
+     * fifty-move rule once 100 plies have passed without a capture or pawn
+     * move, or by threefold repetition. Otherwise {@link GameState#PLAYING}.
+     * Takes time proportional to the halfmove clock at worst.
+     */
+    public GameState getDrawByRule() {
+        if (halfmoveClock >= FIFTY_MOVES) {
+            return GameState.DRAW_BY_FIFTY_MOVES;
+        }
+        if (getRepetitions() >= 3) {
+            return GameState.DRAW_BY_REPETITION;
+        }
         return GameState.PLAYING;
     }
 
+    /**
+     * The number of times the position has occurred, counting this time,
+     * with the same player to move since the last capture or pawn move.
+     * Positions count as the same if their {@link #hash()} is, so a double
+     * pawn push makes a position differ from the same one without it even
+     * when no en passant capture is possible. Positions before the board
+     * was read from FEN are unknown.
+     */
+    public int getRepetitions() {
+        return history.repetitions(hash, halfmoveClock);
+    }
+
+    /**
+     * All the moves the player whose turn it is can legally make.
+     */
+    public List<Move> legalMoves() {
+        MoveList moves = new MoveList();
+        legalMoves(moves);
+        List<Move> legalMoves = new ArrayList<>(moves.size());
+        for (int i = 0; i < moves.size(); i++) {
+            legalMoves.add(Moves.decode(moves.get(i)));
+        }
+        return legalMoves;
+    }
+
+    /**
+     * Replaces the list's contents with the legal moves, encoded as in
+     * {@link Moves} with their flags set. Promotions appear once for each
+     * piece the pawn can become.
+     */
+    public void legalMoves(MoveList moves) {
+        moves.clear();
+        generateMoves(moves, false, true);
+    }
+
+    /**
+     * Replaces the list's contents with the moves the pieces can make,
+     * encoded as {@link #legalMoves(MoveList)} encodes them, without
+     * checking whether they leave the king attacked. Castling is fully
+     * checked. After playing one, {@link #movedIntoCheck()} tells whether
+     * it was legal; that is cheaper for a search that stops at a cutoff
+     * before trying most moves.
+     */
+    public void pseudoLegalMoves(MoveList moves) {
+        moves.clear();
+        generateMoves(moves, false, false);
+    }
+
+    /**
+     * Whether the player who made the last move left their own king
+     * attacked, so that the move was illegal.
+     */
+    public boolean movedIntoCheck() {
+        return squareVulnerableFromColor(notPlayingKing(), turn);
+    }
+
     public void setPiece(Coord coord, Piece piece) {
-        board[coord.getRow()][coord.getCol()] = piece;
+        setPiece(coord.getIndex(), piece);
     }
 
     public void removePiece(Coord coord) {
-        board[coord.getRow()][coord.getCol()] = null;
+        removePiece(coord.getIndex());
     }
 
     private boolean isLegalMove(Coord from, Coord to) {
+        return isPseudoLegalMove(from, to) &&
+                !kingEndangeredFromMove(from, to);
+    }
+
+    /**
+     * Whether the piece may make the move, ignoring whether it leaves its
+     * king attacked.
+     */
+    private boolean isPseudoLegalMove(Coord from, Coord to) {
+        if (!from.isValid() || !to.isValid()) {
+            return false;
+        }
+
         Optional<Piece> fromPiece = getPiece(from);
-        if (!from.isValid() ||
-                !to.isValid() ||
-                to.equals(from) ||
+        if (to.equals(from) ||
                 !fromPiece.isPresent() ||
                 !(fromPiece.get().getColor() == turn)) {
             return false;
@@ -165,22 +655,172 @@ public class Board {
             return false;
         }
 
-        if (!fromPiece.get().isValidMove(this, from, to) ||
-                kingEndangeredFromMove(from, to)) {
-            return false;
+        return fromPiece.get().isValidMove(this, from, to);
+    }
+
+    private boolean nothingBetween(Coord from, Coord to) {
+        return (Bitboards.between(from.getIndex(), to.getIndex()) &
+                pieces.occupancy()) == 0;
+    }
+
+    private void setPiece(int square, Piece piece) {
+        removePiece(square);
+        pieces.set(square, piece);
+        hash ^= Zobrist.piece(piece, square);
+        middlegameScore += PieceSquareTables.middlegame(piece, square);
+        endgameScore += PieceSquareTables.endgame(piece, square);
+        phase += PieceSquareTables.phase(piece.getType());
+    }
+
+    private void removePiece(int square) {
+        Piece piece = pieces.get(square);
+        if (piece != null) {
+            pieces.remove(square);
+            hash ^= Zobrist.piece(piece, square);
+            middlegameScore -= PieceSquareTables.middlegame(piece, square);
+            endgameScore -= PieceSquareTables.endgame(piece, square);
+            phase -= PieceSquareTables.phase(piece.getType());
+        }
+    }
+
+    private void setCastlingRights(int castlingRights) {
+        hash ^= Zobrist.castlingRights(this.castlingRights) ^
+                Zobrist.castlingRights(castlingRights);
+        this.castlingRights = castlingRights;
+    }
+
+    private void setEnPassantFile(int enPassantFile) {
+        hash ^= Zobrist.enPassantFile(this.enPassantFile) ^
+                Zobrist.enPassantFile(enPassantFile);
+        this.enPassantFile = enPassantFile;
+    }
+
+    /**
+     * Hashes the position from scratch, which moves avoid by updating the
+     * hash as they go.
+     */
+    long computeHash() {
+        long hash = Zobrist.castlingRights(castlingRights) ^
+                Zobrist.enPassantFile(enPassantFile) ^
+                Zobrist.turn(turn);
+        long occupancy = pieces.occupancy();
+        while (occupancy != 0) {
+            int square = Long.numberOfTrailingZeros(occupancy);
+            occupancy &= occupancy - 1;
+            hash ^= Zobrist.piece(pieces.get(square), square);
+        }
+        return hash;
+    }
+
+    /**
+     * The squares holding a piece of either color.
+     */
+    @Override
+    public long getOccupancy() {
+        return pieces.occupancy();
+    }
+
+    /**
+     * The sum of the middlegame piece-square values of every piece, from
+     * white's point of view.
+     */
+    public int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    /**
+     * The sum of the endgame piece-square values of every piece, from
+     * white's point of view.
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * How far from the endgame the position is, from
+     * {@link PieceSquareTables#MAX_PHASE} with all pieces on the board
+     * down to 0 with only kings and pawns. Promotions can take it higher.
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Adds the legal moves to the list, or with legalOnly unset the moves
+     * that may leave the king attacked too, or just looks for one if
+     * firstOnly is set, and returns whether there were any.
+     */
+    private boolean generateMoves(MoveList moves,
+                                  boolean firstOnly,
+                                  boolean legalOnly) {
+        boolean found = false;
+        long own = pieces.occupancy(turn);
+        long movable = own;
+        while (movable != 0) {
+            int fromSquare = Long.numberOfTrailingZeros(movable);
+            movable &= movable - 1;
+
+            Coord from = Coord.fromIndex(fromSquare);
+            Piece piece = pieces.get(fromSquare);
+            long targets = piece.getType().candidateTargets(this, from, piece) &
+                    ~own;
+            while (targets != 0) {
+                int toSquare = Long.numberOfTrailingZeros(targets);
+                targets &= targets - 1;
+
+                Coord to = Coord.fromIndex(toSquare);
+                if (legalOnly
+                        ? !isLegalMove(from, to)
+                        : !isPseudoLegalMove(from, to)) {
+                    continue;
+                }
+                if (firstOnly) {
+                    return true;
+                }
+                found = true;
+                addMove(moves, piece, from, to);
+            }
+        }
+        return found;
+    }
+
+    private void addMove(MoveList moves, Piece piece, Coord from, Coord to) {
+        int fromSquare = from.getIndex();
+        int toSquare = to.getIndex();
+        int flags = flags(piece, from, to);
+        if (piece.getType() == PAWN && isPromotion(from, to)) {
+            for (Piece.Type promotion : PROMOTIONS) {
+                moves.add(Moves.encode(
+                        fromSquare, toSquare, promotion, flags));
+            }
+            return;
+        }
+        moves.add(Moves.encode(fromSquare, toSquare, null, flags));
+    }
+
+    private int flags(Piece piece, Coord from, Coord to) {
+        int flags = pieces.get(to.getIndex()) != null ? Moves.CAPTURE : 0;
+        if (piece.getType() == PAWN) {
+            if (from.getCol() != to.getCol() && flags == 0) {
+                flags = Moves.CAPTURE | Moves.EN_PASSANT;
+            } else if (Math.abs(to.getRow() - from.getRow()) == 2) {
+                flags = Moves.DOUBLE_PUSH;
+            }
+        } else if (piece.getType() == KING &&
+                Math.abs(to.getCol() - from.getCol()) == 2) {
+            flags = Moves.CASTLE;
         }
-        return true;
+        return flags;
     }
 
-    private boolean falseForAllCoords(CoordPredicate coordPredicate) {
-        return IntStream.range(0, 8).noneMatch(
-                row -> IntStream.range(0, 8).anyMatch(
-                        col -> coordPredicate.isTrue(new Coord(row, col))));
+    private boolean isPromotion(Coord from, Coord to) {
+        return getPiece(from).map(piece -> piece.getType() == PAWN)
+                .orElse(false) &&
+                (to.getRow() == 0 || to.getRow() == 7);
     }
 
     private GameState getWinnerOrStaleMate() {
-        if (falseForAllCoords(from -> isLegalMove(
-                from, turn == BLACK ? blackKing : whiteKing))) {
+        if (isInCheck()) {
             return turn == BLACK ? GameState.WHITE_WINS : GameState.BLACK_WINS;
         }
 
@@ -188,97 +828,259 @@ public class Board {
     }
 
     private void setupPieces(int row, Piece.Color color) {
-        board[row][0] = new Piece(ROOK, color);
-        board[row][1] = new Piece(KNIGHT, color);
-        board[row][2] = new Piece(BISHOP, color);
-        board[row][3] = new Piece(QUEEN, color);
-        board[row][4] = new Piece(KING, color);
-        board[row][5] = new Piece(BISHOP, color);
-        board[row][6] = new Piece(KNIGHT, color);
-        board[row][7] = new Piece(ROOK, color);
+        setPiece(Coord.of(row, 0), Piece.of(ROOK, color));
+        setPiece(Coord.of(row, 1), Piece.of(KNIGHT, color));
+        setPiece(Coord.of(row, 2), Piece.of(BISHOP, color));
+        setPiece(Coord.of(row, 3), Piece.of(QUEEN, color));
+        setPiece(Coord.of(row, 4), Piece.of(KING, color));
+        setPiece(Coord.of(row, 5), Piece.of(BISHOP, color));
+        setPiece(Coord.of(row, 6), Piece.of(KNIGHT, color));
+        setPiece(Coord.of(row, 7), Piece.of(ROOK, color));
 
-        IntStream.rangeClosed(0, 7).forEach(col ->
-                board[row + (color == WHITE ? 1 : -1)][col] =
-                        new Piece(PAWN, color));
+        IntStream.rangeClosed(0, 7).forEach(col -> setPiece(
+                Coord.of(row + (color == WHITE ? 1 : -1), col),
+                Piece.of(PAWN, color)));
     }
 
-    private void actuallyMove(Coord from, Coord to) {
-        Piece fromPiece = getPiece(from).get();
-
-        // Delete en passant piece.
-        if (fromPiece.getType() == PAWN && !getPiece(to).isPresent()) {
-            removePiece(Coord.oneInFrontOf(to, Piece.Color.other(turn)));
+    private void parseFen(CharSequence fen) {
+        int i = 0;
+        int row = 7;
+        int col = 0;
+        for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                Preconditions.checkArgument(col == 8 && row > 0,
+                        "Bad row in FEN %s", fen);
+                row--;
+                col = 0;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                Preconditions.checkArgument(col <= 8, "Bad row in FEN %s", fen);
+            } else {
+                Preconditions.checkArgument(col < 8, "Bad row in FEN %s", fen);
+                setPiece(row * 8 + col, fromFenLetter(c, fen));
+                col++;
+            }
         }
+        Preconditions.checkArgument(row == 0 && col == 8,
+                "FEN %s must have eight full rows", fen);
 
-        // Set new king position.
-        if (fromPiece.getType() == KING) {
-            if (fromPiece.getColor() == WHITE) {
-                whiteKing = to;
-            } else {
-                blackKing = to;
+        i = skipSpace(fen, i);
+        Preconditions.checkArgument(i < fen.length() &&
+                        (fen.charAt(i) == 'w' || fen.charAt(i) == 'b'),
+                "Bad side to move in FEN %s", fen);
+        turn = fen.charAt(i++) == 'w' ? WHITE : BLACK;
+
+        i = skipSpace(fen, i);
+        if (i < fen.length() && fen.charAt(i) == '-') {
+            i++;
+        } else {
+            for (; i < fen.length() && fen.charAt(i) != ' '; i++) {
+                Castle castle = Castle.fromFenLetter(fen.charAt(i));
+                Preconditions.checkArgument(castle != null &&
+                                castle.hasPiecesInPlace(this),
+                        "Bad castling rights in FEN %s", fen);
+                castlingRights |= castle.getRightBit();
             }
         }
 
-        // Set possible en passant for next turn.
-        if (fromPiece.getType() == PAWN &&
-                to.isOneInFrontOf(Coord.oneInFrontOf(from, turn), turn)) {
-            enPassant = Optional.of(from.getCol());
+        i = skipSpace(fen, i);
+        if (i < fen.length() && fen.charAt(i) == '-') {
+            i++;
         } else {
-            enPassant = Optional.empty();
+            Preconditions.checkArgument(i + 1 < fen.length() &&
+                            fen.charAt(i) >= 'a' && fen.charAt(i) <= 'h' &&
+                            fen.charAt(i + 1) == (turn == WHITE ? '6' : '3') &&
+                            justPushedTwo(fen.charAt(i) - 'a'),
+                    "Bad en passant square in FEN %s", fen);
+            enPassantFile = fen.charAt(i) - 'a';
+            i += 2;
         }
 
-        // Handle castling.
-        Castle.handleCastling(from, to, this);
+        i = skipSpace(fen, i);
+        if (i < fen.length()) {
+            int end = skipNumber(fen, i);
+            halfmoveClock = parseNumber(fen, i, end);
+            i = skipSpace(fen, end);
+            end = skipNumber(fen, i);
+            fullmoveNumber = Math.max(1, parseNumber(fen, i, end));
+            i = end;
+        }
+        Preconditions.checkArgument(i == fen.length(),
+                "Unexpected trailing text in FEN %s", fen);
 
-        // Move piece.
-        removePiece(from);
-        removePiece(to);
-        setPiece(to, fromPiece);
+        checkPosition("FEN", fen);
+    }
 
-        // Promote pawn to queen.
-        if (fromPiece.getType() == PAWN &&
-                (to.getRow() == 0 || to.getCol() == 8)) {
-            setPiece(to, new Piece(QUEEN, fromPiece.getColor()));
+    /**
+     * Whether the position is consistent with a pawn of the player not to
+     * move having just moved two squares along the given file: the pawn
+     * stands where it landed and the two squares it passed are empty. Any
+     * other en passant file would let {@link #makeMove} take a piece that
+     * is not there.
+     */
+    private boolean justPushedTwo(int file) {
+        Color pusher = Piece.Color.other(turn);
+        int forward = pusher == WHITE ? 8 : -8;
+        int landed = (pusher == WHITE ? 3 : 4) * 8 + file;
+        return Piece.of(PAWN, pusher).equals(pieces.get(landed)) &&
+                pieces.get(landed - forward) == null &&
+                pieces.get(landed - 2 * forward) == null;
+    }
+
+    /**
+     * Finishes setting up a board whose pieces have been placed, for
+     * {@link PositionCodec}.
+     *
+     * @throws IllegalArgumentException if the position could not have been
+     *                                  reached
+     */
+    void setUp(Color turn,
+               int castlingRights,
+               int enPassantFile,
+               int halfmoveClock,
+               int fullmoveNumber) {
+        this.turn = turn;
+        for (Castle castle : Castle.values()) {
+            Preconditions.checkArgument(
+                    (castlingRights & castle.getRightBit()) == 0 ||
+                            castle.hasPiecesInPlace(this),
+                    "Bad castling rights in encoded position");
         }
+        this.castlingRights = castlingRights;
+        Preconditions.checkArgument(enPassantFile == NO_EN_PASSANT ||
+                        enPassantFile >= 0 && enPassantFile < 8 &&
+                                justPushedTwo(enPassantFile),
+                "Bad en passant file in encoded position");
+        this.enPassantFile = enPassantFile;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = Math.max(1, fullmoveNumber);
+        checkPosition("Encoded position", "");
+    }
 
-        turn = Piece.Color.other(turn);
+    /**
+     * Checks that a position read from the given source has a king of each
+     * color and that the player not to move is not in check, then hashes it.
+     */
+    private void checkPosition(String source, CharSequence position) {
+        whiteKing = findKing(WHITE, source, position);
+        blackKing = findKing(BLACK, source, position);
+        Preconditions.checkArgument(
+                !squareVulnerableFromColor(notPlayingKing(), turn),
+                "Player not to move is in check in %s %s", source, position);
+        hash = computeHash();
+        history.clear();
+        history.push(hash);
+    }
+
+    private Coord findKing(
+            Color color, String source, CharSequence position) {
+        long kings = pieces.pieces(KING, color);
+        Preconditions.checkArgument(Long.bitCount(kings) == 1,
+                "%s %s must have one %s king", source, position, color);
+        return Coord.fromIndex(Long.numberOfTrailingZeros(kings));
+    }
+
+    private static int skipSpace(CharSequence fen, int i) {
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipNumber(CharSequence fen, int i) {
+        while (i < fen.length() && fen.charAt(i) != ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int parseNumber(CharSequence fen, int start, int end) {
+        Preconditions.checkArgument(start < end && end - start <= 9,
+                "Bad move counter in FEN %s", fen);
+        int number = 0;
+        for (int i = start; i < end; i++) {
+            char c = fen.charAt(i);
+            Preconditions.checkArgument(c >= '0' && c <= '9',
+                    "Bad move counter in FEN %s", fen);
+            number = number * 10 + c - '0';
+        }
+        return number;
+    }
+
+    private static Piece fromFenLetter(char letter, CharSequence fen) {
+        Color color = Character.isUpperCase(letter) ? WHITE : BLACK;
+        switch (Character.toUpperCase(letter)) {
+            case 'P':
+                return Piece.of(PAWN, color);
+            case 'N':
+                return Piece.of(KNIGHT, color);
+            case 'B':
+                return Piece.of(BISHOP, color);
+            case 'R':
+                return Piece.of(ROOK, color);
+            case 'Q':
+                return Piece.of(QUEEN, color);
+            case 'K':
+                return Piece.of(KING, color);
+            default:
+                throw new IllegalArgumentException(String.format(
+                        "Bad piece %s in FEN %s", letter, fen));
+        }
+    }
+
+    /**
+     * FEN letters are the usual English ones, upper case for white.
+     */
+    private static char fenLetter(Piece piece) {
+        char letter = piece.getType() == KNIGHT
+                ? 'N'
+                : piece.getType().getLetter();
+        return piece.getColor() == WHITE
+                ? letter
+                : Character.toLowerCase(letter);
     }
 
     private boolean kingEndangeredFromMove(Coord from,
                                            Coord to) {
-        Board boardCopy = copyOf(this);
-        boardCopy.actuallyMove(from, to);
-        return boardCopy.squareVulnerableFromColor(
-                boardCopy.notPlayingKing(),
-                boardCopy.turn);
+        makeMove(from, to);
+        boolean kingEndangered =
+                squareVulnerableFromColor(notPlayingKing(), turn);
+        unmakeMove();
+        return kingEndangered;
     }
 
     private Coord notPlayingKing() {
         return turn == WHITE ? blackKing : whiteKing;
     }
 
-    private static Board copyOf(Board from) {
-        Piece[][] board = new Piece[8][8];
-        for (int i = 0; i < 8; i++) {
-            System.arraycopy(from.board[i], 0, board[i], 0, 8);
-        }
-        return new Board(board,
-                from.enPassant,
-                from.whiteKing,
-                from.blackKing,
-                from.turn,
-                new HashMap<>(from.castlingPermissions));
+    /**
+     * How a board stores its pieces. Both representations behave
+     * identically; bitboards make set-wise queries such as occupancy cheap.
+     */
+    public enum Representation {
+        ARRAY {
+            @Override
+            PieceStore createPieceStore() {
+                return new ArrayPieceStore();
+            }
+        },
+        BITBOARD {
+            @Override
+            PieceStore createPieceStore() {
+                return new BitboardPieceStore();
+            }
+        };
+
+        abstract PieceStore createPieceStore();
     }
 
     public enum GameState {
         WHITE_WINS,
         BLACK_WINS,
         STALEMATE,
+        DRAW_BY_REPETITION,
+        DRAW_BY_FIFTY_MOVES,
         ILLEGAL_MOVE, PLAYING
     }
-
-    @FunctionalInterface
-    private interface CoordPredicate {
-        boolean isTrue(Coord coord);
-    }
 }
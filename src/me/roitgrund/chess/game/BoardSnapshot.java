@@ -0,0 +1,164 @@
+package me.roitgrund.chess.game;
+
+import me.roitgrund.chess.game.Piece.Color;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * An immutable position, taken from a {@link Board} with
+ * {@link Board#snapshot()}. Snapshots can be published to any number of
+ * threads, for instance through an {@code AtomicReference} or a volatile
+ * field, and read without locking while the board goes on changing.
+ *
+ * <p>A snapshot keeps the pieces as bitboards, so taking one copies a few
+ * dozen longs rather than the board's squares.
+ */
+public final class BoardSnapshot implements ReadableBoard {
+    // Never changed once the snapshot is made.
+    private final PieceStore pieces;
+    private final Color turn;
+    private final int castlingRights;
+    private final int enPassantFile;
+    private final int halfmoveClock;
+    private final int fullmoveNumber;
+    private final long hash;
+
+    BoardSnapshot(PieceStore pieces,
+                  Color turn,
+                  int castlingRights,
+                  int enPassantFile,
+                  int halfmoveClock,
+                  int fullmoveNumber,
+                  long hash) {
+        this.pieces = pieces;
+        this.turn = turn;
+        this.castlingRights = castlingRights;
+        this.enPassantFile = enPassantFile;
+        this.halfmoveClock = halfmoveClock;
+        this.fullmoveNumber = fullmoveNumber;
+        this.hash = hash;
+    }
+
+    /**
+     * A new board in this position, for analysing it. The board knows
+     * nothing of the moves that led here.
+     */
+    public Board toBoard() {
+        return toBoard(Board.Representation.BITBOARD);
+    }
+
+    public Board toBoard(Board.Representation representation) {
+        return Board.fromSnapshot(this, representation);
+    }
+
+    @Override
+    public Optional<Piece> getPiece(Coord coord) {
+        return Optional.ofNullable(pieces.get(coord.getIndex()));
+    }
+
+    @Override
+    public long getPieces(Piece.Type type, Color color) {
+        return pieces.pieces(type, color);
+    }
+
+    @Override
+    public long getOccupancy() {
+        return pieces.occupancy();
+    }
+
+    @Override
+    public Color getTurn() {
+        return turn;
+    }
+
+    @Override
+    public boolean hasCastlingRight(Castle castle) {
+        return (castlingRights & castle.getRightBit()) != 0;
+    }
+
+    @Override
+    public boolean canEnPassant(Coord to) {
+        return enPassantFile == to.getCol();
+    }
+
+    @Override
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    @Override
+    public int getFullmoveNumber() {
+        return fullmoveNumber;
+    }
+
+    @Override
+    public long hash() {
+        return hash;
+    }
+
+    @Override
+    public void toFen(Appendable out) throws IOException {
+        Board.writeFen(pieces,
+                turn,
+                castlingRights,
+                enPassantFile,
+                halfmoveClock,
+                fullmoveNumber,
+                out);
+    }
+
+    PieceStore getPieceStore() {
+        return pieces;
+    }
+
+    int getCastlingRights() {
+        return castlingRights;
+    }
+
+    int getEnPassantFile() {
+        return enPassantFile;
+    }
+
+    /**
+     * Snapshots are equal if they hold the same position with the same
+     * clocks.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        BoardSnapshot that = (BoardSnapshot) o;
+        if (hash != that.hash ||
+                turn != that.turn ||
+                castlingRights != that.castlingRights ||
+                enPassantFile != that.enPassantFile ||
+                halfmoveClock != that.halfmoveClock ||
+                fullmoveNumber != that.fullmoveNumber) {
+            return false;
+        }
+        for (Color color : Color.values()) {
+            for (Piece.Type type : Piece.Type.values()) {
+                if (pieces.pieces(type, color) !=
+                        that.pieces.pieces(type, color)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(hash) * 31 + fullmoveNumber;
+    }
+
+    @Override
+    public String toString() {
+        return toFen();
+    }
+}
@@ -3,78 +3,141 @@ package me.roitgrund.chess.game;
 import com.google.common.base.Preconditions;
 import me.roitgrund.chess.game.Piece.Color;
 
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Stream;
 
 public enum Castle {
     WHITE_KING(
+            'K',
             "e1",
             "g1",
             "h1",
             "f1"),
     WHITE_QUEEN(
+            'Q',
             "e1",
             "c1",
             "a1",
             "d1"),
     BLACK_KING(
+            'k',
             "e8",
             "g8",
             "h8",
             "f8"),
     BLACK_QUEEN(
+            'q',
             "e8",
             "c8",
             "a8",
             "d8");
 
+    // values() copies the array each call, which moves cannot afford.
+    static final Castle[] CASTLES = values();
+
+    private char fenLetter;
     private Coord kingFrom;
     private Coord kingTo;
     private Coord rookFrom;
     private Coord rookTo;
-    private List<Coord> vulnerableSquares;
+    // The squares the king passes through, which must not be attacked.
+    private long vulnerableSquares;
 
     Castle(
+            char fenLetter,
             String kingFrom,
             String kingTo,
             String rookFrom,
             String rookTo) {
+        this.fenLetter = fenLetter;
         this.kingFrom = Coord.fromNotation(kingFrom);
         this.kingTo = Coord.fromNotation(kingTo);
         this.rookFrom = Coord.fromNotation(rookFrom);
         this.rookTo = Coord.fromNotation(rookTo);
-        this.vulnerableSquares = Arrays.asList(
-                this.kingFrom,
-                this.kingTo,
-                this.rookTo);
+        this.vulnerableSquares = Bitboards.squareBit(this.kingFrom.getIndex()) |
+                Bitboards.squareBit(this.kingTo.getIndex()) |
+                Bitboards.squareBit(this.rookTo.getIndex());
     }
 
-    public static Map<Coord, Boolean> getInitialCastlingPermissions() {
-        HashMap<Coord, Boolean> castlingPermissions = new HashMap<>();
-        Stream.of(Castle.values()).forEach(
-                c -> castlingPermissions.put(c.kingTo, true));
-        return castlingPermissions;
+    /**
+     * Castling rights are kept as a bit set, with one bit per way of
+     * castling as given by {@link #getRightBit()}.
+     */
+    public static int getInitialCastlingRights() {
+        return (1 << values().length) - 1;
     }
 
     public static void handleCastling(
             Coord from, Coord to, Board board) {
-        preventCastlingAfterMovingFrom(from, board);
+        preventCastlingAfterMovingFromOrTo(from, to, board);
         checkForCastlingAndCastle(from, to, board);
     }
 
+    /**
+     * Moves the rook back if the king move being taken back was a castle.
+     */
+    public static void undoCastling(Coord from, Coord to, Board board) {
+        for (Castle c : CASTLES) {
+            if (c.kingFrom.equals(from) && c.kingTo.equals(to)) {
+                Piece rook = board.getPiece(c.rookTo).get();
+                board.removePiece(c.rookTo);
+                board.setPiece(c.rookFrom, rook);
+            }
+        }
+    }
+
+    public int getRightBit() {
+        return 1 << ordinal();
+    }
+
+    /**
+     * The letter standing for this right in FEN: K, Q, k or q.
+     */
+    public char getFenLetter() {
+        return fenLetter;
+    }
+
+    /**
+     * Returns the castle with the given FEN letter, or null if there is none.
+     */
+    public static Castle fromFenLetter(char letter) {
+        for (Castle castle : values()) {
+            if (castle.fenLetter == letter) {
+                return castle;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether the king and rook are on their starting squares, without
+     * which the right could not have been kept.
+     */
+    boolean hasPiecesInPlace(Board board) {
+        Color color = kingFrom.getRow() == 0 ? Color.WHITE : Color.BLACK;
+        return board.getPiece(kingFrom)
+                .equals(Optional.of(Piece.of(Piece.Type.KING, color))) &&
+                board.getPiece(rookFrom)
+                        .equals(Optional.of(Piece.of(Piece.Type.ROOK, color)));
+    }
+
     public boolean canCastle(Coord from, Coord to, Board board, Color color) {
         return from.equals(kingFrom) &&
                 to.equals(kingTo) &&
-                board.canCastleTo(kingTo) &&
-                vulnerableSquares
-                        .stream()
-                        .noneMatch(square -> board.squareVulnerableFromColor(
-                                square,
-                                Color.other(color)));
+                board.hasCastlingRight(this) &&
+                board.nothingOnRowBetween(kingFrom, rookFrom) &&
+                !anyVulnerable(board, Color.other(color));
+    }
+
+    private boolean anyVulnerable(Board board, Color attacker) {
+        long squares = vulnerableSquares;
+        while (squares != 0) {
+            if (board.squareVulnerableFromColor(
+                    Long.numberOfTrailingZeros(squares), attacker)) {
+                return true;
+            }
+            squares &= squares - 1;
+        }
+        return false;
     }
 
     private void setCastlingState(Board board, Coord to) {
@@ -86,19 +149,34 @@ public enum Castle {
         board.setPiece(rookTo, rook.get());
     }
 
-    private static void preventCastlingAfterMovingFrom(
-            Coord from, Board board) {
-        Stream.of(Castle.values())
-                .filter(c -> c.kingFrom.equals(from) || c.rookFrom.equals(from))
-                .forEach(c -> board.preventCastlingTo(c.kingTo));
+    /**
+     * Castling is lost once the king or rook moves, and also when the rook is
+     * captured on its starting square.
+     */
+    private static void preventCastlingAfterMovingFromOrTo(
+            Coord from, Coord to, Board board) {
+        for (Castle c : CASTLES) {
+            if (c.kingFrom.equals(from) ||
+                    c.rookFrom.equals(from) ||
+                    c.rookFrom.equals(to)) {
+                board.removeCastlingRight(c);
+            }
+        }
     }
 
     private static void checkForCastlingAndCastle(
             Coord from, Coord to, Board board) {
-        Stream.of(Castle.values())
-                .filter(c -> c.kingFrom.equals(from) &&
-                        c.kingTo.equals(to))
-                .findFirst()
-                .ifPresent(c -> c.setCastlingState(board, to));
+        if (board.getPieces(Piece.Type.KING, from.getRow() == 0
+                ? Color.WHITE
+                : Color.BLACK) != 1L << from.getIndex()) {
+            return;
+        }
+
+        for (Castle c : CASTLES) {
+            if (c.kingFrom.equals(from) && c.kingTo.equals(to)) {
+                c.setCastlingState(board, to);
+                return;
+            }
+        }
     }
 }
@@ -6,6 +6,19 @@ import static me.roitgrund.chess.game.Piece.Color.WHITE;
 
 public class Coord {
 
+    // The 64 squares of the board, shared so that the hot paths do not
+    // allocate coordinates.
+    private static final Coord[] SQUARES = new Coord[64];
+    private static final String[] NOTATIONS = new String[64];
+
+    static {
+        for (int index = 0; index < 64; index++) {
+            SQUARES[index] = new Coord(index / 8, index % 8);
+            NOTATIONS[index] = new String(new char[]{
+                    (char) ('a' + index % 8), (char) ('1' + index / 8)});
+        }
+    }
+
     private final int row;
     private final int col;
 
@@ -14,16 +27,50 @@ public class Coord {
         this.col = col;
     }
 
-    public static Coord fromNotation(String notation) {
-        Preconditions.checkArgument(notation.length() == 2);
-        return new Coord(
-                Integer.parseInt(notation.substring(1)) - 1,
-                notation.toLowerCase().codePointAt(0) - 97);
+    /**
+     * Returns the shared instance for squares on the board, and a new one
+     * for coordinates off it.
+     */
+    public static Coord of(int row, int col) {
+        if (row >= 0 && row < 8 && col >= 0 && col < 8) {
+            return SQUARES[row * 8 + col];
+        }
+        return new Coord(row, col);
+    }
+
+    /**
+     * Parses a square such as "e4" or "E4", reading the characters in place.
+     */
+    public static Coord fromNotation(CharSequence notation) {
+        Preconditions.checkArgument(
+                notation.length() == 2, "Not a square: %s", notation);
+        int col = Character.toLowerCase(notation.charAt(0)) - 'a';
+        int row = notation.charAt(1) - '1';
+        Preconditions.checkArgument(
+                row >= 0 && row < 8 && col >= 0 && col < 8,
+                "Not a square: %s",
+                notation);
+        return SQUARES[row * 8 + col];
+    }
+
+    public static Coord fromIndex(int index) {
+        return SQUARES[index];
     }
 
     public static Coord oneInFrontOf(Coord coord, Piece.Color color) {
-        return new Coord(color == WHITE ? coord.row + 1 : coord.row - 1,
-                coord.col);
+        return of(color == WHITE ? coord.row + 1 : coord.row - 1, coord.col);
+    }
+
+    public String toNotation() {
+        Preconditions.checkState(isValid(), "Not on the board: %s", this);
+        return NOTATIONS[getIndex()];
+    }
+
+    @Override
+    public String toString() {
+        return isValid()
+                ? toNotation()
+                : String.format("(%d, %d)", row, col);
     }
 
     @Override
@@ -32,7 +79,7 @@ public class Coord {
     }
 
     public boolean isValid() {
-        return row >= 0 && row <= 8 && col >= 0 && col <= 8;
+        return row >= 0 && row < 8 && col >= 0 && col < 8;
     }
 
     public boolean isAdjacentColumn(Coord coord) {
@@ -89,6 +136,13 @@ public class Coord {
         return col;
     }
 
+    /**
+     * The square's index in a bitboard, from 0 for a1 to 63 for h8.
+     */
+    public int getIndex() {
+        return row * 8 + col;
+    }
+
     public int getRowDirection(Coord to) {
         return to.getRow() > getRow() ? 1 : -1;
     }
@@ -98,7 +152,7 @@ public class Coord {
     }
 
     public Coord next(int rowDirection, int colDirection) {
-        return new Coord(row + rowDirection, col + colDirection);
+        return of(row + rowDirection, col + colDirection);
     }
 
     public boolean isInSquareAround(Coord coord) {
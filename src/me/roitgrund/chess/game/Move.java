@@ -0,0 +1,80 @@
+package me.roitgrund.chess.game;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A move of the piece on one square to another, and the piece a pawn
+ * promotes to if it reaches the last row.
+ */
+public class Move {
+
+    private final Coord from;
+    private final Coord to;
+    private final Piece.Type promotion;
+
+    public Move(Coord from, Coord to) {
+        this(from, to, null);
+    }
+
+    /**
+     * @param promotion the piece a pawn promotes to, or null if the move is
+     *                  not a promotion
+     */
+    public Move(Coord from, Coord to, Piece.Type promotion) {
+        this.from = from;
+        this.to = to;
+        this.promotion = promotion;
+    }
+
+    public Coord getFrom() {
+        return from;
+    }
+
+    public Coord getTo() {
+        return to;
+    }
+
+    public Optional<Piece.Type> getPromotion() {
+        return Optional.ofNullable(promotion);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        Move move = (Move) o;
+
+        return from.equals(move.from) &&
+                to.equals(move.to) &&
+                promotion == move.promotion;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = from.hashCode();
+        result = 31 * result + to.hashCode();
+        result = 31 * result + Objects.hashCode(promotion);
+        return result;
+    }
+
+    /**
+     * The move in coordinate notation, such as "e2e4" or "e7e8q".
+     */
+    @Override
+    public String toString() {
+        String move = from.toNotation() + to.toNotation();
+        if (promotion == null) {
+            return move;
+        }
+        // Knights are "n" in coordinate notation, as "k" is the king.
+        return move + (promotion == Piece.Type.KNIGHT
+                ? 'n'
+                : Character.toLowerCase(promotion.name().charAt(0)));
+    }
+}
@@ -0,0 +1,76 @@
+package me.roitgrund.chess.game;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Arrays;
+
+/**
+ * A reusable buffer of moves encoded as in {@link Moves}. Clearing and
+ * refilling a list allocates nothing once it has grown to fit.
+ */
+public class MoveList {
+    // No position has more than 218 legal moves.
+    private static final int DEFAULT_CAPACITY = 256;
+
+    private int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        Preconditions.checkArgument(capacity >= 1,
+                "Capacity must be at least 1.");
+        moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        if (size == moves.length) {
+            moves = Arrays.copyOf(moves, size * 2);
+        }
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public void swap(int i, int j) {
+        int move = moves[i];
+        moves[i] = moves[j];
+        moves[j] = move;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Whether the list holds the move, ignoring flags.
+     */
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (Moves.isSameMove(moves[i], move)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(moves, size);
+    }
+}
@@ -0,0 +1,111 @@
+package me.roitgrund.chess.game;
+
+import com.google.common.base.Preconditions;
+import me.roitgrund.chess.game.Piece.Type;
+
+/**
+ * Packs moves into ints, so that they can be stored and replayed without
+ * allocating. From the lowest bit up, a move holds the from square (6
+ * bits), the to square (6 bits), the promotion piece (3 bits, 0 for none,
+ * otherwise the type's ordinal plus one) and the flags below.
+ */
+public class Moves {
+    /**
+     * Never a legal move, since its from and to squares are both a1.
+     */
+    public static final int NONE = 0;
+
+    public static final int CAPTURE = 1 << 15;
+    public static final int EN_PASSANT = 1 << 16;
+    public static final int CASTLE = 1 << 17;
+    public static final int DOUBLE_PUSH = 1 << 18;
+
+    private static final int SQUARE_MASK = 0x3f;
+    private static final int TO_SHIFT = 6;
+    private static final int PROMOTION_SHIFT = 12;
+    private static final int PROMOTION_MASK = 0x7;
+    private static final Type[] TYPES = Type.values();
+
+    public static int encode(int from, int to) {
+        return from | to << TO_SHIFT;
+    }
+
+    /**
+     * Encodes a move with an optional promotion piece, which may be null,
+     * and any combination of the flags.
+     */
+    public static int encode(int from, int to, Type promotion, int flags) {
+        int move = encode(from, to) | flags;
+        if (promotion != null) {
+            move |= (promotion.ordinal() + 1) << PROMOTION_SHIFT;
+        }
+        return move;
+    }
+
+    public static int encode(Move move) {
+        return encode(
+                move.getFrom().getIndex(),
+                move.getTo().getIndex(),
+                move.getPromotion().orElse(null),
+                0);
+    }
+
+    public static Move decode(int move) {
+        return new Move(
+                Coord.fromIndex(from(move)),
+                Coord.fromIndex(to(move)),
+                promotion(move));
+    }
+
+    public static int from(int move) {
+        return move & SQUARE_MASK;
+    }
+
+    public static int to(int move) {
+        return move >>> TO_SHIFT & SQUARE_MASK;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move >>> PROMOTION_SHIFT & PROMOTION_MASK) != 0;
+    }
+
+    /**
+     * The piece a pawn promotes to, or null if the move is not a promotion.
+     */
+    public static Type promotion(int move) {
+        int promotion = move >>> PROMOTION_SHIFT & PROMOTION_MASK;
+        return promotion == 0 ? null : TYPES[promotion - 1];
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & CAPTURE) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (move & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastle(int move) {
+        return (move & CASTLE) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (move & DOUBLE_PUSH) != 0;
+    }
+
+    /**
+     * Whether two encodings describe the same move, ignoring flags.
+     */
+    public static boolean isSameMove(int move, int other) {
+        int mask = (1 << 15) - 1;
+        return (move & mask) == (other & mask);
+    }
+
+    /**
+     * The move in coordinate notation, such as "e2e4" or "e7e8q".
+     */
+    public static String toNotation(int move) {
+        Preconditions.checkArgument(move != NONE, "Not a move.");
+        return decode(move).toString();
+    }
+}
@@ -1,9 +1,9 @@
 package me.roitgrund.chess.game;
 
-import java.util.stream.Stream;
-
 public class Piece {
 
+    private static final Piece[][] PIECES = createPieces();
+
     private final Type type;
     private final Color color;
     private final String stringRepresentation;
@@ -15,6 +15,13 @@ public class Piece {
                 String.format("%s%s", color.getLetter(), type.getLetter());
     }
 
+    /**
+     * Returns a shared instance of the given piece.
+     */
+    public static Piece of(Type type, Color color) {
+        return PIECES[color.ordinal()][type.ordinal()];
+    }
+
     public String getStringRepresentation() {
         return stringRepresentation;
     }
@@ -57,6 +64,18 @@ public class Piece {
         return result;
     }
 
+    private static Piece[][] createPieces() {
+        Piece[][] pieces =
+                new Piece[Color.values().length][Type.values().length];
+        for (Color color : Color.values()) {
+            for (Type type : Type.values()) {
+                pieces[color.ordinal()][type.ordinal()] =
+                        new Piece(type, color);
+            }
+        }
+        return pieces;
+    }
+
     public enum Color {
         BLACK('B'), WHITE('W');
 
@@ -95,6 +114,13 @@ public class Piece {
                 return false;
             }
 
+            @Override
+            public long candidateTargets(Board board, Coord from, Piece me) {
+                return Attacks.pawn(me.color, from.getIndex()) |
+                        offsetTargets(from,
+                                PAWN_PUSH_OFFSETS[me.color.ordinal()]);
+            }
+
             private boolean isValidTake(Board board,
                                         Coord from,
                                         Coord to,
@@ -125,6 +151,11 @@ public class Piece {
                         from.isSameColAs(to) &&
                                 board.nothingOnColBetween(from, to);
             }
+
+            @Override
+            public long candidateTargets(Board board, Coord from, Piece me) {
+                return Attacks.rook(from.getIndex(), board.getOccupancy());
+            }
         },
 
         KNIGHT('C') {
@@ -138,6 +169,11 @@ public class Piece {
                 return rowDiff == 1 && colDiff == 2 ||
                         rowDiff == 2 && colDiff == 1;
             }
+
+            @Override
+            public long candidateTargets(Board board, Coord from, Piece me) {
+                return Attacks.knight(from.getIndex());
+            }
         },
 
         BISHOP('B') {
@@ -149,6 +185,11 @@ public class Piece {
                 return from.isSameDiagonalAs(to) &&
                         board.nothingOnDiagonalBetween(from, to);
             }
+
+            @Override
+            public long candidateTargets(Board board, Coord from, Piece me) {
+                return Attacks.bishop(from.getIndex(), board.getOccupancy());
+            }
         },
 
         KING('K') {
@@ -157,11 +198,21 @@ public class Piece {
                                        Coord from,
                                        Coord to,
                                        Piece me) {
-                if (Stream.of(Castle.values()).anyMatch(
-                        c -> c.canCastle(from, to, board, me.color))) {
+                if (to.isInSquareAround(from)) {
                     return true;
                 }
-                return to.isInSquareAround(from);
+                for (Castle castle : Castle.CASTLES) {
+                    if (castle.canCastle(from, to, board, me.color)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+
+            @Override
+            public long candidateTargets(Board board, Coord from, Piece me) {
+                return Attacks.king(from.getIndex()) |
+                        offsetTargets(from, CASTLING_OFFSETS);
             }
         },
 
@@ -178,8 +229,19 @@ public class Piece {
                         from.isSameColAs(to) &&
                                 board.nothingOnColBetween(from, to);
             }
+
+            @Override
+            public long candidateTargets(Board board, Coord from, Piece me) {
+                return Attacks.queen(from.getIndex(), board.getOccupancy());
+            }
         };
 
+        // Where a pawn of each color can push to, by color ordinal.
+        private static final int[][][] PAWN_PUSH_OFFSETS = {
+                {{-1, 0}, {-2, 0}}, {{1, 0}, {2, 0}}};
+        // Where the king lands when castling.
+        private static final int[][] CASTLING_OFFSETS = {{0, 2}, {0, -2}};
+
         private final char letter;
 
         Type(char letter) {
@@ -194,5 +256,26 @@ public class Piece {
                                             Coord from,
                                             Coord to,
                                             Piece me);
+
+        /**
+         * The squares the piece could possibly move to, as a bitboard. This
+         * is a superset of the valid moves which spares move generation from
+         * testing squares the piece can never reach.
+         */
+        public abstract long candidateTargets(Board board,
+                                              Coord from,
+                                              Piece me);
+
+        private static long offsetTargets(Coord from, int[][] offsets) {
+            long targets = 0;
+            for (int[] offset : offsets) {
+                int row = from.getRow() + offset[0];
+                int col = from.getCol() + offset[1];
+                if (row >= 0 && row < 8 && col >= 0 && col < 8) {
+                    targets |= Bitboards.squareBit(row * 8 + col);
+                }
+            }
+            return targets;
+        }
     }
 }
@@ -0,0 +1,28 @@
+package me.roitgrund.chess.game;
+
+import me.roitgrund.chess.game.Piece.Color;
+import me.roitgrund.chess.game.Piece.Type;
+
+/**
+ * Where a {@link Board} keeps its pieces. Squares are indexed as in
+ * {@link Coord#getIndex()}.
+ */
+interface PieceStore {
+
+    /**
+     * Returns the piece on the square, or null if it is empty.
+     */
+    Piece get(int square);
+
+    void set(int square, Piece piece);
+
+    void remove(int square);
+
+    long occupancy();
+
+    long occupancy(Color color);
+
+    long pieces(Type type, Color color);
+
+    PieceStore copy();
+}
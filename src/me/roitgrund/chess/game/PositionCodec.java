@@ -0,0 +1,172 @@
+package me.roitgrund.chess.game;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static me.roitgrund.chess.game.Piece.Color.BLACK;
+import static me.roitgrund.chess.game.Piece.Color.WHITE;
+
+/**
+ * Encodes positions in a fixed {@value #BYTES} bytes:
+ *
+ * <ul>
+ * <li>bytes 0-7: the occupied squares, as a bitboard;
+ * <li>bytes 8-23: a four bit code for the piece on each occupied square,
+ * in square order, the first in the high half of byte 8;
+ * <li>byte 24: 1 if white is to move, plus the castling rights shifted
+ * left by one;
+ * <li>byte 25: the en passant file plus one, or 0;
+ * <li>byte 26: the halfmove clock, up to 255;
+ * <li>bytes 27-28: the fullmove number, up to 65535;
+ * <li>bytes 29-31: zero.
+ * </ul>
+ *
+ * <p>Multi-byte values are big-endian whatever the buffer's byte order.
+ * A position that can occur in a game has at most 32 pieces, and an encoded
+ * position never starts with eight zero bytes, as it always has kings.
+ */
+public final class PositionCodec {
+    public static final int BYTES = 32;
+
+    private static final int MAX_PIECES = 32;
+    private static final Piece.Type[] TYPES = Piece.Type.values();
+    private static final Piece.Color[] COLORS = Piece.Color.values();
+    private static final Piece[] PIECES = createPieces();
+
+    private PositionCodec() {
+    }
+
+    /**
+     * Writes the position at the buffer's position, and moves past it.
+     *
+     * @throws IllegalArgumentException if the board has more than 32 pieces
+     */
+    public static void encode(Board board, ByteBuffer buffer) {
+        encode(board, buffer, buffer.position());
+        buffer.position(buffer.position() + BYTES);
+    }
+
+    /**
+     * Writes the position at the given index, leaving the buffer's position
+     * alone.
+     */
+    public static void encode(Board board, ByteBuffer buffer, int index) {
+        long occupancy = board.getOccupancy();
+        Preconditions.checkArgument(
+                Long.bitCount(occupancy) <= MAX_PIECES,
+                "Cannot encode more than %s pieces", MAX_PIECES);
+
+        long high = 0;
+        long low = 0;
+        for (int code = 0; code < PIECES.length; code++) {
+            Piece piece = PIECES[code];
+            long squares = board.getPieces(piece.getType(), piece.getColor());
+            while (squares != 0) {
+                int square = Long.numberOfTrailingZeros(squares);
+                squares &= squares - 1;
+                int rank = Long.bitCount(occupancy & ((1L << square) - 1));
+                if (rank < 16) {
+                    high |= (long) code << (60 - 4 * rank);
+                } else {
+                    low |= (long) code << (60 - 4 * (rank - 16));
+                }
+            }
+        }
+
+        putLong(buffer, index, occupancy);
+        putLong(buffer, index + 8, high);
+        putLong(buffer, index + 16, low);
+        buffer.put(index + 24, (byte) ((board.getTurn() == WHITE ? 1 : 0) |
+                board.getCastlingRights() << 1));
+        buffer.put(index + 25, (byte) (board.getEnPassantFile() + 1));
+        buffer.put(index + 26, (byte) Math.min(board.getHalfmoveClock(), 255));
+        int fullmoveNumber = Math.min(board.getFullmoveNumber(), 0xFFFF);
+        buffer.put(index + 27, (byte) (fullmoveNumber >>> 8));
+        buffer.put(index + 28, (byte) fullmoveNumber);
+        buffer.put(index + 29, (byte) 0);
+        buffer.put(index + 30, (byte) 0);
+        buffer.put(index + 31, (byte) 0);
+    }
+
+    /**
+     * Reads a position at the buffer's position, and moves past it.
+     *
+     * @throws IllegalArgumentException if the bytes are not a position
+     */
+    public static Board decode(ByteBuffer buffer) {
+        Board board = decode(
+                buffer, buffer.position(), Board.Representation.BITBOARD);
+        buffer.position(buffer.position() + BYTES);
+        return board;
+    }
+
+    /**
+     * Reads a position at the given index, leaving the buffer's position
+     * alone.
+     */
+    public static Board decode(
+            ByteBuffer buffer, int index, Board.Representation representation) {
+        long occupancy = getLong(buffer, index);
+        long high = getLong(buffer, index + 8);
+        long low = getLong(buffer, index + 16);
+        Preconditions.checkArgument(Long.bitCount(occupancy) <= MAX_PIECES,
+                "Encoded position has more than %s pieces", MAX_PIECES);
+
+        Board board = Board.empty(representation);
+        for (int rank = 0; occupancy != 0; rank++) {
+            int square = Long.numberOfTrailingZeros(occupancy);
+            occupancy &= occupancy - 1;
+            int code = (int) (rank < 16
+                    ? high >>> (60 - 4 * rank)
+                    : low >>> (60 - 4 * (rank - 16))) & 0xF;
+            Preconditions.checkArgument(code < PIECES.length,
+                    "Bad piece code %s in encoded position", code);
+            board.setPiece(Coord.fromIndex(square), PIECES[code]);
+        }
+
+        int flags = buffer.get(index + 24) & 0xFF;
+        int castlingRights = flags >>> 1;
+        Preconditions.checkArgument(
+                castlingRights <= Castle.getInitialCastlingRights(),
+                "Bad castling rights in encoded position");
+        int enPassantFile = (buffer.get(index + 25) & 0xFF) - 1;
+        Preconditions.checkArgument(enPassantFile < 8,
+                "Bad en passant file in encoded position");
+        board.setUp((flags & 1) == 1 ? WHITE : BLACK,
+                castlingRights,
+                enPassantFile,
+                buffer.get(index + 26) & 0xFF,
+                (buffer.get(index + 27) & 0xFF) << 8 |
+                        buffer.get(index + 28) & 0xFF);
+        return board;
+    }
+
+    private static void putLong(ByteBuffer buffer, int index, long value) {
+        buffer.putLong(index, buffer.order() == ByteOrder.BIG_ENDIAN
+                ? value
+                : Long.reverseBytes(value));
+    }
+
+    private static long getLong(ByteBuffer buffer, int index) {
+        long value = buffer.getLong(index);
+        return buffer.order() == ByteOrder.BIG_ENDIAN
+                ? value
+                : Long.reverseBytes(value);
+    }
+
+    /**
+     * Pieces by code: the black pieces in type order, then the white ones.
+     */
+    private static Piece[] createPieces() {
+        Piece[] pieces = new Piece[COLORS.length * TYPES.length];
+        for (Piece.Color color : COLORS) {
+            for (Piece.Type type : TYPES) {
+                pieces[color.ordinal() * TYPES.length + type.ordinal()] =
+                        Piece.of(type, color);
+            }
+        }
+        return pieces;
+    }
+}
@@ -0,0 +1,64 @@
+package me.roitgrund.chess.game;
+
+/**
+ * The hashes of the positions a {@link Board} has been through, oldest
+ * first, for spotting repeated positions. They are kept in a fixed ring of
+ * longs, so that recording a move does not allocate; once the ring is full
+ * the oldest are overwritten, which loses nothing the fifty-move rule would
+ * not already have ended. Taking back a move drops the newest.
+ */
+class PositionHistory {
+    // More than the 100 plies after which the game is drawn anyway, with
+    // room for a search to look ahead.
+    private static final int CAPACITY = 512;
+    private static final int MASK = CAPACITY - 1;
+
+    private final long[] hashes = new long[CAPACITY];
+    // Positions are numbered as they are pushed; those from start up to
+    // but not including end are in the ring.
+    private int start;
+    private int end;
+
+    void push(long hash) {
+        hashes[end & MASK] = hash;
+        end++;
+        if (end - start > CAPACITY) {
+            start++;
+        }
+    }
+
+    void pop() {
+        end--;
+        start = Math.min(start, end);
+    }
+
+    void clear() {
+        start = 0;
+        end = 0;
+    }
+
+    /**
+     * The number of times the position with the given hash occurs among
+     * the last positions, counting the newest as that position and looking
+     * back at most the given number of plies, at positions with the same
+     * player to move.
+     */
+    int repetitions(long hash, int plies) {
+        int count = 1;
+        int oldest = Math.max(start, end - 1 - plies);
+        for (int i = end - 3; i >= oldest; i -= 2) {
+            if (hashes[i & MASK] == hash) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    PositionHistory copy() {
+        PositionHistory copy = new PositionHistory();
+        System.arraycopy(hashes, 0, copy.hashes, 0, CAPACITY);
+        copy.start = start;
+        copy.end = end;
+        return copy;
+    }
+}
@@ -0,0 +1,67 @@
+package me.roitgrund.chess.game;
+
+import me.roitgrund.chess.game.Piece.Color;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/**
+ * What can be read of a position, whether from a live {@link Board} or a
+ * {@link BoardSnapshot} of one.
+ */
+public interface ReadableBoard {
+
+    Optional<Piece> getPiece(Coord coord);
+
+    /**
+     * The squares holding the given piece, as a bitboard.
+     */
+    long getPieces(Piece.Type type, Color color);
+
+    /**
+     * The squares holding a piece of either color.
+     */
+    long getOccupancy();
+
+    Color getTurn();
+
+    boolean hasCastlingRight(Castle castle);
+
+    boolean canEnPassant(Coord to);
+
+    /**
+     * The number of moves since the last capture or pawn move.
+     */
+    int getHalfmoveClock();
+
+    /**
+     * The number of the current move, starting at 1 and going up after
+     * each black move.
+     */
+    int getFullmoveNumber();
+
+    /**
+     * A 64-bit Zobrist hash of the position, covering the pieces, whose turn
+     * it is, the castling rights and the en passant file.
+     */
+    long hash();
+
+    /**
+     * Writes the position in Forsyth-Edwards Notation. The en passant square
+     * is given after every double pawn push, whether or not a capture is
+     * possible.
+     */
+    void toFen(Appendable out) throws IOException;
+
+    default String toFen() {
+        StringBuilder fen = new StringBuilder(90);
+        try {
+            toFen(fen);
+        } catch (IOException e) {
+            // StringBuilder does not throw.
+            throw new UncheckedIOException(e);
+        }
+        return fen.toString();
+    }
+}
@@ -0,0 +1,63 @@
+package me.roitgrund.chess.game;
+
+import java.util.Arrays;
+
+/**
+ * What a {@link Board} needs to take back each move it made, kept in
+ * preallocated parallel arrays so that making and unmaking moves does not
+ * allocate. Grows by doubling if a line runs past its capacity.
+ */
+class UndoStack {
+    private static final int INITIAL_CAPACITY = 256;
+
+    int[] from = new int[INITIAL_CAPACITY];
+    int[] to = new int[INITIAL_CAPACITY];
+    Piece[] moved = new Piece[INITIAL_CAPACITY];
+    Piece[] captured = new Piece[INITIAL_CAPACITY];
+    int[] capturedSquare = new int[INITIAL_CAPACITY];
+    int[] enPassantFile = new int[INITIAL_CAPACITY];
+    int[] castlingRights = new int[INITIAL_CAPACITY];
+    int[] halfmoveClock = new int[INITIAL_CAPACITY];
+    Coord[] whiteKing = new Coord[INITIAL_CAPACITY];
+    Coord[] blackKing = new Coord[INITIAL_CAPACITY];
+    long[] hash = new long[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * Reserves the next record and returns its index.
+     */
+    int push() {
+        if (size == from.length) {
+            grow();
+        }
+        return size++;
+    }
+
+    /**
+     * Releases the last record and returns its index, which stays readable
+     * until the next push.
+     */
+    int pop() {
+        return --size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void grow() {
+        int capacity = from.length * 2;
+        from = Arrays.copyOf(from, capacity);
+        to = Arrays.copyOf(to, capacity);
+        moved = Arrays.copyOf(moved, capacity);
+        captured = Arrays.copyOf(captured, capacity);
+        capturedSquare = Arrays.copyOf(capturedSquare, capacity);
+        enPassantFile = Arrays.copyOf(enPassantFile, capacity);
+        castlingRights = Arrays.copyOf(castlingRights, capacity);
+        halfmoveClock = Arrays.copyOf(halfmoveClock, capacity);
+        whiteKing = Arrays.copyOf(whiteKing, capacity);
+        blackKing = Arrays.copyOf(blackKing, capacity);
+        hash = Arrays.copyOf(hash, capacity);
+    }
+}
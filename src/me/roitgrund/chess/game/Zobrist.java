@@ -0,0 +1,59 @@
+package me.roitgrund.chess.game;
+
+import me.roitgrund.chess.game.Piece.Color;
+import me.roitgrund.chess.game.Piece.Type;
+
+import java.util.Random;
+
+/**
+ * Random keys for Zobrist hashing: a position's hash is the exclusive or of
+ * the keys of everything in it, so that a move updates it by xoring out
+ * what changed and xoring in what replaced it.
+ */
+class Zobrist {
+    // Fixed so that hashes are stable across runs and machines.
+    private static final long SEED = 0x636c65616e636865L;
+    private static final int TYPES = Type.values().length;
+
+    private static final long[][] PIECES = new long[TYPES * 2][64];
+    private static final long[] CASTLING_RIGHTS =
+            new long[Castle.getInitialCastlingRights() + 1];
+    private static final long[] EN_PASSANT_FILES = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        Random random = new Random(SEED);
+        for (long[] squares : PIECES) {
+            for (int square = 0; square < 64; square++) {
+                squares[square] = random.nextLong();
+            }
+        }
+        for (int rights = 0; rights < CASTLING_RIGHTS.length; rights++) {
+            CASTLING_RIGHTS[rights] = rights == 0 ? 0 : random.nextLong();
+        }
+        for (int file = 0; file < 8; file++) {
+            EN_PASSANT_FILES[file] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    static long piece(Piece piece, int square) {
+        return PIECES[piece.getColor().ordinal() * TYPES +
+                piece.getType().ordinal()][square];
+    }
+
+    static long castlingRights(int castlingRights) {
+        return CASTLING_RIGHTS[castlingRights];
+    }
+
+    /**
+     * The key of the en passant file, or 0 if there is none.
+     */
+    static long enPassantFile(int file) {
+        return file < 0 ? 0 : EN_PASSANT_FILES[file];
+    }
+
+    static long turn(Color turn) {
+        return turn == Color.BLACK ? BLACK_TO_MOVE : 0;
+    }
+}
@@ -0,0 +1,221 @@
+package me.roitgrund.chess.perft;
+
+import com.google.common.base.Preconditions;
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Move;
+import me.roitgrund.chess.game.MoveList;
+import me.roitgrund.chess.game.Moves;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaves of the legal move tree to a given depth. Comparing the
+ * counts with published ones checks the move rules, and timing them
+ * measures move generation throughput.
+ *
+ * <p>Subtrees are counted in parallel on a fork/join pool, each on its own
+ * copy of the board, since boards are not thread-safe.
+ */
+public class Perft {
+    // Below this depth a subtree is counted on one thread, as forking would
+    // cost more than it saves.
+    private static final int SEQUENTIAL_DEPTH = 3;
+
+    private final ForkJoinPool pool;
+
+    public Perft(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Counts on the calling thread. The board is left as it was found.
+     */
+    public static long count(Board board, int depth) {
+        MoveList[] moveLists = new MoveList[Math.max(depth, 1)];
+        for (int i = 0; i < moveLists.length; i++) {
+            moveLists[i] = new MoveList();
+        }
+        return count(board, depth, moveLists);
+    }
+
+    private static long count(Board board, int depth, MoveList[] moveLists) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        // One list per remaining depth, so that recursion reuses them.
+        MoveList moves = moveLists[depth - 1];
+        board.legalMoves(moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            nodes += count(board, depth - 1, moveLists);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    public long countInParallel(Board board, int depth) {
+        return pool.invoke(new SubtreeTask(board.copy(), depth));
+    }
+
+    /**
+     * Counts the leaves under each legal move, in move generation order.
+     */
+    public Map<Move, Long> divide(Board board, int depth) {
+        Preconditions.checkArgument(depth >= 1, "Depth must be at least 1.");
+        MoveList moves = new MoveList();
+        board.legalMoves(moves);
+        List<SubtreeTask> tasks = new ArrayList<>();
+        for (int i = 0; i < moves.size(); i++) {
+            tasks.add(new SubtreeTask(
+                    afterMove(board, moves.get(i)), depth - 1));
+        }
+
+        return pool.invoke(new RecursiveTask<Map<Move, Long>>() {
+            @Override
+            protected Map<Move, Long> compute() {
+                invokeAll(tasks);
+                Map<Move, Long> counts = new LinkedHashMap<>();
+                for (int i = 0; i < moves.size(); i++) {
+                    counts.put(Moves.decode(moves.get(i)),
+                            tasks.get(i).join());
+                }
+                return counts;
+            }
+        });
+    }
+
+    public static void main(String[] args) {
+        int depth = -1;
+        boolean divide = false;
+        boolean verify = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--divide":
+                    divide = true;
+                    break;
+                case "--verify":
+                    verify = true;
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    depth = Integer.parseInt(args[i]);
+            }
+        }
+        if (depth < 1) {
+            System.err.println(
+                    "Usage: Perft <depth> [--divide] [--verify] " +
+                            "[--threads <n>]");
+            System.exit(2);
+        }
+
+        Perft perft = new Perft(new ForkJoinPool(threads));
+        if (verify) {
+            System.exit(perft.verify(depth) ? 0 : 1);
+        }
+
+        Board board = new Board();
+        long start = System.nanoTime();
+        long nodes;
+        if (divide) {
+            nodes = 0;
+            for (Map.Entry<Move, Long> entry :
+                    perft.divide(board, depth).entrySet()) {
+                System.out.printf("%s: %d%n", entry.getKey(), entry.getValue());
+                nodes += entry.getValue();
+            }
+            System.out.println();
+        } else {
+            nodes = perft.countInParallel(board, depth);
+        }
+        printSummary(nodes, System.nanoTime() - start);
+    }
+
+    /**
+     * Checks every reference position up to the given depth, printing each
+     * result, and returns whether they all matched.
+     */
+    public boolean verify(int maxDepth) {
+        boolean allMatched = true;
+        for (PerftPosition position : PerftPosition.values()) {
+            for (int depth = 1;
+                 depth <= Math.min(maxDepth, position.getMaxDepth());
+                 depth++) {
+                long start = System.nanoTime();
+                long nodes = countInParallel(position.create(), depth);
+                long expected = position.getExpectedCount(depth);
+                boolean matched = nodes == expected;
+                allMatched &= matched;
+                System.out.printf("%s depth %d: %d %s%n",
+                        position,
+                        depth,
+                        nodes,
+                        matched ? "ok" : "expected " + expected);
+                if (depth == maxDepth) {
+                    printSummary(nodes, System.nanoTime() - start);
+                }
+            }
+        }
+        return allMatched;
+    }
+
+    private static void printSummary(long nodes, long nanos) {
+        System.out.printf("Nodes: %d%nTime: %d ms%nNodes/second: %d%n",
+                nodes,
+                nanos / 1_000_000,
+                nanos == 0 ? 0 : nodes * 1_000_000_000L / nanos);
+    }
+
+    private static Board afterMove(Board board, int move) {
+        Board copy = board.copy();
+        copy.makeMove(move);
+        return copy;
+    }
+
+    private static class SubtreeTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final Board board;
+        private final int depth;
+
+        SubtreeTask(Board board, int depth) {
+            this.board = board;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            if (depth <= SEQUENTIAL_DEPTH) {
+                return count(board, depth);
+            }
+
+            MoveList moves = new MoveList();
+            board.legalMoves(moves);
+            List<SubtreeTask> tasks = new ArrayList<>();
+            for (int i = 0; i < moves.size(); i++) {
+                tasks.add(new SubtreeTask(
+                        afterMove(board, moves.get(i)), depth - 1));
+            }
+            invokeAll(tasks);
+
+            long nodes = 0;
+            for (SubtreeTask task : tasks) {
+                nodes += task.join();
+            }
+            return nodes;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package me.roitgrund.chess.perft;
+
+import me.roitgrund.chess.game.Board;
+
+/**
+ * Positions with published perft results, used to check the move rules:
+ * the start position and the well-known positions from the Chess
+ * Programming Wiki, which between them reach castling through and out of
+ * check, en passant pins, and promotions with capture.
+ */
+public enum PerftPosition {
+    START("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            20, 400, 8902, 197281, 4865609, 119060324),
+    KIWIPETE("r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq -",
+            48, 2039, 97862, 4085603, 193690690),
+    ENDGAME("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - -",
+            14, 191, 2812, 43238, 674624, 11030083),
+    PROMOTIONS("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq -",
+            6, 264, 9467, 422333, 15833292),
+    DISCOVERED_CHECKS("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ -",
+            44, 1486, 62379, 2103487, 89941194);
+
+    private final String fen;
+    private final long[] counts;
+
+    PerftPosition(String fen, long... counts) {
+        this.fen = fen;
+        this.counts = counts;
+    }
+
+    public Board create() {
+        return Board.fromFen(fen);
+    }
+
+    public String getFen() {
+        return fen;
+    }
+
+    /**
+     * The deepest depth with a known count.
+     */
+    public int getMaxDepth() {
+        return counts.length;
+    }
+
+    public long getExpectedCount(int depth) {
+        return counts[depth - 1];
+    }
+}
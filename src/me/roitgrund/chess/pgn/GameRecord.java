@@ -0,0 +1,139 @@
+package me.roitgrund.chess.pgn;
+
+import me.roitgrund.chess.game.Board.GameState;
+
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The outcome of replaying one game: how far it got, the state of the
+ * board at the end, and where it first went wrong if it did.
+ */
+public class GameRecord {
+    private final long gameNumber;
+    private final long offset;
+    private final int plies;
+    private final GameState finalState;
+    private final String result;
+    private final String illegalMove;
+
+    public GameRecord(long gameNumber,
+                      long offset,
+                      int plies,
+                      GameState finalState,
+                      String result,
+                      String illegalMove) {
+        this.gameNumber = gameNumber;
+        this.offset = offset;
+        this.plies = plies;
+        this.finalState = finalState;
+        this.result = result;
+        this.illegalMove = illegalMove;
+    }
+
+    /**
+     * The position of the game in its file, counting from 1.
+     */
+    public long getGameNumber() {
+        return gameNumber;
+    }
+
+    /**
+     * The byte offset in its file at which the game starts.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * The number of moves played before the game ended or an illegal move
+     * was found.
+     */
+    public int getPlies() {
+        return plies;
+    }
+
+    /**
+     * The state of the board after the last legal move, or
+     * {@link GameState#ILLEGAL_MOVE} if the game has an illegal move.
+     */
+    public GameState getFinalState() {
+        return finalState;
+    }
+
+    /**
+     * The result given at the end of the game's moves.
+     */
+    public String getResult() {
+        return result;
+    }
+
+    /**
+     * The first move that could not be played, as written, or an empty
+     * string if the game's FEN tag could not be read. It was to be ply
+     * number {@code getPlies() + 1}.
+     */
+    public Optional<String> getIllegalMove() {
+        return Optional.ofNullable(illegalMove);
+    }
+
+    public boolean isLegal() {
+        return illegalMove == null;
+    }
+
+    /**
+     * Whether the result given agrees with the board: a game that ends in
+     * checkmate or stalemate must say so. Unfinished games may have any
+     * result, since players resign and agree draws.
+     */
+    public boolean matchesResult() {
+        switch (finalState) {
+            case WHITE_WINS:
+                return result.equals("1-0");
+            case BLACK_WINS:
+                return result.equals("0-1");
+            case STALEMATE:
+                return result.equals("1/2-1/2");
+            default:
+                return true;
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        GameRecord that = (GameRecord) o;
+        return gameNumber == that.gameNumber &&
+                offset == that.offset &&
+                plies == that.plies &&
+                finalState == that.finalState &&
+                result.equals(that.result) &&
+                Objects.equals(illegalMove, that.illegalMove);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = Long.hashCode(gameNumber);
+        hash = 31 * hash + Long.hashCode(offset);
+        hash = 31 * hash + plies;
+        hash = 31 * hash + finalState.hashCode();
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Game %d at byte %d: %s after %d plies, %s%s",
+                gameNumber,
+                offset,
+                finalState,
+                plies,
+                result,
+                illegalMove == null ? "" : ", illegal move " + illegalMove);
+    }
+}
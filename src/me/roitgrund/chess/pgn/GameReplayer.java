@@ -0,0 +1,116 @@
+package me.roitgrund.chess.pgn;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Board.GameState;
+import me.roitgrund.chess.game.Moves;
+
+/**
+ * Plays the moves of each game it is given through a {@link Board} as they
+ * arrive, starting from the position in the game's FEN tag if it has one,
+ * and records the outcome when the game ends.
+ *
+ * <p>Once a move fails to resolve, the rest of the game is ignored. Moves
+ * are only played once they are known to be legal, so the final state is
+ * worked out once, at the end of the game.
+ */
+public class GameReplayer implements PgnListener {
+    private long gameNumber;
+    private long offset;
+    private String fen;
+    private Board board;
+    private int plies;
+    private String illegalMove;
+    private GameRecord record;
+
+    @Override
+    public void startGame(long offset) {
+        gameNumber++;
+        this.offset = offset;
+        fen = null;
+        board = null;
+        plies = 0;
+        illegalMove = null;
+        record = null;
+    }
+
+    @Override
+    public void tag(CharSequence name, CharSequence value) {
+        if (name.length() == 3 && name.toString().equals("FEN")) {
+            fen = value.toString();
+        }
+    }
+
+    @Override
+    public void move(CharSequence san) {
+        if (illegalMove != null) {
+            return;
+        }
+        if (board == null && !setUpBoard()) {
+            illegalMove = "";
+            return;
+        }
+
+        int move = San.resolve(board, san);
+        if (move == Moves.NONE) {
+            illegalMove = san.toString();
+            return;
+        }
+        board.makeMove(move);
+        plies++;
+    }
+
+    @Override
+    public void endGame(CharSequence result) {
+        GameState state;
+        if (illegalMove != null) {
+            state = GameState.ILLEGAL_MOVE;
+        } else if (board == null && !setUpBoard()) {
+            illegalMove = "";
+            state = GameState.ILLEGAL_MOVE;
+        } else {
+            state = board.getGameState();
+        }
+        record = new GameRecord(gameNumber,
+                offset,
+                plies,
+                state,
+                result.toString(),
+                illegalMove);
+    }
+
+    /**
+     * Replays a game collected earlier, numbered as it was in its file.
+     */
+    public GameRecord replay(ParsedGame game) {
+        gameNumber = game.getGameNumber() - 1;
+        startGame(game.getOffset());
+        if (game.getFen() != null) {
+            fen = game.getFen();
+        }
+        for (String san : game.getMoves()) {
+            move(san);
+        }
+        endGame(game.getResult());
+        return record;
+    }
+
+    /**
+     * The outcome of the last game to end.
+     */
+    public GameRecord getRecord() {
+        return record;
+    }
+
+    /**
+     * Sets up the starting position, returning false if the FEN tag is
+     * invalid.
+     */
+    private boolean setUpBoard() {
+        try {
+            board = fen == null ? new Board() : Board.fromFen(fen);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
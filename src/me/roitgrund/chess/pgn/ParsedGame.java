@@ -0,0 +1,95 @@
+package me.roitgrund.chess.pgn;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The parts of a game needed to replay it, collected from PGN so that the
+ * game can be replayed later or on another thread.
+ */
+public class ParsedGame {
+    private final long gameNumber;
+    private final long offset;
+    private final String fen;
+    private final List<String> moves;
+    private final String result;
+
+    public ParsedGame(long gameNumber,
+                      long offset,
+                      String fen,
+                      List<String> moves,
+                      String result) {
+        this.gameNumber = gameNumber;
+        this.offset = offset;
+        this.fen = fen;
+        this.moves = moves;
+        this.result = result;
+    }
+
+    public long getGameNumber() {
+        return gameNumber;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * The game's FEN tag, or null if it starts from the initial position.
+     */
+    public String getFen() {
+        return fen;
+    }
+
+    public List<String> getMoves() {
+        return moves;
+    }
+
+    public String getResult() {
+        return result;
+    }
+
+    /**
+     * Collects games from a parser, one at a time.
+     */
+    static class Collector implements PgnListener {
+        private long gameNumber;
+        private long offset;
+        private String fen;
+        private List<String> moves;
+        private ParsedGame game;
+
+        @Override
+        public void startGame(long offset) {
+            gameNumber++;
+            this.offset = offset;
+            fen = null;
+            moves = new ArrayList<>();
+        }
+
+        @Override
+        public void tag(CharSequence name, CharSequence value) {
+            if (name.length() == 3 && name.toString().equals("FEN")) {
+                fen = value.toString();
+            }
+        }
+
+        @Override
+        public void move(CharSequence san) {
+            moves.add(san.toString());
+        }
+
+        @Override
+        public void endGame(CharSequence result) {
+            game = new ParsedGame(
+                    gameNumber, offset, fen, moves, result.toString());
+        }
+
+        /**
+         * The last game to end.
+         */
+        ParsedGame getGame() {
+            return game;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package me.roitgrund.chess.pgn;
+
+/**
+ * Receives the parts of each game as a {@link PgnParser} reads them. The
+ * character sequences passed in are reused by the parser, so they are
+ * only valid until the method returns; call {@code toString()} to keep
+ * one.
+ */
+public interface PgnListener {
+
+    /**
+     * A game starts at the given byte offset in the input.
+     */
+    void startGame(long offset);
+
+    void tag(CharSequence name, CharSequence value);
+
+    /**
+     * A move in standard algebraic notation, with any move number, check
+     * and annotation marks removed. Moves in comments and variations are
+     * skipped.
+     */
+    void move(CharSequence san);
+
+    /**
+     * The game ended with the given result token: "1-0", "0-1", "1/2-1/2"
+     * or "*". Games cut off by the next game's tags or by the end of the
+     * input end with "*".
+     */
+    void endGame(CharSequence result);
+}
@@ -0,0 +1,266 @@
+package me.roitgrund.chess.pgn;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Reads games in Portable Game Notation from a channel a chunk at a time,
+ * and passes their tags, moves and results to a {@link PgnListener}.
+ *
+ * <p>Only one chunk and the token being read are held in memory, so files
+ * of any size can be read, and nothing is allocated per token. Comments,
+ * variations, numeric annotation glyphs, move numbers and escaped lines
+ * are skipped. Input is read as ASCII; bytes outside it are kept as
+ * they are in tag values and ignored elsewhere.
+ */
+public class PgnParser {
+    private static final int DEFAULT_CHUNK_SIZE = 1 << 20;
+    private static final int MAX_TOKEN_LENGTH = 1024;
+
+    private final ReadableByteChannel channel;
+    private final byte[] bytes;
+    private final ByteBuffer chunk;
+    private final Token name = new Token(MAX_TOKEN_LENGTH);
+    private final Token value = new Token(MAX_TOKEN_LENGTH);
+    // Offset in the input of the first byte of the chunk.
+    private long chunkOffset;
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+
+    public PgnParser(ReadableByteChannel channel) {
+        this(channel, DEFAULT_CHUNK_SIZE);
+    }
+
+    PgnParser(ReadableByteChannel channel, int chunkSize) {
+        Preconditions.checkArgument(chunkSize > 0);
+        this.channel = channel;
+        bytes = new byte[chunkSize];
+        chunk = ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Reads the next game, passing it to the listener, and returns whether
+     * there was one.
+     */
+    public boolean parseGame(PgnListener listener) throws IOException {
+        boolean inGame = false;
+        boolean sawMoves = false;
+        // Where a game without tags starts: at its first move number.
+        long numberOffset = -1;
+        while (true) {
+            int c = skipWhitespace();
+            switch (c) {
+                case -1:
+                    if (inGame) {
+                        endGame(listener, "*");
+                    }
+                    return inGame;
+                case '[':
+                    if (sawMoves) {
+                        // The previous game had no result.
+                        endGame(listener, "*");
+                        return true;
+                    }
+                    if (!inGame) {
+                        listener.startGame(offset());
+                        inGame = true;
+                    }
+                    read();
+                    readTag(listener);
+                    break;
+                case '{':
+                    skipPast('}');
+                    break;
+                case ';':
+                case '%':
+                    skipPast('\n');
+                    break;
+                case '(':
+                    skipVariation();
+                    break;
+                case '*':
+                    read();
+                    if (inGame) {
+                        endGame(listener, "*");
+                        return true;
+                    }
+                    break;
+                default:
+                    if (!isSymbolChar(c)) {
+                        // Move number dots, annotations and stray characters.
+                        read();
+                        break;
+                    }
+                    long start = offset();
+                    readSymbol(name);
+                    if (isResult(name)) {
+                        if (inGame) {
+                            listener.endGame(name);
+                            return true;
+                        }
+                    } else if (isNumber(name)) {
+                        if (numberOffset < 0) {
+                            numberOffset = start;
+                        }
+                    } else {
+                        if (!inGame) {
+                            listener.startGame(
+                                    numberOffset < 0 ? start : numberOffset);
+                            inGame = true;
+                        }
+                        sawMoves = true;
+                        removeCheckMarks(name);
+                        listener.move(name);
+                    }
+            }
+        }
+    }
+
+    private void endGame(PgnListener listener, String result) {
+        name.clear();
+        for (int i = 0; i < result.length(); i++) {
+            name.append(result.charAt(i));
+        }
+        listener.endGame(name);
+    }
+
+    /**
+     * Reads a tag from after its opening bracket to its closing one.
+     */
+    private void readTag(PgnListener listener) throws IOException {
+        skipWhitespace();
+        readSymbol(name);
+        value.clear();
+        int c = skipWhitespace();
+        if (c == '"') {
+            read();
+            while ((c = read()) != -1 && c != '"') {
+                if (c == '\\') {
+                    c = read();
+                    if (c == -1) {
+                        break;
+                    }
+                }
+                value.append(c);
+            }
+        }
+        skipPast(']');
+        listener.tag(name, value);
+    }
+
+    private void readSymbol(Token token) throws IOException {
+        token.clear();
+        while (isSymbolChar(peek())) {
+            token.append(read());
+        }
+    }
+
+    private void skipVariation() throws IOException {
+        int depth = 0;
+        int c;
+        while ((c = read()) != -1) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                if (--depth == 0) {
+                    return;
+                }
+            } else if (c == '{') {
+                skipPast('}');
+            } else if (c == ';') {
+                skipPast('\n');
+            }
+        }
+    }
+
+    private void skipPast(int end) throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c != -1 && c != end);
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            read();
+        }
+        return c;
+    }
+
+    /**
+     * Removes the check and mate marks, + and #, from the end of a move.
+     */
+    private static void removeCheckMarks(Token move) {
+        int length = move.length();
+        while (length > 0 && (move.charAt(length - 1) == '+' ||
+                move.charAt(length - 1) == '#')) {
+            length--;
+        }
+        move.truncate(length);
+    }
+
+    private static boolean isSymbolChar(int c) {
+        return c >= 'a' && c <= 'z' ||
+                c >= 'A' && c <= 'Z' ||
+                c >= '0' && c <= '9' ||
+                c == '+' || c == '#' || c == '=' || c == '-' || c == '/' ||
+                c == '_' || c == ':';
+    }
+
+    private static boolean isResult(Token token) {
+        return token.contentEquals("1-0") ||
+                token.contentEquals("0-1") ||
+                token.contentEquals("1/2-1/2");
+    }
+
+    private static boolean isNumber(Token token) {
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) < '0' || token.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long offset() {
+        return chunkOffset + position;
+    }
+
+    private int peek() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return bytes[position] & 0xff;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return bytes[position++] & 0xff;
+    }
+
+    private boolean fill() throws IOException {
+        if (endOfInput) {
+            return false;
+        }
+        chunkOffset += limit;
+        chunk.clear();
+        int read;
+        do {
+            read = channel.read(chunk);
+        } while (read == 0);
+        position = 0;
+        limit = Math.max(read, 0);
+        if (read < 0) {
+            endOfInput = true;
+            return false;
+        }
+        return true;
+    }
+}
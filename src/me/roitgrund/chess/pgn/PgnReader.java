@@ -0,0 +1,119 @@
+package me.roitgrund.chess.pgn;
+
+import me.roitgrund.chess.game.Board.GameState;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Replays every game in a PGN file or channel, one at a time, without
+ * reading more than a chunk of it into memory. See {@link PgnParser} for
+ * what is read and {@link GameReplayer} for how games are played.
+ *
+ * <p>Usage: {@code PgnReader file.pgn} prints how many games ended in each
+ * state, the first few illegal games, and the throughput.
+ */
+public class PgnReader implements Closeable {
+    private final ReadableByteChannel channel;
+    private final PgnParser parser;
+    private final GameReplayer replayer = new GameReplayer();
+
+    public PgnReader(ReadableByteChannel channel) {
+        this.channel = channel;
+        parser = new PgnParser(channel);
+    }
+
+    public static PgnReader open(Path path) throws IOException {
+        return new PgnReader(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    /**
+     * Replays the next game and returns its outcome, or null at the end of
+     * the input.
+     */
+    public GameRecord next() throws IOException {
+        return parser.parseGame(replayer) ? replayer.getRecord() : null;
+    }
+
+    /**
+     * Replays the remaining games, passing each outcome to the consumer as
+     * soon as the game ends.
+     */
+    public void read(Consumer<GameRecord> consumer) throws IOException {
+        GameRecord record;
+        while ((record = next()) != null) {
+            consumer.accept(record);
+        }
+    }
+
+    /**
+     * The remaining games as a lazy, sequential stream. Read errors are
+     * thrown as {@link UncheckedIOException}.
+     */
+    public Stream<GameRecord> stream() {
+        Spliterator<GameRecord> games =
+                new Spliterators.AbstractSpliterator<GameRecord>(
+                        Long.MAX_VALUE,
+                        Spliterator.ORDERED | Spliterator.NONNULL) {
+                    @Override
+                    public boolean tryAdvance(
+                            Consumer<? super GameRecord> action) {
+                        GameRecord record;
+                        try {
+                            record = next();
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        if (record == null) {
+                            return false;
+                        }
+                        action.accept(record);
+                        return true;
+                    }
+                };
+        return StreamSupport.stream(games, false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path path = Path.of(args[0]);
+        Map<GameState, Long> states = new EnumMap<>(GameState.class);
+        long[] illegalShown = {0};
+        long start = System.nanoTime();
+        try (PgnReader reader = open(path)) {
+            reader.read(record -> {
+                states.merge(record.getFinalState(), 1L, Long::sum);
+                if (!record.isLegal() && illegalShown[0]++ < 10) {
+                    System.out.println(record);
+                }
+            });
+        }
+        long nanos = System.nanoTime() - start;
+
+        long games = states.values().stream().mapToLong(Long::longValue).sum();
+        states.forEach((state, count) ->
+                System.out.printf("%s: %d%n", state, count));
+        System.out.printf("Games: %d%nTime: %d ms%nGames/second: %d%n"
+                        + "MB/second: %.1f%n",
+                games,
+                nanos / 1_000_000,
+                games * 1_000_000_000L / Math.max(nanos, 1),
+                path.toFile().length() * 1e3 / Math.max(nanos, 1));
+    }
+}
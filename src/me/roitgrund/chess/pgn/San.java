@@ -0,0 +1,208 @@
+package me.roitgrund.chess.pgn;
+
+import me.roitgrund.chess.game.Attacks;
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Coord;
+import me.roitgrund.chess.game.Moves;
+import me.roitgrund.chess.game.Piece.Color;
+import me.roitgrund.chess.game.Piece.Type;
+
+/**
+ * Resolves moves in standard algebraic notation, such as "Nbd7", "exd5",
+ * "e8=Q+" or "O-O", against a position. Only the pieces that could reach
+ * the destination are checked for legality, rather than generating every
+ * legal move.
+ */
+public class San {
+    private static final int NO_FILE = -1;
+    private static final int NO_ROW = -1;
+
+    /**
+     * Returns the legal move the notation stands for, encoded as in
+     * {@link Moves}, or {@link Moves#NONE} if it is malformed, illegal or
+     * ambiguous. A promotion with no piece given is taken to be to a queen.
+     */
+    public static int resolve(Board board, CharSequence san) {
+        int end = san.length();
+        while (end > 0 && isSuffix(san.charAt(end - 1))) {
+            end--;
+        }
+        if (end < 2) {
+            return Moves.NONE;
+        }
+
+        if (isCastle(san, end)) {
+            return resolveCastle(board, end == 5);
+        }
+
+        Type promotion = null;
+        char last = san.charAt(end - 1);
+        if (last >= 'A' && last <= 'Z' || last >= 'a' && last <= 'z' &&
+                !isFile(last)) {
+            promotion = pieceType(Character.toUpperCase(last));
+            if (promotion == null || promotion == Type.PAWN ||
+                    promotion == Type.KING) {
+                return Moves.NONE;
+            }
+            end--;
+            if (end > 0 && san.charAt(end - 1) == '=') {
+                end--;
+            }
+        }
+
+        if (end < 2 ||
+                !isFile(san.charAt(end - 2)) ||
+                !isRank(san.charAt(end - 1))) {
+            return Moves.NONE;
+        }
+        int to = (san.charAt(end - 1) - '1') * 8 + san.charAt(end - 2) - 'a';
+
+        int start = 0;
+        Type type = Type.PAWN;
+        if (san.charAt(0) >= 'A' && san.charAt(0) <= 'Z') {
+            type = pieceType(san.charAt(0));
+            if (type == null || type == Type.PAWN) {
+                return Moves.NONE;
+            }
+            start = 1;
+        }
+        int fromFile = NO_FILE;
+        int fromRow = NO_ROW;
+        boolean capture = false;
+        for (int i = start; i < end - 2; i++) {
+            char c = san.charAt(i);
+            if (isFile(c)) {
+                fromFile = c - 'a';
+            } else if (isRank(c)) {
+                fromRow = c - '1';
+            } else if (c == 'x' || c == ':') {
+                capture = true;
+            } else if (c != '-') {
+                return Moves.NONE;
+            }
+        }
+        if (type == Type.PAWN && capture && fromFile == NO_FILE) {
+            return Moves.NONE;
+        }
+
+        long candidates = sources(board, type, to, capture) &
+                board.getPieces(type, board.getTurn());
+        Coord toCoord = Coord.fromIndex(to);
+        int found = Moves.NONE;
+        while (candidates != 0) {
+            int from = Long.numberOfTrailingZeros(candidates);
+            candidates &= candidates - 1;
+            if (fromFile != NO_FILE && from % 8 != fromFile ||
+                    fromRow != NO_ROW && from / 8 != fromRow) {
+                continue;
+            }
+            int move = board.legalMove(
+                    Coord.fromIndex(from), toCoord, promotion);
+            if (move == Moves.NONE) {
+                continue;
+            }
+            if (found != Moves.NONE) {
+                return Moves.NONE;
+            }
+            found = move;
+        }
+        return found;
+    }
+
+    /**
+     * The squares from which a piece of the type could move to the square,
+     * ignoring whether the move is legal. Pawns only capture when the move
+     * says so, and otherwise only push.
+     */
+    private static long sources(
+            Board board, Type type, int to, boolean capture) {
+        long occupancy = board.getOccupancy();
+        switch (type) {
+            case PAWN:
+                Color turn = board.getTurn();
+                if (capture) {
+                    return Attacks.pawn(Color.other(turn), to);
+                }
+                int behind = turn == Color.WHITE ? -8 : 8;
+                long pushes = 0;
+                for (int from = to + behind, i = 0;
+                     i < 2 && from >= 0 && from < 64;
+                     from += behind, i++) {
+                    pushes |= 1L << from;
+                }
+                return pushes;
+            case KNIGHT:
+                return Attacks.knight(to);
+            case BISHOP:
+                return Attacks.bishop(to, occupancy);
+            case ROOK:
+                return Attacks.rook(to, occupancy);
+            case QUEEN:
+                return Attacks.queen(to, occupancy);
+            default:
+                return Attacks.king(to);
+        }
+    }
+
+    private static int resolveCastle(Board board, boolean queenSide) {
+        int from = Long.numberOfTrailingZeros(
+                board.getPieces(Type.KING, board.getTurn()));
+        int to = queenSide ? from - 2 : from + 2;
+        if (to < from / 8 * 8 || to >= from / 8 * 8 + 8) {
+            return Moves.NONE;
+        }
+        int move = board.legalMove(
+                Coord.fromIndex(from), Coord.fromIndex(to), null);
+        return Moves.isCastle(move) ? move : Moves.NONE;
+    }
+
+    /**
+     * Castling is written with capital O, or sometimes with zeroes.
+     */
+    private static boolean isCastle(CharSequence san, int end) {
+        if (end != 3 && end != 5) {
+            return false;
+        }
+        char o = san.charAt(0);
+        if (o != 'O' && o != '0') {
+            return false;
+        }
+        for (int i = 1; i < end; i++) {
+            if (san.charAt(i) != (i % 2 == 1 ? '-' : o)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Type pieceType(char letter) {
+        switch (letter) {
+            case 'P':
+                return Type.PAWN;
+            case 'N':
+                return Type.KNIGHT;
+            case 'B':
+                return Type.BISHOP;
+            case 'R':
+                return Type.ROOK;
+            case 'Q':
+                return Type.QUEEN;
+            case 'K':
+                return Type.KING;
+            default:
+                return null;
+        }
+    }
+
+    private static boolean isSuffix(char c) {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
+
+    private static boolean isFile(char c) {
+        return c >= 'a' && c <= 'h';
+    }
+
+    private static boolean isRank(char c) {
+        return c >= '1' && c <= '8';
+    }
+}
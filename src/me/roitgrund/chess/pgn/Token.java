@@ -0,0 +1,66 @@
+package me.roitgrund.chess.pgn;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A reusable buffer of ASCII characters read from PGN, so that tokens can
+ * be handed to listeners without allocating strings. Characters past the
+ * capacity are dropped.
+ */
+class Token implements CharSequence {
+    private final byte[] bytes;
+    private int length;
+
+    Token(int capacity) {
+        bytes = new byte[capacity];
+    }
+
+    void clear() {
+        length = 0;
+    }
+
+    void append(int c) {
+        if (length < bytes.length) {
+            bytes[length++] = (byte) c;
+        }
+    }
+
+    /**
+     * Drops the characters past the given length.
+     */
+    void truncate(int length) {
+        this.length = Math.min(this.length, length);
+    }
+
+    boolean contentEquals(String s) {
+        if (s.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        return (char) (bytes[index] & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+}
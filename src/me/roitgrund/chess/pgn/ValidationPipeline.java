@@ -0,0 +1,338 @@
+package me.roitgrund.chess.pgn;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Validates the games in a PGN file on several cores, in three stages
+ * joined by bounded queues:
+ *
+ * <ol>
+ * <li>one thread parses the file into batches of games;
+ * <li>a pool of threads replays each batch through its own boards;
+ * <li>the calling thread puts the results back in file order, checks
+ * each game's final state against its given result, and passes them on.
+ * </ol>
+ *
+ * <p>A full queue blocks the stage feeding it, so a slow consumer slows
+ * parsing down rather than letting games pile up in memory. Batches
+ * replayed out of order wait for the ones before them, so parsing also
+ * waits while as many batches as the queues and replay threads can hold
+ * are between the parser and the consumer. If any stage fails, all of
+ * them stop at once and the failure is thrown. Games are replayed by the
+ * same code as {@link PgnReader}, so the results are the same as
+ * replaying the file on one thread.
+ */
+public class ValidationPipeline {
+    private static final Batch<?> END = new Batch<>(-1, new ArrayList<>());
+
+    private final int replayThreads;
+    private final int batchSize;
+    private final int maxBatchesInFlight;
+    private final Supplier<Function<ParsedGame, GameRecord>> replayers;
+    private final BlockingQueue<Batch<ParsedGame>> parsed;
+    private final BlockingQueue<Batch<GameRecord>> replayed;
+    private final AtomicLong gamesChecked = new AtomicLong();
+
+    public ValidationPipeline(int replayThreads) {
+        this(replayThreads, 64, 256);
+    }
+
+    /**
+     * @param queueCapacity the number of batches each queue holds
+     * @param batchSize     the number of games handed between stages at once
+     */
+    public ValidationPipeline(
+            int replayThreads, int queueCapacity, int batchSize) {
+        this(replayThreads, queueCapacity, batchSize,
+                () -> new GameReplayer()::replay);
+    }
+
+    /**
+     * Replays games with functions from the given supplier, one for each
+     * replay thread, for tests.
+     */
+    ValidationPipeline(int replayThreads,
+                       int queueCapacity,
+                       int batchSize,
+                       Supplier<Function<ParsedGame, GameRecord>> replayers) {
+        Preconditions.checkArgument(replayThreads >= 1,
+                "Need at least one replay thread.");
+        Preconditions.checkArgument(queueCapacity >= 1 && batchSize >= 1);
+        this.replayThreads = replayThreads;
+        this.batchSize = batchSize;
+        this.maxBatchesInFlight = 2 * queueCapacity + replayThreads;
+        this.replayers = replayers;
+        parsed = new ArrayBlockingQueue<>(queueCapacity);
+        replayed = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * The number of parsed batches waiting to be replayed.
+     */
+    public int getParsedQueueDepth() {
+        return parsed.size();
+    }
+
+    /**
+     * The number of replayed batches waiting to be checked.
+     */
+    public int getReplayedQueueDepth() {
+        return replayed.size();
+    }
+
+    /**
+     * The number of games checked so far in the current run.
+     */
+    public long getGamesChecked() {
+        return gamesChecked.get();
+    }
+
+    /**
+     * Validates every game read from the channel, passing each result to
+     * the consumer on the calling thread in file order. A pipeline runs one
+     * channel at a time.
+     */
+    public ValidationSummary run(
+            ReadableByteChannel channel, Consumer<GameRecord> consumer)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        gamesChecked.set(0);
+        ExecutorService threads = Executors.newFixedThreadPool(
+                replayThreads + 1, runnable -> {
+                    Thread thread = new Thread(runnable, "validation");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        Run run = new Run(threads);
+        try {
+            threads.execute(() -> parse(channel, run));
+            for (int i = 0; i < replayThreads; i++) {
+                threads.execute(() -> replay(run));
+            }
+            ValidationSummary summary = check(consumer, run);
+            Throwable thrown = run.failure.get();
+            if (thrown instanceof IOException) {
+                throw (IOException) thrown;
+            } else if (thrown != null) {
+                throw new IllegalStateException(thrown);
+            }
+            summary.setNanos(System.nanoTime() - start);
+            return summary;
+        } finally {
+            threads.shutdownNow();
+            parsed.clear();
+            replayed.clear();
+        }
+    }
+
+    public ValidationSummary run(Path path, Consumer<GameRecord> consumer)
+            throws IOException, InterruptedException {
+        try (FileChannel channel =
+                     FileChannel.open(path, StandardOpenOption.READ)) {
+            return run(channel, consumer);
+        }
+    }
+
+    private void parse(ReadableByteChannel channel, Run run) {
+        try {
+            PgnParser parser = new PgnParser(channel);
+            ParsedGame.Collector collector = new ParsedGame.Collector();
+            long index = 0;
+            List<ParsedGame> games = new ArrayList<>(batchSize);
+            while (parser.parseGame(collector)) {
+                games.add(collector.getGame());
+                if (games.size() == batchSize) {
+                    run.inFlight.acquire();
+                    parsed.put(new Batch<>(index++, games));
+                    games = new ArrayList<>(batchSize);
+                }
+            }
+            if (!games.isEmpty()) {
+                run.inFlight.acquire();
+                parsed.put(new Batch<>(index, games));
+            }
+        } catch (InterruptedException e) {
+            return;
+        } catch (Throwable t) {
+            fail(run, t);
+            return;
+        }
+        endStage(parsed, replayThreads);
+    }
+
+    private void replay(Run run) {
+        try {
+            Function<ParsedGame, GameRecord> replayer = replayers.get();
+            Batch<ParsedGame> batch;
+            while ((batch = parsed.take()) != END) {
+                List<GameRecord> records = new ArrayList<>(batch.items.size());
+                for (ParsedGame game : batch.items) {
+                    records.add(replayer.apply(game));
+                }
+                replayed.put(new Batch<>(batch.index, records));
+            }
+        } catch (InterruptedException e) {
+            return;
+        } catch (Throwable t) {
+            fail(run, t);
+            return;
+        }
+        endStage(replayed, 1);
+    }
+
+    private ValidationSummary check(Consumer<GameRecord> consumer, Run run)
+            throws InterruptedException {
+        ValidationSummary summary = new ValidationSummary();
+        // Batches replayed ahead of the next one due, by index. There are
+        // at most maxBatchesInFlight, as each holds a permit until handed
+        // on.
+        Map<Long, Batch<GameRecord>> waiting = new HashMap<>();
+        long next = 0;
+        int replayersLeft = replayThreads;
+        while (replayersLeft > 0) {
+            Batch<GameRecord> batch = replayed.take();
+            if (run.failure.get() != null) {
+                break;
+            }
+            if (batch == END) {
+                replayersLeft--;
+                continue;
+            }
+            waiting.put(batch.index, batch);
+            while ((batch = waiting.remove(next)) != null) {
+                for (GameRecord record : batch.items) {
+                    summary.add(record);
+                    consumer.accept(record);
+                }
+                gamesChecked.addAndGet(batch.items.size());
+                run.inFlight.release();
+                next++;
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Records the first failure and stops every stage: the parse and
+     * replay threads are interrupted, and the checking thread wakes up to
+     * find the failure. If the queue is full the checker is not waiting,
+     * and sees the failure after its next batch.
+     */
+    private void fail(Run run, Throwable t) {
+        run.failure.compareAndSet(null, t);
+        run.threads.shutdownNow();
+        replayed.offer(endMarker());
+    }
+
+    /**
+     * Tells each thread of the next stage that there is nothing more.
+     */
+    private static <T> void endStage(
+            BlockingQueue<Batch<T>> queue, int threads) {
+        try {
+            for (int i = 0; i < threads; i++) {
+                queue.put(endMarker());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Usage: {@code ValidationPipeline file.pgn [--threads n]}. Prints the
+     * throughput and queue depths every second while running, then the
+     * totals.
+     */
+    public static void main(String[] args) throws Exception {
+        Path path = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                path = Path.of(args[i]);
+            }
+        }
+        Preconditions.checkArgument(path != null, "No PGN file given.");
+
+        ValidationPipeline pipeline = new ValidationPipeline(threads);
+        Thread reporter = new Thread(() -> {
+            long last = 0;
+            try {
+                while (true) {
+                    Thread.sleep(1000);
+                    long checked = pipeline.getGamesChecked();
+                    System.out.printf(
+                            "%d games/second, queued: %d parsed, %d replayed%n",
+                            checked - last,
+                            pipeline.getParsedQueueDepth(),
+                            pipeline.getReplayedQueueDepth());
+                    last = checked;
+                }
+            } catch (InterruptedException e) {
+                // Done.
+            }
+        });
+        reporter.setDaemon(true);
+        reporter.start();
+
+        long[] illegalShown = {0};
+        ValidationSummary summary = pipeline.run(path, record -> {
+            if (!record.isLegal() && illegalShown[0]++ < 10) {
+                System.out.println(record);
+            }
+        });
+        reporter.interrupt();
+        System.out.println(summary);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Batch<T> endMarker() {
+        return (Batch<T>) END;
+    }
+
+    /**
+     * The state shared by the stages of one run.
+     */
+    private class Run {
+        private final ExecutorService threads;
+        private final AtomicReference<Throwable> failure =
+                new AtomicReference<>();
+        // Taken for each batch parsed and given back as it is handed on.
+        private final Semaphore inFlight = new Semaphore(maxBatchesInFlight);
+
+        Run(ExecutorService threads) {
+            this.threads = threads;
+        }
+    }
+
+    private static class Batch<T> {
+        private final long index;
+        private final List<T> items;
+
+        Batch(long index, List<T> items) {
+            this.index = index;
+            this.items = items;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package me.roitgrund.chess.pgn;
+
+import me.roitgrund.chess.game.Board.GameState;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Counts of how the games in a validation run ended.
+ */
+public class ValidationSummary {
+    private final Map<GameState, Long> states = new EnumMap<>(GameState.class);
+    private long games;
+    private long resultMismatches;
+    private long nanos;
+
+    void add(GameRecord record) {
+        games++;
+        states.merge(record.getFinalState(), 1L, Long::sum);
+        if (!record.matchesResult()) {
+            resultMismatches++;
+        }
+    }
+
+    void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * The number of games that ended in each state, where illegal games are
+     * counted as {@link GameState#ILLEGAL_MOVE}.
+     */
+    public Map<GameState, Long> getStates() {
+        return Collections.unmodifiableMap(states);
+    }
+
+    public long getIllegalGames() {
+        return states.getOrDefault(GameState.ILLEGAL_MOVE, 0L);
+    }
+
+    /**
+     * The number of games whose given result contradicts the final board.
+     * See {@link GameRecord#matchesResult()}.
+     */
+    public long getResultMismatches() {
+        return resultMismatches;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getGamesPerSecond() {
+        return nanos == 0 ? 0 : games * 1_000_000_000L / nanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder();
+        states.forEach((state, count) -> summary.append(
+                String.format("%s: %d%n", state, count)));
+        summary.append(String.format(
+                "Result mismatches: %d%nGames: %d%nTime: %d ms%n"
+                        + "Games/second: %d",
+                resultMismatches,
+                games,
+                nanos / 1_000_000,
+                getGamesPerSecond()));
+        return summary.toString();
+    }
+}
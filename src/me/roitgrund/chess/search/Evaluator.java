@@ -0,0 +1,96 @@
+package me.roitgrund.chess.search;
+
+import me.roitgrund.chess.game.Attacks;
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.PieceSquareTables;
+import me.roitgrund.chess.game.Piece.Color;
+import me.roitgrund.chess.game.Piece.Type;
+
+/**
+ * Scores positions in centipawns for the player to move, from material,
+ * piece placement and mobility, each weighed once for the middlegame and
+ * once for the endgame and blended by how many pieces are left.
+ *
+ * <p>Material and placement are read from the board, which keeps them up
+ * to date as moves are made; only mobility is worked out here, from the
+ * attack tables.
+ */
+public class Evaluator {
+    // Per square attacked, indexed by Type ordinal.
+    private static final int[] MIDDLEGAME_MOBILITY = {0, 2, 4, 5, 0, 1};
+    private static final int[] ENDGAME_MOBILITY = {0, 4, 4, 5, 0, 2};
+    private static final Type[] MOBILE_TYPES =
+            {Type.ROOK, Type.KNIGHT, Type.BISHOP, Type.QUEEN};
+    private static final Type[] TYPES = Type.values();
+    private static final Color[] COLORS = Color.values();
+
+    public int evaluate(Board board) {
+        int middlegame = board.getMiddlegameScore();
+        int endgame = board.getEndgameScore();
+
+        long occupancy = board.getOccupancy();
+        for (Color color : COLORS) {
+            long own = ownPieces(board, color);
+            int sign = color == Color.WHITE ? 1 : -1;
+            for (Type type : MOBILE_TYPES) {
+                long pieces = board.getPieces(type, color);
+                while (pieces != 0) {
+                    int square = Long.numberOfTrailingZeros(pieces);
+                    pieces &= pieces - 1;
+                    int mobility = Long.bitCount(
+                            attacks(type, square, occupancy) & ~own);
+                    int index = type.ordinal();
+                    middlegame += sign * MIDDLEGAME_MOBILITY[index] * mobility;
+                    endgame += sign * ENDGAME_MOBILITY[index] * mobility;
+                }
+            }
+        }
+
+        int phase = Math.min(board.getPhase(), PieceSquareTables.MAX_PHASE);
+        int score = (middlegame * phase +
+                endgame * (PieceSquareTables.MAX_PHASE - phase)) /
+                PieceSquareTables.MAX_PHASE;
+        return board.getTurn() == Color.WHITE ? score : -score;
+    }
+
+    /**
+     * A rough value of each piece, for ordering captures.
+     */
+    public static int value(Type type) {
+        switch (type) {
+            case PAWN:
+                return 100;
+            case KNIGHT:
+                return 320;
+            case BISHOP:
+                return 330;
+            case ROOK:
+                return 500;
+            case QUEEN:
+                return 900;
+            default:
+                return 0;
+        }
+    }
+
+    private static long attacks(Type type, int square, long occupancy) {
+        switch (type) {
+            case ROOK:
+                return Attacks.rook(square, occupancy);
+            case KNIGHT:
+                return Attacks.knight(square);
+            case BISHOP:
+                return Attacks.bishop(square, occupancy);
+            default:
+                return Attacks.queen(square, occupancy);
+        }
+    }
+
+    private static long ownPieces(Board board, Color color) {
+        long own = 0;
+        for (Type type : TYPES) {
+            own |= board.getPieces(type, color);
+        }
+        return own;
+    }
+}
@@ -0,0 +1,110 @@
+package me.roitgrund.chess.search;
+
+import com.google.common.base.Preconditions;
+import me.roitgrund.chess.game.Board;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Searches on several threads at once by running independent searchers
+ * over copies of the position, sharing one transposition table ("Lazy
+ * SMP"). The helpers fill the table with results that the main search
+ * then finds instead of searching, and half of them start a ply deeper so
+ * that the threads spread over different parts of the tree.
+ *
+ * <p>The calling thread runs the main search, and its result is the one
+ * returned; the helpers are stopped as soon as it finishes.
+ */
+public class ParallelSearcher implements AutoCloseable {
+    private final TranspositionTable table;
+    private final Searcher[] searchers;
+    private final ExecutorService helperThreads;
+
+    public ParallelSearcher(int threads, TranspositionTable table) {
+        this(threads, new Evaluator(), table);
+    }
+
+    public ParallelSearcher(
+            int threads, Evaluator evaluator, TranspositionTable table) {
+        Preconditions.checkArgument(threads >= 1, "Need at least one thread.");
+        this.table = table;
+        searchers = new Searcher[threads];
+        for (int i = 0; i < threads; i++) {
+            searchers[i] = new Searcher(evaluator, table);
+        }
+        helperThreads = threads == 1
+                ? null
+                : Executors.newFixedThreadPool(threads - 1, runnable -> {
+                    Thread thread = new Thread(runnable, "search-helper");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    public int getThreads() {
+        return searchers.length;
+    }
+
+    /**
+     * Searches the position for the player to move, counting the nodes of
+     * every thread. The board is left as it was found.
+     */
+    public SearchResult search(Board board, SearchLimits limits) {
+        table.newSearch();
+        AtomicBoolean stop = new AtomicBoolean();
+        SearchLimits helperLimits = new SearchLimits(
+                SearchLimits.MAX_DEPTH, Long.MAX_VALUE, limits.getMaxMillis());
+        List<Future<SearchResult>> helpers = new ArrayList<>();
+        for (int i = 1; i < searchers.length; i++) {
+            Searcher helper = searchers[i];
+            Board copy = board.copy();
+            int firstDepth = 1 + i % 2;
+            helpers.add(helperThreads.submit(
+                    () -> helper.search(copy, helperLimits, firstDepth, stop)));
+        }
+
+        SearchResult result;
+        try {
+            result = searchers[0].search(board, limits, 1, new AtomicBoolean());
+        } finally {
+            stop.set(true);
+        }
+
+        long nodes = result.getNodes();
+        for (Future<SearchResult> helper : helpers) {
+            nodes += join(helper).getNodes();
+        }
+        return new SearchResult(result.getBestMove(),
+                result.getScore(),
+                result.getDepth(),
+                nodes);
+    }
+
+    @Override
+    public void close() {
+        if (helperThreads != null) {
+            helperThreads.shutdownNow();
+        }
+    }
+
+    private static SearchResult join(Future<SearchResult> helper) {
+        try {
+            return helper.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package me.roitgrund.chess.search;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * When a search should stop: after a depth, a number of nodes or an amount
+ * of time, whichever comes first. A search always completes depth one, so
+ * that it has a move to return.
+ */
+public class SearchLimits {
+    public static final int MAX_DEPTH = 64;
+
+    private final int maxDepth;
+    private final long maxNodes;
+    private final long maxMillis;
+
+    public SearchLimits(int maxDepth, long maxNodes, long maxMillis) {
+        Preconditions.checkArgument(
+                maxDepth >= 1 && maxDepth <= MAX_DEPTH,
+                "Depth must be between 1 and %s.",
+                MAX_DEPTH);
+        this.maxDepth = maxDepth;
+        this.maxNodes = maxNodes;
+        this.maxMillis = maxMillis;
+    }
+
+    public static SearchLimits depth(int maxDepth) {
+        return new SearchLimits(maxDepth, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits nodes(long maxNodes) {
+        return new SearchLimits(MAX_DEPTH, maxNodes, Long.MAX_VALUE);
+    }
+
+    public static SearchLimits millis(long maxMillis) {
+        return new SearchLimits(MAX_DEPTH, Long.MAX_VALUE, maxMillis);
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+}
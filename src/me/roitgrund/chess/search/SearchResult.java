@@ -0,0 +1,68 @@
+package me.roitgrund.chess.search;
+
+import me.roitgrund.chess.game.Move;
+import me.roitgrund.chess.game.Moves;
+
+import java.util.Optional;
+
+/**
+ * The outcome of a search: the best move found, encoded as in
+ * {@link Moves}, and its score in centipawns for the player to move.
+ */
+public class SearchResult {
+    private final int bestMove;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+
+    public SearchResult(int bestMove, int score, int depth, long nodes) {
+        this.bestMove = bestMove;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+    }
+
+    /**
+     * The best move, or {@link Moves#NONE} if there were no legal moves.
+     */
+    public int getBestMove() {
+        return bestMove;
+    }
+
+    public Optional<Move> getMove() {
+        return bestMove == Moves.NONE
+                ? Optional.empty()
+                : Optional.of(Moves.decode(bestMove));
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Whether the score is a forced mate, for either side.
+     */
+    public boolean isMate() {
+        return Math.abs(score) >= Searcher.MATE - SearchLimits.MAX_DEPTH * 2;
+    }
+
+    /**
+     * The deepest iteration that completed.
+     */
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s score %d depth %d nodes %d",
+                getMove().map(Move::toString).orElse("none"),
+                score,
+                depth,
+                nodes);
+    }
+}
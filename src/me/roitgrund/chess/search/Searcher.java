@@ -0,0 +1,442 @@
+package me.roitgrund.chess.search;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Board.GameState;
+import me.roitgrund.chess.game.Coord;
+import me.roitgrund.chess.game.MoveList;
+import me.roitgrund.chess.game.Moves;
+import me.roitgrund.chess.game.Piece;
+import me.roitgrund.chess.search.TranspositionTable.Bound;
+import me.roitgrund.chess.tablebase.Tablebase;
+import me.roitgrund.chess.tablebase.TablebaseResult;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Picks a move with a negamax alpha-beta search, deepened one ply at a
+ * time until the limits run out, with a quiescence search of captures at
+ * the leaves.
+ *
+ * <p>Results are kept in a transposition table, which may be shared with
+ * searchers on other threads. Moves are tried in the order most likely to
+ * cause a cutoff: the move stored in the table, or at the root the best
+ * move of the previous iteration, then captures of the most valuable
+ * victim by the least valuable attacker, then killer moves that caused a
+ * cutoff at the same ply, then quiet moves by their history of cutoffs.
+ * Moves are generated without checking whether they leave the king
+ * attacked, and only checked as they are played, since a cutoff usually
+ * comes before most moves are tried.
+ *
+ * <p>Given a {@link Tablebase}, positions it covers below the root are
+ * scored from it instead of searched.
+ *
+ * <p>A searcher keeps its move lists and ordering tables between searches
+ * and is not thread-safe; give each thread its own.
+ */
+public class Searcher {
+    public static final int MATE = 100_000;
+
+    private static final int INFINITY = MATE + 1;
+    // Plies of quiescence search allowed beyond the depth limit.
+    private static final int MAX_PLY = SearchLimits.MAX_DEPTH * 2;
+    // A node takes tens of microseconds, so this is a few milliseconds.
+    private static final int CHECK_LIMITS_EVERY = 64;
+    private static final int DEFAULT_TABLE_MEGABYTES = 16;
+
+    private static final int FIRST_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 20;
+    private static final int KILLER_SCORE = 1 << 19;
+    private static final int MAX_HISTORY = 1 << 18;
+
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+    private final Tablebase tablebase;
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final int[][] orderScores = new int[MAX_PLY + 1][];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[64][64];
+
+    private Board board;
+    private long nodes;
+    private long maxNodes;
+    private long deadline;
+    private long nextLimitCheck;
+    private AtomicBoolean stop;
+    private boolean aborted;
+    private int previousBestMove;
+    private int rootBestMove;
+
+    public Searcher() {
+        this(new Evaluator());
+    }
+
+    public Searcher(Evaluator evaluator) {
+        this(evaluator, new TranspositionTable(DEFAULT_TABLE_MEGABYTES));
+    }
+
+    public Searcher(Evaluator evaluator, TranspositionTable table) {
+        this(evaluator, table, null);
+    }
+
+    public Searcher(Evaluator evaluator,
+                    TranspositionTable table,
+                    Tablebase tablebase) {
+        this.evaluator = evaluator;
+        this.table = table;
+        this.tablebase = tablebase;
+        for (int ply = 0; ply <= MAX_PLY; ply++) {
+            moveLists[ply] = new MoveList();
+            orderScores[ply] = new int[256];
+        }
+    }
+
+    /**
+     * Searches the position for the player to move. The board is used for
+     * making and unmaking moves while searching, and is left as it was
+     * found.
+     */
+    public SearchResult search(Board board, SearchLimits limits) {
+        table.newSearch();
+        return search(board, limits, 1, new AtomicBoolean());
+    }
+
+    /**
+     * Searches starting from the given depth, and gives up as soon as the
+     * stop flag is set, even in the first iteration.
+     */
+    SearchResult search(Board board,
+                        SearchLimits limits,
+                        int firstDepth,
+                        AtomicBoolean stop) {
+        this.board = board;
+        this.stop = stop;
+        nodes = 0;
+        nextLimitCheck = CHECK_LIMITS_EVERY;
+        maxNodes = limits.getMaxNodes();
+        deadline = limits.getMaxMillis() == Long.MAX_VALUE
+                ? Long.MAX_VALUE
+                : System.nanoTime() + limits.getMaxMillis() * 1_000_000;
+        aborted = false;
+        previousBestMove = Moves.NONE;
+        for (int[] plyKillers : killers) {
+            plyKillers[0] = Moves.NONE;
+            plyKillers[1] = Moves.NONE;
+        }
+        ageHistory();
+
+        SearchResult result = new SearchResult(Moves.NONE, 0, 0, 0);
+        for (int depth = Math.min(firstDepth, limits.getMaxDepth());
+             depth <= limits.getMaxDepth();
+             depth++) {
+            rootBestMove = Moves.NONE;
+            int score = alphaBeta(depth, 0, -INFINITY, INFINITY);
+            if (aborted) {
+                break;
+            }
+
+            result = new SearchResult(rootBestMove, score, depth, nodes);
+            previousBestMove = rootBestMove;
+            if (rootBestMove == Moves.NONE || Math.abs(score) >= MATE - depth) {
+                // No moves, or a forced mate that deeper search cannot beat.
+                break;
+            }
+        }
+        return new SearchResult(result.getBestMove(),
+                result.getScore(),
+                result.getDepth(),
+                nodes);
+    }
+
+    private int alphaBeta(int depth, int ply, int alpha, int beta) {
+        if (shouldAbort(ply)) {
+            return 0;
+        }
+        if (ply > 0 && board.getRepetitions() > 1) {
+            // Scored as the draw either side can keep repeating it into.
+            nodes++;
+            return 0;
+        }
+        if (ply > 0 && tablebase != null && Long.bitCount(
+                board.getOccupancy()) <= tablebase.getMaxPieces()) {
+            Optional<TablebaseResult> result = tablebase.probe(board);
+            if (result.isPresent()) {
+                nodes++;
+                return score(result.get(), ply);
+            }
+        }
+        if (depth <= 0) {
+            return quiescence(ply, alpha, beta);
+        }
+        nodes++;
+
+        long hash = board.hash();
+        long entry = table.probe(hash);
+        int tableMove = Moves.NONE;
+        if (entry != TranspositionTable.MISS) {
+            tableMove = TranspositionTable.move(entry);
+            if (ply > 0 && TranspositionTable.depth(entry) >= depth) {
+                int score = fromTable(TranspositionTable.score(entry), ply);
+                Bound bound = TranspositionTable.bound(entry);
+                if (bound == Bound.EXACT ||
+                        bound == Bound.LOWER && score >= beta ||
+                        bound == Bound.UPPER && score <= alpha) {
+                    return score;
+                }
+            }
+        }
+
+        if (ply > 0 && board.getHalfmoveClock() >= Board.FIFTY_MOVES) {
+            // Drawn, unless the last move mated.
+            GameState state = board.getGameState();
+            return state == GameState.WHITE_WINS ||
+                    state == GameState.BLACK_WINS ? -MATE + ply : 0;
+        }
+
+        MoveList moves = moveLists[ply];
+        board.pseudoLegalMoves(moves);
+        int originalAlpha = alpha;
+        int bestMove = Moves.NONE;
+        int firstLegalMove = Moves.NONE;
+        scoreMoves(moves, ply, ply == 0 ? previousBestMove : tableMove);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, ply, i);
+            board.makeMove(move);
+            if (board.movedIntoCheck()) {
+                board.unmakeMove();
+                continue;
+            }
+            if (firstLegalMove == Moves.NONE) {
+                firstLegalMove = move;
+            }
+            int score = -alphaBeta(depth - 1, ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+
+            if (score >= beta) {
+                if (!Moves.isCapture(move) && !Moves.isPromotion(move)) {
+                    rememberCutoff(move, depth, ply);
+                }
+                table.store(hash, move, toTable(beta, ply), depth, Bound.LOWER);
+                return beta;
+            }
+            if (score > alpha) {
+                alpha = score;
+                bestMove = move;
+                if (ply == 0) {
+                    rootBestMove = move;
+                }
+            }
+        }
+
+        if (firstLegalMove == Moves.NONE) {
+            return board.isInCheck() ? -MATE + ply : 0;
+        }
+        if (ply == 0 && rootBestMove == Moves.NONE) {
+            // Every move failed low; any of them is as good as another.
+            rootBestMove = firstLegalMove;
+        }
+        table.store(hash,
+                bestMove,
+                toTable(alpha, ply),
+                depth,
+                alpha > originalAlpha ? Bound.EXACT : Bound.UPPER);
+        return alpha;
+    }
+
+    /**
+     * Searches captures and promotions only, so that the static evaluation
+     * is not taken in the middle of an exchange.
+     */
+    private int quiescence(int ply, int alpha, int beta) {
+        if (shouldAbort(ply)) {
+            return 0;
+        }
+        nodes++;
+        int standPat = evaluator.evaluate(board);
+        if (standPat >= beta || ply >= MAX_PLY) {
+            return standPat >= beta ? beta : standPat;
+        }
+        if (standPat > alpha) {
+            alpha = standPat;
+        }
+
+        MoveList moves = moveLists[ply];
+        board.pseudoLegalMoves(moves);
+        scoreMoves(moves, ply, Moves.NONE);
+        for (int i = 0; i < moves.size(); i++) {
+            int move = pickNext(moves, ply, i);
+            if (!Moves.isCapture(move) && !Moves.isPromotion(move)) {
+                // Ordering puts every capture and promotion first.
+                break;
+            }
+
+            board.makeMove(move);
+            if (board.movedIntoCheck()) {
+                board.unmakeMove();
+                continue;
+            }
+            int score = -quiescence(ply + 1, -beta, -alpha);
+            board.unmakeMove();
+            if (aborted) {
+                return 0;
+            }
+
+            if (score >= beta) {
+                return beta;
+            }
+            if (score > alpha) {
+                alpha = score;
+            }
+        }
+        return alpha;
+    }
+
+    private boolean shouldAbort(int ply) {
+        if (aborted || ply == 0) {
+            return aborted;
+        }
+        if (nodes >= nextLimitCheck) {
+            nextLimitCheck = nodes + CHECK_LIMITS_EVERY;
+            if (stop.get()) {
+                aborted = true;
+                return true;
+            }
+        } else if (nodes < maxNodes) {
+            return false;
+        }
+
+        // The first iteration always completes, so there is a move to play.
+        if (previousBestMove != Moves.NONE &&
+                (nodes >= maxNodes || System.nanoTime() >= deadline)) {
+            aborted = true;
+        }
+        return aborted;
+    }
+
+    private static int score(TablebaseResult result, int ply) {
+        switch (result.getOutcome()) {
+            case WIN:
+                return MATE - ply - result.getPliesToMate();
+            case LOSS:
+                return -MATE + ply + result.getPliesToMate();
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Mate scores are stored relative to the position rather than the root,
+     * so that they stay correct when the position is reached at another
+     * ply.
+     */
+    private static int toTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score + ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score - ply;
+        }
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score >= MATE - MAX_PLY) {
+            return score - ply;
+        }
+        if (score <= -MATE + MAX_PLY) {
+            return score + ply;
+        }
+        return score;
+    }
+
+    private void scoreMoves(MoveList moves, int ply, int firstMove) {
+        int[] scores = orderScores[ply];
+        if (scores.length < moves.size()) {
+            scores = orderScores[ply] = new int[moves.size()];
+        }
+
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            int score;
+            if (firstMove != Moves.NONE && Moves.isSameMove(move, firstMove)) {
+                score = FIRST_MOVE_SCORE;
+            } else if (Moves.isCapture(move) || Moves.isPromotion(move)) {
+                score = CAPTURE_SCORE + captureOrder(move);
+            } else if (move == killers[ply][0]) {
+                score = KILLER_SCORE + 1;
+            } else if (move == killers[ply][1]) {
+                score = KILLER_SCORE;
+            } else {
+                score = history[Moves.from(move)][Moves.to(move)];
+            }
+            scores[i] = score;
+        }
+    }
+
+    /**
+     * Most valuable victim first, then least valuable attacker, with
+     * promotions counted as winning the promoted piece.
+     */
+    private int captureOrder(int move) {
+        int victim = Moves.isEnPassant(move)
+                ? Evaluator.value(Piece.Type.PAWN)
+                : board.getPiece(Coord.fromIndex(Moves.to(move)))
+                .map(piece -> Evaluator.value(piece.getType()))
+                .orElse(0);
+        int attacker = board.getPiece(Coord.fromIndex(Moves.from(move)))
+                .map(piece -> Evaluator.value(piece.getType()))
+                .orElse(0);
+        int promotion = Moves.isPromotion(move)
+                ? Evaluator.value(Moves.promotion(move))
+                : 0;
+        return (victim + promotion) * 16 - attacker / 16;
+    }
+
+    /**
+     * Swaps the best scored of the remaining moves into place and returns
+     * it, so that moves after a cutoff are never sorted.
+     */
+    private int pickNext(MoveList moves, int ply, int index) {
+        int[] scores = orderScores[ply];
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        moves.swap(index, best);
+        int score = scores[index];
+        scores[index] = scores[best];
+        scores[best] = score;
+        return moves.get(index);
+    }
+
+    private void rememberCutoff(int move, int depth, int ply) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+
+        int[] fromHistory = history[Moves.from(move)];
+        int to = Moves.to(move);
+        fromHistory[to] += depth * depth;
+        if (fromHistory[to] >= MAX_HISTORY) {
+            ageHistory();
+        }
+    }
+
+    /**
+     * Halves the history scores, so that older cutoffs count for less and
+     * the scores stay below the killer moves.
+     */
+    private void ageHistory() {
+        for (int[] fromHistory : history) {
+            for (int to = 0; to < 64; to++) {
+                fromHistory[to] /= 2;
+            }
+        }
+    }
+}
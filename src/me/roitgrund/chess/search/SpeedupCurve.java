@@ -0,0 +1,87 @@
+package me.roitgrund.chess.search;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.search.TranspositionTable.ReplacementPolicy;
+
+/**
+ * Measures how much faster a fixed-depth search gets with more threads,
+ * for sizing hosts. Each thread count searches the same positions to the
+ * same depth with an empty table, and the time is compared with one
+ * thread.
+ *
+ * <p>Usage: {@code SpeedupCurve [depth] [--threads n] [--table mb]
+ * [--policy name]}. The thread count defaults to the number of
+ * processors.
+ */
+public class SpeedupCurve {
+    // Positions reached by replaying moves, from the opening onwards.
+    private static final String[][] POSITIONS = {
+            {},
+            {"e2", "e4", "e7", "e5", "g1", "f3", "b8", "c6", "f1", "b5"},
+            {"d2", "d4", "g8", "f6", "c2", "c4", "e7", "e6", "b1", "c3",
+                    "f8", "b4", "e2", "e3", "e8", "g8"},
+    };
+
+    public static void main(String[] args) {
+        int depth = 7;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        int megabytes = 64;
+        ReplacementPolicy policy = ReplacementPolicy.TWO_TIER;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--threads":
+                    maxThreads = Integer.parseInt(args[++i]);
+                    break;
+                case "--table":
+                    megabytes = Integer.parseInt(args[++i]);
+                    break;
+                case "--policy":
+                    policy = ReplacementPolicy.valueOf(args[++i]);
+                    break;
+                default:
+                    depth = Integer.parseInt(args[i]);
+            }
+        }
+
+        System.out.println(
+                "Threads  Time (ms)  Nodes/second  Speedup  Table hits");
+        long singleThreadNanos = 0;
+        TranspositionTable table = new TranspositionTable(megabytes, policy);
+        for (int threads = 1; threads <= maxThreads; threads++) {
+            long nanos = 0;
+            long nodes = 0;
+            long probes = 0;
+            long hits = 0;
+            try (ParallelSearcher searcher =
+                         new ParallelSearcher(threads, table)) {
+                for (String[] moves : POSITIONS) {
+                    table.clear();
+                    Board board = replay(moves);
+                    long start = System.nanoTime();
+                    nodes += searcher.search(board, SearchLimits.depth(depth))
+                            .getNodes();
+                    nanos += System.nanoTime() - start;
+                    probes += table.getProbes();
+                    hits += table.getHits();
+                }
+            }
+            if (threads == 1) {
+                singleThreadNanos = nanos;
+            }
+            System.out.printf("%7d  %9d  %12d  %7.2f  %9.1f%%%n",
+                    threads,
+                    nanos / 1_000_000,
+                    nodes * 1_000_000_000L / Math.max(nanos, 1),
+                    (double) singleThreadNanos / nanos,
+                    100.0 * hits / Math.max(probes, 1));
+        }
+    }
+
+    private static Board replay(String[] moves) {
+        Board board = new Board();
+        for (int i = 0; i < moves.length; i += 2) {
+            board.move(moves[i], moves[i + 1]);
+        }
+        return board;
+    }
+}
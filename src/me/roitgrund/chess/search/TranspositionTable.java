@@ -0,0 +1,322 @@
+package me.roitgrund.chess.search;
+
+import com.google.common.base.Preconditions;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A fixed-size table of search results keyed by position hash, shared by
+ * any number of searching threads without locks.
+ *
+ * <p>The table lives off-heap in direct buffers, so that tables of many
+ * gigabytes cost the garbage collector nothing. Each entry is two longs:
+ * the key XORed with the data, and the data. Writers store both without
+ * synchronisation, so a reader may see half of one write and half of
+ * another; the key check then fails and the entry reads as a miss, rather
+ * than returning another position's data.
+ *
+ * <p>The data packs, from the lowest bit up, the best move (20 bits), the
+ * score (20 bits, offset to be unsigned), the depth (8 bits), the bound (2
+ * bits) and the search generation (8 bits). A probe that misses returns
+ * {@link #MISS}.
+ */
+public class TranspositionTable {
+    public static final long MISS = 0;
+
+    private static final int ENTRY_BYTES = 16;
+    // 2^26 entries of 16 bytes is the largest power of two a buffer holds.
+    private static final int CHUNK_SHIFT = 26;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+    private static final VarHandle LONGS =
+            MethodHandles.byteBufferViewVarHandle(
+                    long[].class, ByteOrder.nativeOrder());
+
+    private static final int MOVE_BITS = 20;
+    private static final int SCORE_SHIFT = MOVE_BITS;
+    private static final int SCORE_BITS = 20;
+    private static final int SCORE_OFFSET = 1 << (SCORE_BITS - 1);
+    private static final int DEPTH_SHIFT = SCORE_SHIFT + SCORE_BITS;
+    private static final int BOUND_SHIFT = DEPTH_SHIFT + 8;
+    private static final int GENERATION_SHIFT = BOUND_SHIFT + 2;
+    private static final Bound[] BOUNDS = Bound.values();
+
+    private final ByteBuffer[] chunks;
+    private final ReplacementPolicy policy;
+    private final int bucketSize;
+    private final long bucketMask;
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder overwrites = new LongAdder();
+    private int generation;
+
+    public TranspositionTable(int megabytes) {
+        this(megabytes, ReplacementPolicy.TWO_TIER);
+    }
+
+    /**
+     * Creates a table using at most the given number of megabytes, rounded
+     * down to a power of two number of entries.
+     */
+    public TranspositionTable(int megabytes, ReplacementPolicy policy) {
+        Preconditions.checkArgument(megabytes >= 1,
+                "Size must be at least one megabyte.");
+        long entries = Long.highestOneBit((long) megabytes << 20) / ENTRY_BYTES;
+        int chunkEntries = (int) Math.min(entries, 1L << CHUNK_SHIFT);
+        chunks = new ByteBuffer[(int) (entries / chunkEntries)];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = ByteBuffer.allocateDirect(chunkEntries * ENTRY_BYTES)
+                    .order(ByteOrder.nativeOrder());
+        }
+        this.policy = policy;
+        bucketSize = policy.getBucketSize();
+        bucketMask = entries / bucketSize - 1;
+    }
+
+    public ReplacementPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * The number of entries the table holds.
+     */
+    public long getCapacity() {
+        return (bucketMask + 1) * bucketSize;
+    }
+
+    /**
+     * Marks the start of a new search, so that entries from earlier
+     * searches give way to new ones regardless of their depth. Call it
+     * before the searching threads start.
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xff;
+    }
+
+    /**
+     * Returns the data stored for the position, or {@link #MISS}.
+     */
+    public long probe(long hash) {
+        probes.increment();
+        long first = firstEntry(hash);
+        for (int slot = 0; slot < bucketSize; slot++) {
+            long data = readData(first + slot);
+            if ((readCheck(first + slot) ^ data) == hash && data != MISS) {
+                hits.increment();
+                return data;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Stores a result in the slot chosen by the replacement policy, which
+     * may decide to keep what is there instead.
+     */
+    public void store(long hash, int move, int score, int depth, Bound bound) {
+        long first = firstEntry(hash);
+        int slot = policy.chooseSlot(this, hash, first, depth);
+        if (slot < 0) {
+            return;
+        }
+
+        long entry = first + slot;
+        long old = readData(entry);
+        if (old != MISS && (readCheck(entry) ^ old) != hash) {
+            overwrites.increment();
+        }
+        long data = (move & ((1L << MOVE_BITS) - 1))
+                | (long) (score + SCORE_OFFSET) << SCORE_SHIFT
+                | (long) depth << DEPTH_SHIFT
+                // Never zero, so that no stored entry looks like a miss.
+                | (long) (bound.ordinal() + 1) << BOUND_SHIFT
+                | (long) generation << GENERATION_SHIFT;
+        write(entry, hash ^ data, data);
+        stores.increment();
+    }
+
+    /**
+     * Empties the table and resets its counters.
+     */
+    public void clear() {
+        byte[] zeroes = new byte[1 << 16];
+        for (ByteBuffer chunk : chunks) {
+            ByteBuffer view = chunk.duplicate();
+            view.clear();
+            while (view.hasRemaining()) {
+                view.put(zeroes, 0, Math.min(zeroes.length, view.remaining()));
+            }
+        }
+        probes.reset();
+        hits.reset();
+        stores.reset();
+        overwrites.reset();
+    }
+
+    public long getProbes() {
+        return probes.sum();
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public double getHitRate() {
+        long probeCount = probes.sum();
+        return probeCount == 0 ? 0 : (double) hits.sum() / probeCount;
+    }
+
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * The number of stores that evicted a different position.
+     */
+    public long getOverwrites() {
+        return overwrites.sum();
+    }
+
+    public static int move(long data) {
+        return (int) (data & ((1L << MOVE_BITS) - 1));
+    }
+
+    public static int score(long data) {
+        return (int) (data >>> SCORE_SHIFT & ((1L << SCORE_BITS) - 1))
+                - SCORE_OFFSET;
+    }
+
+    public static int depth(long data) {
+        return (int) (data >>> DEPTH_SHIFT & 0xff);
+    }
+
+    public static Bound bound(long data) {
+        return BOUNDS[(int) (data >>> BOUND_SHIFT & 0x3) - 1];
+    }
+
+    private static int generation(long data) {
+        return (int) (data >>> GENERATION_SHIFT & 0xff);
+    }
+
+    /**
+     * Whether the entry is empty, left over from an earlier search, or
+     * searched no deeper than the given depth.
+     */
+    private boolean isReplaceable(long entry, int depth) {
+        long data = readData(entry);
+        return data == MISS ||
+                generation(data) != generation ||
+                depth >= depth(data);
+    }
+
+    private boolean holds(long entry, long hash) {
+        long data = readData(entry);
+        return data != MISS && (readCheck(entry) ^ data) == hash;
+    }
+
+    private long firstEntry(long hash) {
+        return (hash & bucketMask) * bucketSize;
+    }
+
+    private long readCheck(long entry) {
+        return (long) LONGS.getOpaque(chunk(entry), offset(entry));
+    }
+
+    private long readData(long entry) {
+        return (long) LONGS.getOpaque(chunk(entry), offset(entry) + 8);
+    }
+
+    private void write(long entry, long check, long data) {
+        ByteBuffer chunk = chunk(entry);
+        int offset = offset(entry);
+        LONGS.setOpaque(chunk, offset, check);
+        LONGS.setOpaque(chunk, offset + 8, data);
+    }
+
+    private ByteBuffer chunk(long entry) {
+        return chunks[(int) (entry >>> CHUNK_SHIFT)];
+    }
+
+    private static int offset(long entry) {
+        return (int) (entry & CHUNK_MASK) * ENTRY_BYTES;
+    }
+
+    /**
+     * How a stored score relates to the true score of the position.
+     */
+    public enum Bound {
+        EXACT,
+        /** The search failed high, so the true score is at least this. */
+        LOWER,
+        /** The search failed low, so the true score is at most this. */
+        UPPER
+    }
+
+    /**
+     * Decides which entry a new result goes in, trading keeping expensive
+     * deep results against keeping recent ones.
+     */
+    public enum ReplacementPolicy {
+        /** One entry per position slot, always overwritten. */
+        ALWAYS_REPLACE(1) {
+            @Override
+            int chooseSlot(TranspositionTable table,
+                           long hash,
+                           long first,
+                           int depth) {
+                return 0;
+            }
+        },
+        /**
+         * One entry per slot, kept unless the new result is at least as
+         * deep or the old one is from an earlier search.
+         */
+        DEPTH_PREFERRED(1) {
+            @Override
+            int chooseSlot(TranspositionTable table,
+                           long hash,
+                           long first,
+                           int depth) {
+                return table.isReplaceable(first, depth) ? 0 : -1;
+            }
+        },
+        /**
+         * Two entries per bucket: a depth-preferred one, and one that is
+         * always replaced with whatever the first turned away.
+         */
+        TWO_TIER(2) {
+            @Override
+            int chooseSlot(TranspositionTable table,
+                           long hash,
+                           long first,
+                           int depth) {
+                if (table.isReplaceable(first, depth)) {
+                    return 0;
+                }
+                // A shallower result for the position in the first slot
+                // adds nothing.
+                return table.holds(first, hash) ? -1 : 1;
+            }
+        };
+
+        private final int bucketSize;
+
+        ReplacementPolicy(int bucketSize) {
+            this.bucketSize = bucketSize;
+        }
+
+        int getBucketSize() {
+            return bucketSize;
+        }
+
+        /**
+         * Returns the slot of the bucket to write, or -1 to drop the result.
+         */
+        abstract int chooseSlot(
+                TranspositionTable table, long hash, long first, int depth);
+    }
+}
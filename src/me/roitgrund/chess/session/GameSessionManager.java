@@ -0,0 +1,246 @@
+package me.roitgrund.chess.session;
+
+import com.google.common.base.Preconditions;
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Board.GameState;
+import me.roitgrund.chess.game.BoardSnapshot;
+import me.roitgrund.chess.game.Coord;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Hosts many live games at once, each owning its {@link Board}, so that
+ * callers never touch a board from two threads.
+ *
+ * <p>Each game has a mailbox of work for its board. Sending work to an idle
+ * game schedules it on a shared pool of threads, which runs the game's work
+ * in the order it was sent, one piece at a time, then lets the thread go to
+ * another game. Games thus never wait on each other's locks, and a game
+ * only takes a thread while it has work. A busy game gives way to others
+ * after a batch of work.
+ *
+ * <p>Each game also publishes a {@link BoardSnapshot} after any work that
+ * changes its position, which readers such as spectators can take at any
+ * time without waiting for the game's work.
+ */
+public class GameSessionManager implements AutoCloseable {
+    // Work a game runs before giving its thread to another game.
+    private static final int BATCH = 32;
+
+    private final ExecutorService threads;
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextGameId = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder illegalMoves = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+    // Moves by the bit length of their latency in nanoseconds.
+    private final AtomicLongArray latencyCounts =
+            new AtomicLongArray(Long.SIZE);
+
+    public GameSessionManager() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public GameSessionManager(int threads) {
+        Preconditions.checkArgument(threads >= 1, "Need at least one thread.");
+        this.threads = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "game-session");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts a game from the initial position and returns its id.
+     */
+    public long newGame() {
+        return newGame(new Board());
+    }
+
+    /**
+     * Starts a game from the given position and returns its id. The
+     * manager owns the board from then on.
+     */
+    public long newGame(Board board) {
+        long gameId = nextGameId.getAndIncrement();
+        sessions.put(gameId, new Session(board));
+        return gameId;
+    }
+
+    /**
+     * Forgets the game, after any work already sent to it. Returns whether
+     * there was such a game.
+     */
+    public boolean endGame(long gameId) {
+        return sessions.remove(gameId) != null;
+    }
+
+    public boolean hasGame(long gameId) {
+        return sessions.containsKey(gameId);
+    }
+
+    public int getGames() {
+        return sessions.size();
+    }
+
+    /**
+     * The position after the last work that changed it, without waiting
+     * for work still to be done.
+     *
+     * @throws IllegalArgumentException if there is no such game
+     */
+    public BoardSnapshot getSnapshot(long gameId) {
+        Session session = sessions.get(gameId);
+        Preconditions.checkArgument(session != null, "No game %s", gameId);
+        return session.snapshot;
+    }
+
+    /**
+     * Plays the move if it is legal, as {@link Board#move(Coord, Coord)}
+     * does, once the game's earlier work is done.
+     *
+     * @throws IllegalArgumentException if there is no such game
+     */
+    public CompletableFuture<GameState> move(
+            long gameId, Coord from, Coord to) {
+        return move(gameId, board -> board.move(from, to));
+    }
+
+    /**
+     * Plays a move encoded as in {@link me.roitgrund.chess.game.Moves}, as
+     * {@link Board#move(int)} does.
+     */
+    public CompletableFuture<GameState> move(long gameId, int move) {
+        return move(gameId, board -> board.move(move));
+    }
+
+    /**
+     * Runs the function on the game's board once its earlier work is done,
+     * and completes with its result. The function must not keep the board.
+     *
+     * @throws IllegalArgumentException if there is no such game
+     */
+    public <T> CompletableFuture<T> submit(
+            long gameId, Function<Board, T> function) {
+        Session session = sessions.get(gameId);
+        Preconditions.checkArgument(session != null, "No game %s", gameId);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        session.send(() -> {
+            T value;
+            try {
+                value = function.apply(session.board);
+            } catch (Throwable t) {
+                session.publish();
+                result.completeExceptionally(t);
+                return;
+            }
+            // Before completing, so that whoever waits sees the change.
+            session.publish();
+            result.complete(value);
+        });
+        return result;
+    }
+
+    /**
+     * The counts so far, from when the manager was created.
+     */
+    public SessionStats getStats() {
+        long[] counts = new long[latencyCounts.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = latencyCounts.get(i);
+        }
+        return new SessionStats(sessions.size(),
+                moves.sum(),
+                illegalMoves.sum(),
+                System.nanoTime() - startNanos,
+                latencyNanos.sum(),
+                counts);
+    }
+
+    /**
+     * Stops the threads. Work not yet run is dropped and its results never
+     * complete.
+     */
+    @Override
+    public void close() {
+        threads.shutdownNow();
+    }
+
+    private CompletableFuture<GameState> move(
+            long gameId, Function<Board, GameState> play) {
+        long sent = System.nanoTime();
+        return submit(gameId, board -> {
+            GameState state = play.apply(board);
+            long nanos = System.nanoTime() - sent;
+            moves.increment();
+            if (state == GameState.ILLEGAL_MOVE) {
+                illegalMoves.increment();
+            }
+            latencyNanos.add(nanos);
+            latencyCounts.incrementAndGet(
+                    Long.SIZE - Long.numberOfLeadingZeros(nanos));
+            return state;
+        });
+    }
+
+    /**
+     * A game's board and the work waiting for it. Only the thread that set
+     * {@code scheduled} runs the work, so the board has one user at a time.
+     */
+    private final class Session implements Runnable {
+        private final Board board;
+        private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile BoardSnapshot snapshot;
+
+        Session(Board board) {
+            this.board = board;
+            snapshot = board.snapshot();
+        }
+
+        void publish() {
+            if (board.hash() != snapshot.hash()) {
+                snapshot = board.snapshot();
+            }
+        }
+
+        void send(Runnable work) {
+            mailbox.add(work);
+            schedule();
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < BATCH; i++) {
+                Runnable work = mailbox.poll();
+                if (work == null) {
+                    break;
+                }
+                work.run();
+            }
+            scheduled.set(false);
+            // Work sent while this thread was finishing up.
+            if (!mailbox.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                threads.execute(this);
+            }
+        }
+    }
+}
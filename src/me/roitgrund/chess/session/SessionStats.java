@@ -0,0 +1,96 @@
+package me.roitgrund.chess.session;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * Counts of the moves a {@link GameSessionManager} has handled, and how
+ * long they took from being sent to being played.
+ */
+public class SessionStats {
+    private final int games;
+    private final long moves;
+    private final long illegalMoves;
+    private final long nanos;
+    private final long latencyNanos;
+    private final long[] latencyCounts;
+
+    SessionStats(int games,
+                 long moves,
+                 long illegalMoves,
+                 long nanos,
+                 long latencyNanos,
+                 long[] latencyCounts) {
+        this.games = games;
+        this.moves = moves;
+        this.illegalMoves = illegalMoves;
+        this.nanos = nanos;
+        this.latencyNanos = latencyNanos;
+        this.latencyCounts = latencyCounts;
+    }
+
+    /**
+     * The number of games being hosted.
+     */
+    public int getGames() {
+        return games;
+    }
+
+    /**
+     * The number of moves handled, legal or not.
+     */
+    public long getMoves() {
+        return moves;
+    }
+
+    public long getIllegalMoves() {
+        return illegalMoves;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    public long getMovesPerSecond() {
+        return nanos == 0 ? 0 : moves * 1_000_000_000L / nanos;
+    }
+
+    public long getMeanLatencyNanos() {
+        return moves == 0 ? 0 : latencyNanos / moves;
+    }
+
+    /**
+     * A latency that the given fraction of moves took no longer than, such
+     * as 0.99 for the 99th percentile. It is rounded up to a power of two,
+     * so it is at most twice the true figure.
+     */
+    public long getLatencyNanos(double fraction) {
+        Preconditions.checkArgument(fraction >= 0 && fraction <= 1,
+                "Fraction %s is not between 0 and 1", fraction);
+        long total = 0;
+        for (long count : latencyCounts) {
+            total += count;
+        }
+        long wanted = (long) Math.ceil(fraction * total);
+        long seen = 0;
+        for (int bits = 0; bits < latencyCounts.length; bits++) {
+            seen += latencyCounts[bits];
+            if (seen >= wanted && seen > 0) {
+                return bits == Long.SIZE - 1 ? Long.MAX_VALUE : 1L << bits;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Games: %d%nMoves: %d%nIllegal moves: %d%n"
+                        + "Moves/second: %d%nMean latency: %d us%n"
+                        + "99th percentile latency: %d us",
+                games,
+                moves,
+                illegalMoves,
+                getMovesPerSecond(),
+                getMeanLatencyNanos() / 1000,
+                getLatencyNanos(0.99) / 1000);
+    }
+}
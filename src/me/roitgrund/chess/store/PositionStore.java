@@ -0,0 +1,144 @@
+package me.roitgrund.chess.store;
+
+import com.google.common.base.Preconditions;
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.PositionCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append-only file of positions, each {@link PositionCodec#BYTES} bytes,
+ * read and written through memory maps so that any position can be read by
+ * its index without reading the ones before it.
+ *
+ * <p>The file is mapped a chunk at a time, which grows it to a whole number
+ * of chunks while it is open; {@link #close()} cuts it back. Should the
+ * process die first, the zero records left at the end are dropped when the
+ * file is next opened, since no encoded position starts with zeros.
+ *
+ * <p>Positions may be read from several threads at once, but not while
+ * another thread is appending.
+ */
+public class PositionStore implements Closeable {
+    // 64 MB of positions.
+    private static final int CHUNK_POSITIONS = 1 << 21;
+
+    private final FileChannel channel;
+    private final int chunkPositions;
+    private final List<MappedByteBuffer> chunks = new ArrayList<>();
+    private long size;
+
+    PositionStore(FileChannel channel, int chunkPositions)
+            throws IOException {
+        Preconditions.checkArgument(chunkPositions > 0 &&
+                (long) chunkPositions * PositionCodec.BYTES <=
+                        Integer.MAX_VALUE);
+        this.channel = channel;
+        this.chunkPositions = chunkPositions;
+
+        long length = channel.size();
+        Preconditions.checkArgument(length % PositionCodec.BYTES == 0,
+                "Position file length %s is not a multiple of %s",
+                length, PositionCodec.BYTES);
+        size = length / PositionCodec.BYTES;
+        while (size > 0 && isEmpty(size - 1)) {
+            size--;
+        }
+    }
+
+    /**
+     * Opens the file, creating it if it does not exist.
+     */
+    public static PositionStore open(Path path) throws IOException {
+        return new PositionStore(FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE), CHUNK_POSITIONS);
+    }
+
+    /**
+     * The number of positions in the file.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Adds the position to the end of the file and returns its index.
+     */
+    public long append(Board board) throws IOException {
+        long index = size;
+        PositionCodec.encode(board, chunk(index), offset(index));
+        size++;
+        return index;
+    }
+
+    public Board get(long index) throws IOException {
+        return get(index, Board.Representation.BITBOARD);
+    }
+
+    /**
+     * Reads the position at the index, which must be less than
+     * {@link #size()}.
+     *
+     * @throws IllegalArgumentException if the record there is not a position
+     *                                  that could have been reached
+     */
+    public Board get(long index, Board.Representation representation)
+            throws IOException {
+        Preconditions.checkArgument(index >= 0 && index < size,
+                "Index %s past the %s positions", index, size);
+        return PositionCodec.decode(chunk(index), offset(index),
+                representation);
+    }
+
+    /**
+     * Writes appended positions through to the disk.
+     */
+    public void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+
+    /**
+     * Writes the positions through to the disk and cuts the file back to
+     * their length.
+     */
+    @Override
+    public void close() throws IOException {
+        force();
+        chunks.clear();
+        try {
+            channel.truncate(size * PositionCodec.BYTES);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private boolean isEmpty(long index) throws IOException {
+        return chunk(index).getLong(offset(index)) == 0;
+    }
+
+    private MappedByteBuffer chunk(long index) throws IOException {
+        int chunk = Math.toIntExact(index / chunkPositions);
+        long chunkBytes = (long) chunkPositions * PositionCodec.BYTES;
+        while (chunks.size() <= chunk) {
+            chunks.add(channel.map(FileChannel.MapMode.READ_WRITE,
+                    chunks.size() * chunkBytes,
+                    chunkBytes));
+        }
+        return chunks.get(chunk);
+    }
+
+    private int offset(long index) {
+        return (int) (index % chunkPositions) * PositionCodec.BYTES;
+    }
+}
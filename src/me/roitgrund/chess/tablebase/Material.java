@@ -0,0 +1,438 @@
+package me.roitgrund.chess.tablebase;
+
+import com.google.common.base.Preconditions;
+import me.roitgrund.chess.game.Attacks;
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Piece;
+import me.roitgrund.chess.game.Piece.Color;
+import me.roitgrund.chess.game.Piece.Type;
+import me.roitgrund.chess.game.PositionCodec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static me.roitgrund.chess.game.Piece.Color.BLACK;
+import static me.roitgrund.chess.game.Piece.Color.WHITE;
+import static me.roitgrund.chess.game.Piece.Type.BISHOP;
+import static me.roitgrund.chess.game.Piece.Type.KING;
+import static me.roitgrund.chess.game.Piece.Type.KNIGHT;
+import static me.roitgrund.chess.game.Piece.Type.PAWN;
+import static me.roitgrund.chess.game.Piece.Type.QUEEN;
+import static me.roitgrund.chess.game.Piece.Type.ROOK;
+
+/**
+ * The pieces of an endgame, such as KRPvKR, and the numbering of its
+ * positions in a table.
+ *
+ * <p>Pieces are kept in a fixed order, each in a slot: the white king, the
+ * black king, then the other white pieces and the other black pieces, each
+ * queens first and pawns last. A position's index is built from the square
+ * of each slot and the side to move. Mirroring the board from left to right
+ * changes nothing without castling, so only positions with the white king
+ * on files a to d are numbered, and the others are mirrored first.
+ */
+public final class Material {
+    public static final int MAX_PIECES = 5;
+
+    // The order of the pieces besides the king.
+    private static final Type[] ORDER = {QUEEN, ROOK, BISHOP, KNIGHT, PAWN};
+    private static final Type[] PROMOTIONS = {QUEEN, ROOK, BISHOP, KNIGHT};
+    private static final int[] TYPE_CODES = typeCodes();
+    private static final int TYPES = Type.values().length;
+
+    private final String name;
+    private final Piece[] pieces;
+    private final int key;
+    private final int size;
+
+    private Material(Piece[] pieces) {
+        this.pieces = pieces;
+        this.key = key(pieces);
+        this.name = describe();
+        this.size = 2 * 32 << 6 * (pieces.length - 1);
+    }
+
+    /**
+     * Reads names such as "KQvK" or "KRPvKR", with the white pieces before
+     * the 'v' and the black pieces after it, in any order.
+     *
+     * @throws IllegalArgumentException if the name is malformed or has more
+     *                                  than {@value #MAX_PIECES} pieces
+     */
+    public static Material of(String name) {
+        int split = name.indexOf('v');
+        Preconditions.checkArgument(split > 0,
+                "Endgame %s needs a 'v' between the sides", name);
+        List<Piece> white = parseSide(name, name.substring(0, split), WHITE);
+        List<Piece> black = parseSide(name, name.substring(split + 1), BLACK);
+        Preconditions.checkArgument(
+                white.size() + black.size() <= MAX_PIECES,
+                "Endgame %s has more than %s pieces", name, MAX_PIECES);
+
+        List<Piece> pieces = new ArrayList<>();
+        pieces.add(Piece.of(KING, WHITE));
+        pieces.add(Piece.of(KING, BLACK));
+        for (Type type : ORDER) {
+            for (Piece piece : white) {
+                if (piece.getType() == type) {
+                    pieces.add(piece);
+                }
+            }
+        }
+        for (Type type : ORDER) {
+            for (Piece piece : black) {
+                if (piece.getType() == type) {
+                    pieces.add(piece);
+                }
+            }
+        }
+        return new Material(pieces.toArray(new Piece[0]));
+    }
+
+    /**
+     * The name, such as "KRPvKR", with each side's pieces in slot order.
+     */
+    public String getName() {
+        return name;
+    }
+
+    public int getPieceCount() {
+        return pieces.length;
+    }
+
+    /**
+     * The number of indices, including ones that are not positions.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * The endgames a capture or promotion can lead to.
+     */
+    public Set<Material> successors() {
+        Set<Material> successors = new LinkedHashSet<>();
+        for (int i = 2; i < pieces.length; i++) {
+            successors.add(new Material(without(pieces, i)));
+            if (pieces[i].getType() == PAWN) {
+                for (Type promotion : PROMOTIONS) {
+                    successors.add(promote(i, promotion));
+                    // Promoting by capturing.
+                    for (int j = 2; j < pieces.length; j++) {
+                        if (pieces[j].getColor() != pieces[i].getColor()) {
+                            Material promoted = promote(i, promotion);
+                            successors.add(new Material(without(
+                                    promoted.pieces,
+                                    promoted.slotOf(pieces[j]))));
+                        }
+                    }
+                }
+            }
+        }
+        return successors;
+    }
+
+    Piece getPiece(int slot) {
+        return pieces[slot];
+    }
+
+    /**
+     * Identifies the material by its piece counts.
+     */
+    int getKey() {
+        return key;
+    }
+
+    /**
+     * The key of the material on the board.
+     */
+    static int key(Board board) {
+        int key = 0;
+        for (Color color : Color.values()) {
+            for (Type type : ORDER) {
+                key += Long.bitCount(board.getPieces(type, color)) <<
+                        3 * (color.ordinal() * ORDER.length +
+                                TYPE_CODES[type.ordinal()]);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * The index of the position on the board, which must have this
+     * material. Pieces of the same kind fill their slots in ascending
+     * order of square.
+     */
+    int index(Board board) {
+        long whiteKing = board.getPieces(KING, WHITE);
+        int mirror = (Long.numberOfTrailingZeros(whiteKing) & 7) >= 4 ? 7 : 0;
+        long seen = 0;
+        int index = 0;
+        for (int slot = 0; slot < pieces.length; slot++) {
+            Piece piece = pieces[slot];
+            long remaining = board.getPieces(piece.getType(), piece.getColor())
+                    & ~seen;
+            int square = Long.numberOfTrailingZeros(remaining);
+            seen |= 1L << square;
+            square ^= mirror;
+            index = slot == 0
+                    ? (square >>> 3) * 4 + (square & 7)
+                    : index << 6 | square;
+        }
+        return index << 1 | (board.getTurn() == WHITE ? 1 : 0);
+    }
+
+    /**
+     * The index of the position with the pieces on the squares.
+     */
+    int index(int[] squares, boolean whiteToMove) {
+        int mirror = (squares[0] & 7) >= 4 ? 7 : 0;
+        int whiteKing = squares[0] ^ mirror;
+        int index = (whiteKing >>> 3) * 4 + (whiteKing & 7);
+        for (int slot = 1; slot < pieces.length; slot++) {
+            index = index << 6 | squares[slot] ^ mirror;
+        }
+        return index << 1 | (whiteToMove ? 1 : 0);
+    }
+
+    /**
+     * Fills in the squares of the position with the index, and returns
+     * whether white is to move.
+     */
+    boolean squares(int index, int[] squares) {
+        boolean whiteToMove = (index & 1) == 1;
+        index >>>= 1;
+        for (int slot = pieces.length - 1; slot > 0; slot--) {
+            squares[slot] = index & 63;
+            index >>>= 6;
+        }
+        squares[0] = (index >>> 2) * 8 + (index & 3);
+        return whiteToMove;
+    }
+
+    /**
+     * Whether the squares hold a position that could be reached in a game,
+     * apart from the number of moves needed: no two pieces share a square,
+     * no pawn is on the first or last row and the player not to move is not
+     * in check.
+     */
+    boolean isValid(int[] squares, boolean whiteToMove) {
+        long occupancy = 0;
+        for (int slot = 0; slot < pieces.length; slot++) {
+            int square = squares[slot];
+            if ((occupancy & 1L << square) != 0 ||
+                    pieces[slot].getType() == PAWN &&
+                            (square < 8 || square >= 56)) {
+                return false;
+            }
+            occupancy |= 1L << square;
+        }
+        Color toMove = whiteToMove ? WHITE : BLACK;
+        return !isAttacked(squares[toMove == WHITE ? 1 : 0],
+                toMove,
+                squares,
+                occupancy);
+    }
+
+    /**
+     * Whether the player to move is in check.
+     */
+    boolean isInCheck(int[] squares, boolean whiteToMove) {
+        long occupancy = 0;
+        for (int slot = 0; slot < pieces.length; slot++) {
+            occupancy |= 1L << squares[slot];
+        }
+        return isAttacked(squares[whiteToMove ? 0 : 1],
+                whiteToMove ? BLACK : WHITE,
+                squares,
+                occupancy);
+    }
+
+    /**
+     * Creates the board for a valid position, through a big-endian scratch
+     * buffer of {@link PositionCodec#BYTES} bytes.
+     */
+    Board toBoard(int[] squares, boolean whiteToMove, ByteBuffer scratch) {
+        long occupancy = 0;
+        for (int slot = 0; slot < pieces.length; slot++) {
+            occupancy |= 1L << squares[slot];
+        }
+        long codes = 0;
+        for (int slot = 0; slot < pieces.length; slot++) {
+            int rank = Long.bitCount(occupancy & ((1L << squares[slot]) - 1));
+            Piece piece = pieces[slot];
+            long code = piece.getColor().ordinal() * TYPES +
+                    piece.getType().ordinal();
+            codes |= code << (60 - 4 * rank);
+        }
+        scratch.putLong(0, occupancy)
+                .putLong(8, codes)
+                .putLong(16, 0)
+                .putLong(24, 0)
+                .put(24, (byte) (whiteToMove ? 1 : 0))
+                .put(28, (byte) 1);
+        return PositionCodec.decode(scratch, 0, Board.Representation.BITBOARD);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        return key == ((Material) o).key;
+    }
+
+    @Override
+    public int hashCode() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    private boolean isAttacked(
+            int square, Color by, int[] squares, long occupancy) {
+        for (int slot = 0; slot < pieces.length; slot++) {
+            Piece piece = pieces[slot];
+            if (piece.getColor() != by) {
+                continue;
+            }
+            int from = squares[slot];
+            long attacks;
+            switch (piece.getType()) {
+                case PAWN:
+                    attacks = Attacks.pawn(by, from);
+                    break;
+                case KNIGHT:
+                    attacks = Attacks.knight(from);
+                    break;
+                case BISHOP:
+                    attacks = Attacks.bishop(from, occupancy);
+                    break;
+                case ROOK:
+                    attacks = Attacks.rook(from, occupancy);
+                    break;
+                case QUEEN:
+                    attacks = Attacks.queen(from, occupancy);
+                    break;
+                default:
+                    attacks = Attacks.king(from);
+                    break;
+            }
+            if ((attacks & 1L << square) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int slotOf(Piece piece) {
+        for (int slot = 2; slot < pieces.length; slot++) {
+            if (pieces[slot].equals(piece)) {
+                return slot;
+            }
+        }
+        throw new IllegalArgumentException(piece + " not in " + name);
+    }
+
+    private Material promote(int slot, Type promotion) {
+        Piece[] promoted = pieces.clone();
+        promoted[slot] = Piece.of(promotion, pieces[slot].getColor());
+        return of(new Material(promoted).getName());
+    }
+
+    /**
+     * Names the pieces, which need not be in order.
+     */
+    private String describe() {
+        StringBuilder white = new StringBuilder("K");
+        StringBuilder black = new StringBuilder("K");
+        for (int slot = 2; slot < pieces.length; slot++) {
+            (pieces[slot].getColor() == WHITE ? white : black)
+                    .append(letter(pieces[slot].getType()));
+        }
+        return white + "v" + black;
+    }
+
+    private static Piece[] without(Piece[] pieces, int slot) {
+        Piece[] fewer = new Piece[pieces.length - 1];
+        System.arraycopy(pieces, 0, fewer, 0, slot);
+        System.arraycopy(pieces, slot + 1, fewer, slot, fewer.length - slot);
+        return fewer;
+    }
+
+    private static List<Piece> parseSide(
+            String name, String side, Color color) {
+        List<Piece> pieces = new ArrayList<>();
+        boolean king = false;
+        for (int i = 0; i < side.length(); i++) {
+            Type type = fromLetter(side.charAt(i));
+            Preconditions.checkArgument(type != null,
+                    "Bad piece %s in endgame %s", side.charAt(i), name);
+            if (type == KING) {
+                Preconditions.checkArgument(!king,
+                        "Endgame %s has two %s kings", name, color);
+                king = true;
+            } else {
+                pieces.add(Piece.of(type, color));
+            }
+        }
+        Preconditions.checkArgument(king,
+                "Endgame %s has no %s king", name, color);
+        pieces.add(0, Piece.of(KING, color));
+        return pieces;
+    }
+
+    private static Type fromLetter(char letter) {
+        switch (letter) {
+            case 'K':
+                return KING;
+            case 'Q':
+                return QUEEN;
+            case 'R':
+                return ROOK;
+            case 'B':
+                return BISHOP;
+            case 'N':
+                return KNIGHT;
+            case 'P':
+                return PAWN;
+            default:
+                return null;
+        }
+    }
+
+    private static char letter(Type type) {
+        return type == KNIGHT ? 'N' : type.getLetter();
+    }
+
+    private static int key(Piece[] pieces) {
+        int key = 0;
+        for (Piece piece : pieces) {
+            if (piece.getType() != KING) {
+                key += 1 << 3 * (piece.getColor().ordinal() * ORDER.length +
+                        TYPE_CODES[piece.getType().ordinal()]);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * The position of each type in {@link #ORDER}, by ordinal.
+     */
+    private static int[] typeCodes() {
+        int[] codes = new int[Type.values().length];
+        for (int i = 0; i < ORDER.length; i++) {
+            codes[ORDER[i].ordinal()] = i;
+        }
+        return codes;
+    }
+}
@@ -0,0 +1,179 @@
+package me.roitgrund.chess.tablebase;
+
+import com.google.common.base.Preconditions;
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Castle;
+import me.roitgrund.chess.game.Coord;
+import me.roitgrund.chess.game.Piece;
+import me.roitgrund.chess.tablebase.TablebaseResult.Outcome;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Perfect play for endgames of a few pieces, read from tables made by
+ * {@link TablebaseGenerator} through memory maps.
+ *
+ * <p>A table holds a byte for each index of its {@link Material}: 0 for a
+ * draw, {@link #ILLEGAL} for an index that is not a position, and
+ * otherwise the number of plies to mate plus one. The player to move wins
+ * if the number of plies is odd and loses if it is even.
+ *
+ * <p>Tables know nothing of castling, and ignore en passant captures
+ * except that positions where one is possible are not probed. Probes
+ * allocate nothing and may be made from several threads at once.
+ */
+public class Tablebase {
+    static final int DRAW = 0;
+    static final int ILLEGAL = 0xFF;
+    static final int MAX_VALUE = ILLEGAL - 1;
+    static final String EXTENSION = ".tb";
+
+    private static final Castle[] CASTLES = Castle.values();
+    private static final Optional<TablebaseResult>[] RESULTS = results();
+
+    private final Path directory;
+    private volatile Table[] tables = new Table[0];
+    private volatile int maxPieces;
+
+    /**
+     * Opens every table in the directory.
+     */
+    public Tablebase(Path directory) throws IOException {
+        this.directory = directory;
+        try (DirectoryStream<Path> files =
+                     Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                load(Material.of(name.substring(
+                        0, name.length() - EXTENSION.length())));
+            }
+        }
+    }
+
+    /**
+     * The most pieces, kings included, of any table.
+     */
+    public int getMaxPieces() {
+        return maxPieces;
+    }
+
+    public boolean hasTable(Material material) {
+        return find(material.getKey()) != null;
+    }
+
+    /**
+     * Looks up the position, if there is a table for its pieces and the
+     * position has no castling rights or en passant captures.
+     */
+    public Optional<TablebaseResult> probe(Board board) {
+        int value = value(board);
+        return value < 0 ? Optional.empty() : RESULTS[value];
+    }
+
+    /**
+     * The stored value for the position, or -1 if it is not in a table.
+     */
+    int value(Board board) {
+        long occupancy = board.getOccupancy();
+        if (Long.bitCount(occupancy) > maxPieces ||
+                hasCastlingRights(board) ||
+                canCaptureEnPassant(board)) {
+            return -1;
+        }
+        Table table = find(Material.key(board));
+        if (table == null) {
+            return -1;
+        }
+        int value = table.values.get(table.material.index(board)) & 0xFF;
+        return value == ILLEGAL ? -1 : value;
+    }
+
+    /**
+     * Maps the table for the material, once it has been written.
+     */
+    synchronized void load(Material material) throws IOException {
+        Path path = path(directory, material);
+        ByteBuffer values;
+        try (FileChannel channel =
+                     FileChannel.open(path, StandardOpenOption.READ)) {
+            Preconditions.checkArgument(channel.size() == material.size(),
+                    "Table %s should have %s bytes", path, material.size());
+            values = channel.map(
+                    FileChannel.MapMode.READ_ONLY, 0, material.size());
+        }
+        Table[] loaded = Arrays.copyOf(tables, tables.length + 1);
+        loaded[tables.length] = new Table(material, values);
+        tables = loaded;
+        maxPieces = Math.max(maxPieces, material.getPieceCount());
+    }
+
+    static Path path(Path directory, Material material) {
+        return directory.resolve(material.getName() + EXTENSION);
+    }
+
+    private Table find(int key) {
+        for (Table table : tables) {
+            if (table.material.getKey() == key) {
+                return table;
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasCastlingRights(Board board) {
+        for (Castle castle : CASTLES) {
+            if (board.hasCastlingRight(castle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether a pawn of the player to move stands next to a pawn that has
+     * just moved two squares.
+     */
+    private static boolean canCaptureEnPassant(Board board) {
+        Piece.Color turn = board.getTurn();
+        int row = turn == Piece.Color.WHITE ? 4 : 3;
+        long pawns = board.getPieces(Piece.Type.PAWN, turn);
+        for (int col = 0; col < 8; col++) {
+            if (board.canEnPassant(Coord.of(row, col))) {
+                long beside = (col > 0 ? 1L << row * 8 + col - 1 : 0) |
+                        (col < 7 ? 1L << row * 8 + col + 1 : 0);
+                return (pawns & beside) != 0;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Optional<TablebaseResult>[] results() {
+        Optional<TablebaseResult>[] results = new Optional[MAX_VALUE + 1];
+        results[DRAW] = Optional.of(new TablebaseResult(Outcome.DRAW, 0));
+        for (int value = 1; value <= MAX_VALUE; value++) {
+            int plies = value - 1;
+            results[value] = Optional.of(new TablebaseResult(
+                    plies % 2 == 1 ? Outcome.WIN : Outcome.LOSS, plies));
+        }
+        return results;
+    }
+
+    private static class Table {
+        private final Material material;
+        private final ByteBuffer values;
+
+        Table(Material material, ByteBuffer values) {
+            this.material = material;
+            this.values = values;
+        }
+    }
+}
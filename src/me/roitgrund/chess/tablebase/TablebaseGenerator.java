@@ -0,0 +1,475 @@
+package me.roitgrund.chess.tablebase;
+
+import com.google.common.base.Preconditions;
+import me.roitgrund.chess.game.Attacks;
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.MoveList;
+import me.roitgrund.chess.game.Moves;
+import me.roitgrund.chess.game.Piece;
+import me.roitgrund.chess.game.PositionCodec;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static me.roitgrund.chess.game.Piece.Color.WHITE;
+
+/**
+ * Solves endgames by retrograde analysis and writes their tables for
+ * {@link Tablebase}.
+ *
+ * <p>Every position is first looked at once: mates are marked lost, and
+ * moves that capture or promote are looked up in the tables of the
+ * endgames they lead to, which are generated first. Results then spread
+ * backwards a ply at a time. Each position lost in n plies makes every
+ * position that can move into it won in n + 1; each position won in n
+ * plies takes one off the count of undecided moves of the positions that
+ * can move into it, and a position whose moves all lose is lost in one
+ * more ply than its longest loss. Positions left undecided are draws.
+ *
+ * <p>Each pass over the table is split between threads. Memory use is
+ * four bytes per index; see {@link Material#size()}.
+ */
+public class TablebaseGenerator {
+    private static final VarHandle BYTES =
+            MethodHandles.arrayElementVarHandle(byte[].class);
+    private static final int UNKNOWN = Tablebase.DRAW;
+    private static final int ILLEGAL = Tablebase.ILLEGAL;
+    // Marks an exit to a draw, after which a position can no longer lose.
+    private static final int DRAWN_EXIT = 0xFF;
+    private static final int CHUNK = 1 << 14;
+
+    private final Path directory;
+    private final int threads;
+    private final Tablebase tablebase;
+
+    public TablebaseGenerator(Path directory, int threads) throws IOException {
+        Preconditions.checkArgument(threads >= 1, "Need at least one thread.");
+        this.directory = directory;
+        this.threads = threads;
+        tablebase = new Tablebase(directory);
+    }
+
+    public Tablebase getTablebase() {
+        return tablebase;
+    }
+
+    /**
+     * Writes the table for the material, and first those of every endgame
+     * it can turn into, unless they are already in the directory.
+     */
+    public void generate(Material material)
+            throws IOException, InterruptedException {
+        if (tablebase.hasTable(material)) {
+            return;
+        }
+        for (Material successor : material.successors()) {
+            generate(successor);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            new Solver(material, pool).solve();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Usage: {@code TablebaseGenerator directory KQvK KRPvKR... [--threads
+     * n]}. Generates the tables and prints how long each took.
+     */
+    public static void main(String[] args) throws Exception {
+        Preconditions.checkArgument(args.length >= 2,
+                "Usage: TablebaseGenerator directory endgame...");
+        Path directory = Path.of(args[0]);
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Material> endgames = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                endgames.add(Material.of(args[i]));
+            }
+        }
+
+        Files.createDirectories(directory);
+        TablebaseGenerator generator =
+                new TablebaseGenerator(directory, threads);
+        for (Material endgame : endgames) {
+            long start = System.nanoTime();
+            generator.generate(endgame);
+            System.out.printf("%s: %d ms%n",
+                    endgame,
+                    (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    /**
+     * The work of generating one table.
+     */
+    private class Solver {
+        private final Material material;
+        private final ExecutorService pool;
+        private final byte[] values;
+        // In-table moves whose results are not yet known to lose.
+        private final byte[] remaining;
+        // The shortest win through a capture or promotion, as a value.
+        private final byte[] exitWins;
+        // The longest loss through a capture or promotion, as a value, or
+        // DRAWN_EXIT.
+        private final byte[] exitLosses;
+        private final AtomicInteger maxValue = new AtomicInteger();
+
+        Solver(Material material, ExecutorService pool) {
+            this.material = material;
+            this.pool = pool;
+            int size = material.size();
+            values = new byte[size];
+            remaining = new byte[size];
+            exitWins = new byte[size];
+            exitLosses = new byte[size];
+        }
+
+        void solve() throws IOException, InterruptedException {
+            forEachChunk(this::start);
+            for (int value = 1; value <= maxValue.get(); value++) {
+                Preconditions.checkState(value < Tablebase.MAX_VALUE,
+                        "Mates in %s take too long to store", material);
+                int level = value;
+                if ((value - 1) % 2 == 1) {
+                    forEachChunk((from, to) -> winByExit(from, to, level));
+                }
+                forEachChunk((from, to) -> propagate(from, to, level));
+            }
+
+            Path path = Tablebase.path(directory, material);
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                ByteBuffer buffer = ByteBuffer.wrap(values);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+            tablebase.load(material);
+        }
+
+        /**
+         * Marks positions that are not positions, mates and stalemates,
+         * counts the moves of the rest that stay in the table and looks up
+         * the ones that leave it.
+         */
+        private void start(int from, int to) {
+            int[] squares = new int[material.getPieceCount()];
+            ByteBuffer scratch = ByteBuffer.allocate(PositionCodec.BYTES);
+            MoveList moves = new MoveList();
+            for (int index = from; index < to; index++) {
+                boolean whiteToMove = material.squares(index, squares);
+                if (!material.isValid(squares, whiteToMove)) {
+                    values[index] = (byte) ILLEGAL;
+                    continue;
+                }
+
+                int count = countQuietMoves(squares, whiteToMove);
+                int exits = 0;
+                int exitWin = 0;
+                int exitLoss = 0;
+                if (mayCaptureOrPromote(squares, whiteToMove)) {
+                    // Rare enough to leave to the board.
+                    Board board =
+                            material.toBoard(squares, whiteToMove, scratch);
+                    board.legalMoves(moves);
+                    for (int i = 0; i < moves.size(); i++) {
+                        int move = moves.get(i);
+                        if (!Moves.isCapture(move) &&
+                                !Moves.isPromotion(move)) {
+                            continue;
+                        }
+                        exits++;
+                        board.makeMove(move);
+                        int child = tablebase.value(board);
+                        board.unmakeMove();
+                        Preconditions.checkState(child >= 0,
+                                "No table for a successor of %s", material);
+                        if (child == Tablebase.DRAW) {
+                            exitLoss = DRAWN_EXIT;
+                        } else if ((child - 1) % 2 == 0) {
+                            exitWin = exitWin == 0
+                                    ? child + 1
+                                    : Math.min(exitWin, child + 1);
+                        } else if (exitLoss != DRAWN_EXIT) {
+                            exitLoss = Math.max(exitLoss, child + 1);
+                        }
+                    }
+                }
+
+                if (count == 0 && exits == 0) {
+                    if (material.isInCheck(squares, whiteToMove)) {
+                        setValue(index, 1);
+                    }
+                } else if (count == 0) {
+                    if (exitWin != 0) {
+                        setValue(index, exitWin);
+                    } else if (exitLoss != DRAWN_EXIT) {
+                        setValue(index, exitLoss);
+                    }
+                } else {
+                    remaining[index] = (byte) count;
+                    exitWins[index] = (byte) exitWin;
+                    exitLosses[index] = (byte) exitLoss;
+                    if (exitWin != 0) {
+                        maxValue.accumulateAndGet(exitWin, Math::max);
+                    }
+                }
+            }
+        }
+
+        /**
+         * The number of legal moves that neither capture nor promote.
+         */
+        private int countQuietMoves(int[] squares, boolean whiteToMove) {
+            long occupancy = occupancy(squares);
+            Piece.Color toMove = whiteToMove ? WHITE : Piece.Color.BLACK;
+            int count = 0;
+            for (int slot = 0; slot < squares.length; slot++) {
+                Piece piece = material.getPiece(slot);
+                if (piece.getColor() != toMove) {
+                    continue;
+                }
+                int square = squares[slot];
+                long targets = piece.getType() == Piece.Type.PAWN
+                        ? pawnPushes(toMove, square, occupancy)
+                        : origins(piece, square, occupancy);
+                while (targets != 0) {
+                    squares[slot] = Long.numberOfTrailingZeros(targets);
+                    targets &= targets - 1;
+                    if (material.isValid(squares, !whiteToMove)) {
+                        count++;
+                    }
+                }
+                squares[slot] = square;
+            }
+            return count;
+        }
+
+        /**
+         * Whether the player to move has a piece attacking one of the
+         * other player's pieces besides the king, or a pawn about to
+         * promote.
+         */
+        private boolean mayCaptureOrPromote(
+                int[] squares, boolean whiteToMove) {
+            long occupancy = occupancy(squares);
+            Piece.Color toMove = whiteToMove ? WHITE : Piece.Color.BLACK;
+            long victims = 0;
+            for (int slot = 2; slot < squares.length; slot++) {
+                if (material.getPiece(slot).getColor() != toMove) {
+                    victims |= 1L << squares[slot];
+                }
+            }
+            for (int slot = 0; slot < squares.length; slot++) {
+                Piece piece = material.getPiece(slot);
+                if (piece.getColor() != toMove) {
+                    continue;
+                }
+                int square = squares[slot];
+                if (piece.getType() == Piece.Type.PAWN) {
+                    int row = square / 8;
+                    if (row == (toMove == WHITE ? 6 : 1) ||
+                            (Attacks.pawn(toMove, square) & victims) != 0) {
+                        return true;
+                    }
+                } else if ((attacks(piece, square, occupancy) & victims)
+                        != 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Settles positions whose quickest win is a capture or promotion.
+         */
+        private void winByExit(int from, int to, int value) {
+            for (int index = from; index < to; index++) {
+                if ((exitWins[index] & 0xFF) == value &&
+                        (values[index] & 0xFF) == UNKNOWN) {
+                    values[index] = (byte) value;
+                }
+            }
+        }
+
+        /**
+         * Passes the results of positions settled with the value on to the
+         * positions that can move into them.
+         */
+        private void propagate(int from, int to, int value) {
+            int[] squares = new int[material.getPieceCount()];
+            boolean lost = (value - 1) % 2 == 0;
+            for (int index = from; index < to; index++) {
+                if ((values[index] & 0xFF) != value) {
+                    continue;
+                }
+                boolean whiteToMove = material.squares(index, squares);
+                long occupancy = occupancy(squares);
+                Piece.Color moved = whiteToMove ? Piece.Color.BLACK : WHITE;
+                for (int slot = 0; slot < squares.length; slot++) {
+                    Piece piece = material.getPiece(slot);
+                    if (piece.getColor() != moved) {
+                        continue;
+                    }
+                    int square = squares[slot];
+                    long origins = origins(piece, square, occupancy);
+                    while (origins != 0) {
+                        squares[slot] = Long.numberOfTrailingZeros(origins);
+                        origins &= origins - 1;
+                        int previous = material.index(squares, !whiteToMove);
+                        if (lost) {
+                            win(previous, value + 1);
+                        } else {
+                            loseOneMove(previous, value + 1);
+                        }
+                    }
+                    squares[slot] = square;
+                }
+            }
+        }
+
+        private void win(int index, int value) {
+            if (BYTES.compareAndSet(
+                    values, index, (byte) UNKNOWN, (byte) value)) {
+                maxValue.accumulateAndGet(value, Math::max);
+            }
+        }
+
+        private void loseOneMove(int index, int value) {
+            if ((values[index] & 0xFF) != UNKNOWN) {
+                return;
+            }
+            byte left;
+            do {
+                left = (byte) BYTES.getVolatile(remaining, index);
+            } while (!BYTES.compareAndSet(
+                    remaining, index, left, (byte) (left - 1)));
+            left--;
+            int exitLoss = exitLosses[index] & 0xFF;
+            if (left == 0 && exitWins[index] == 0 && exitLoss != DRAWN_EXIT) {
+                setValue(index, Math.max(value, exitLoss));
+            }
+        }
+
+        private void setValue(int index, int value) {
+            values[index] = (byte) value;
+            maxValue.accumulateAndGet(value, Math::max);
+        }
+
+        /**
+         * The empty squares the piece could have come from without
+         * capturing, which for pieces besides pawns are the empty squares
+         * it could go to.
+         */
+        private long origins(Piece piece, int square, long occupancy) {
+            if (piece.getType() == Piece.Type.PAWN) {
+                return pawnOrigins(piece.getColor(), square, occupancy);
+            }
+            return attacks(piece, square, occupancy) & ~occupancy;
+        }
+
+        private long attacks(Piece piece, int square, long occupancy) {
+            switch (piece.getType()) {
+                case PAWN:
+                    return Attacks.pawn(piece.getColor(), square);
+                case KNIGHT:
+                    return Attacks.knight(square);
+                case BISHOP:
+                    return Attacks.bishop(square, occupancy);
+                case ROOK:
+                    return Attacks.rook(square, occupancy);
+                case QUEEN:
+                    return Attacks.queen(square, occupancy);
+                default:
+                    return Attacks.king(square);
+            }
+        }
+
+        /**
+         * The squares a pawn can move forward to without promoting.
+         */
+        private long pawnPushes(
+                Piece.Color color, int square, long occupancy) {
+            int forward = color == WHITE ? 8 : -8;
+            int one = square + forward;
+            if (one / 8 == (color == WHITE ? 7 : 0) ||
+                    (occupancy & 1L << one) != 0) {
+                return 0;
+            }
+            long pushes = 1L << one;
+            int two = one + forward;
+            if (square / 8 == (color == WHITE ? 1 : 6) &&
+                    (occupancy & 1L << two) == 0) {
+                pushes |= 1L << two;
+            }
+            return pushes;
+        }
+
+        private long pawnOrigins(
+                Piece.Color color, int square, long occupancy) {
+            int back = color == WHITE ? -8 : 8;
+            int startRow = color == WHITE ? 1 : 6;
+            int one = square + back;
+            if (one / 8 == (color == WHITE ? 0 : 7) ||
+                    (occupancy & 1L << one) != 0) {
+                return 0;
+            }
+            long origins = 1L << one;
+            int two = one + back;
+            if (one / 8 + back / 8 == startRow &&
+                    (occupancy & 1L << two) == 0) {
+                origins |= 1L << two;
+            }
+            return origins;
+        }
+
+        private long occupancy(int[] squares) {
+            long occupancy = 0;
+            for (int square : squares) {
+                occupancy |= 1L << square;
+            }
+            return occupancy;
+        }
+
+        private void forEachChunk(Chunk chunk) throws InterruptedException {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int from = 0; from < material.size(); from += CHUNK) {
+                int start = from;
+                int end = Math.min(from + CHUNK, material.size());
+                futures.add(pool.submit(() -> chunk.run(start, end)));
+            }
+            try {
+                for (Future<?> future : futures) {
+                    future.get();
+                }
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    private interface Chunk {
+        void run(int from, int to);
+    }
+}
@@ -0,0 +1,60 @@
+package me.roitgrund.chess.tablebase;
+
+import java.util.Objects;
+
+/**
+ * What a tablebase knows about a position: how the game ends with best
+ * play, and for a win or loss, how many plies it takes to mate.
+ */
+public final class TablebaseResult {
+    private final Outcome outcome;
+    private final int pliesToMate;
+
+    TablebaseResult(Outcome outcome, int pliesToMate) {
+        this.outcome = outcome;
+        this.pliesToMate = pliesToMate;
+    }
+
+    /**
+     * The outcome for the player to move.
+     */
+    public Outcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * The number of plies until mate, from 0 if the player to move is
+     * already mated; 0 for draws.
+     */
+    public int getPliesToMate() {
+        return pliesToMate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TablebaseResult that = (TablebaseResult) o;
+        return pliesToMate == that.pliesToMate && outcome == that.outcome;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(outcome, pliesToMate);
+    }
+
+    @Override
+    public String toString() {
+        return outcome == Outcome.DRAW
+                ? "DRAW"
+                : outcome + " in " + pliesToMate + " plies";
+    }
+
+    public enum Outcome {
+        WIN, DRAW, LOSS
+    }
+}
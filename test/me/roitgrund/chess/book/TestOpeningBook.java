@@ -0,0 +1,145 @@
+package me.roitgrund.chess.book;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Coord;
+import me.roitgrund.chess.game.Moves;
+import me.roitgrund.chess.game.Piece;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestOpeningBook {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testProbe() throws IOException {
+        Board start = new Board();
+        Board afterE4 = new Board();
+        afterE4.move("e2", "e4");
+
+        BookWriter writer = new BookWriter();
+        writer.add(start, move(start, "e2", "e4"), 10);
+        writer.add(start, move(start, "d2", "d4"), 30);
+        writer.add(start, move(start, "e2", "e4"), 5);
+        writer.add(afterE4, move(afterE4, "c7", "c5"), 1);
+        // Keys that sort before and after the others as unsigned numbers.
+        writer = withFillerPositions(writer);
+        Path path = write(writer);
+
+        try (OpeningBook book = OpeningBook.open(path)) {
+            BookMoves moves = new BookMoves();
+
+            assertThat(book.probe(start, moves)).isTrue();
+            assertThat(moves.size()).isEqualTo(2);
+            assertThat(moves.getMove(0)).isEqualTo(move(start, "d2", "d4"));
+            assertThat(moves.getWeight(0)).isEqualTo(30);
+            assertThat(moves.getMove(1)).isEqualTo(move(start, "e2", "e4"));
+            assertThat(moves.getWeight(1)).isEqualTo(15);
+            assertThat(moves.getTotalWeight()).isEqualTo(45);
+
+            assertThat(book.probe(afterE4, moves)).isTrue();
+            assertThat(moves.size()).isEqualTo(1);
+            assertThat(moves.choose(new Random(1)))
+                    .isEqualTo(move(afterE4, "c7", "c5"));
+
+            afterE4.move("c7", "c5");
+            assertThat(book.probe(afterE4, moves)).isFalse();
+            assertThat(moves.choose(new Random(1))).isEqualTo(Moves.NONE);
+        }
+    }
+
+    @Test
+    public void testCastlingAndPromotion() throws IOException {
+        Board castle = Board.fromFen("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1");
+        Board promote = Board.fromFen("4k3/1P6/8/8/8/8/8/4K3 w - - 0 1");
+        int kingside = move(castle, "e1", "g1");
+        int queenside = move(castle, "e1", "c1");
+        int underpromotion = promote.legalMove(Coord.fromNotation("b7"),
+                Coord.fromNotation("b8"), Piece.Type.KNIGHT);
+        assertThat(Moves.isCastle(kingside)).isTrue();
+
+        BookWriter writer = new BookWriter();
+        writer.add(castle, kingside, 2);
+        writer.add(castle, queenside, 1);
+        writer.add(promote, underpromotion, 1);
+        Path path = write(writer);
+
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(path));
+        // e1h1, the king taking its own rook.
+        short polyglotMove = -1;
+        for (int i = 0; i < bytes.limit(); i += OpeningBook.ENTRY_BYTES) {
+            if (bytes.getLong(i) == PolyglotKey.key(castle) &&
+                    bytes.getShort(i + 10) == 2) {
+                polyglotMove = bytes.getShort(i + 8);
+            }
+        }
+        assertThat(polyglotMove).isEqualTo((short) (7 | 4 << 6));
+
+        try (OpeningBook book = OpeningBook.open(path)) {
+            BookMoves moves = new BookMoves();
+            book.probe(castle, moves);
+            assertThat(moves.getMove(0)).isEqualTo(kingside);
+            assertThat(moves.getMove(1)).isEqualTo(queenside);
+
+            book.probe(promote, moves);
+            assertThat(moves.getMove(0)).isEqualTo(underpromotion);
+        }
+    }
+
+    @Test
+    public void testCustomKey() throws IOException {
+        BookWriter writer = new BookWriter(board -> 42);
+        Board board = new Board();
+        writer.add(board, move(board, "g1", "f3"), 1);
+        Path path = write(writer);
+
+        try (OpeningBook book = OpeningBook.open(path, b -> 42)) {
+            Board other = Board.fromFen("4k3/8/8/8/8/8/8/4K1N1 w - - 0 1");
+            BookMoves moves = new BookMoves();
+            assertThat(book.probe(other, moves)).isTrue();
+            assertThat(book.size()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testEmptyBook() throws IOException {
+        try (OpeningBook book = OpeningBook.open(write(new BookWriter()))) {
+            assertThat(book.probe(new Board(), new BookMoves())).isFalse();
+        }
+    }
+
+    private static BookWriter withFillerPositions(BookWriter writer) {
+        Board board = new Board();
+        String[] moves = {"a2", "a3", "b2", "b3", "g1", "h3", "b1", "c3"};
+        for (int i = 0; i < moves.length; i += 2) {
+            Board position = new Board();
+            position.move(moves[i], moves[i + 1]);
+            writer.add(position, move(board, "e2", "e4"), 1);
+        }
+        return writer;
+    }
+
+    private Path write(BookWriter writer) throws IOException {
+        Path path = folder.newFile().toPath();
+        writer.write(path);
+        return path;
+    }
+
+    private static int move(Board board, String from, String to) {
+        return board.legalMove(
+                Coord.fromNotation(from), Coord.fromNotation(to), null);
+    }
+}
@@ -0,0 +1,60 @@
+package me.roitgrund.chess.book;
+
+import me.roitgrund.chess.game.Board;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestPolyglotKey {
+
+    // The keys given with the Polyglot book format.
+    @Test
+    public void testStartingPosition() {
+        assertThat(key()).isEqualTo(0x463b96181691fc9cL);
+    }
+
+    @Test
+    public void testPawnMoves() {
+        assertThat(key("e2e4")).isEqualTo(0x823c9b50fd114196L);
+        assertThat(key("e2e4", "d7d5")).isEqualTo(0x0756b94461c50fb0L);
+    }
+
+    @Test
+    public void testEnPassantNeedsACapturingPawn() {
+        assertThat(key("e2e4", "d7d5", "e4e5"))
+                .isEqualTo(0x662fafb965db29d4L);
+        assertThat(key("e2e4", "d7d5", "e4e5", "f7f5"))
+                .isEqualTo(0x22a48b5a8e47ff78L);
+        assertThat(key("a2a4", "b7b5", "h2h4", "b5b4", "c2c4"))
+                .isEqualTo(0x3c8123ea7b067637L);
+    }
+
+    @Test
+    public void testCastlingRights() {
+        assertThat(key("e2e4", "d7d5", "e4e5", "f7f5", "e1e2"))
+                .isEqualTo(0x652a607ca3f242c1L);
+        assertThat(key("e2e4", "d7d5", "e4e5", "f7f5", "e1e2", "e8f7"))
+                .isEqualTo(0x00fdd303c946bdd9L);
+        assertThat(key("a2a4", "b7b5", "h2h4", "b5b4", "c2c4", "b4c3",
+                "a1a3"))
+                .isEqualTo(0x5c3f9b829b279560L);
+    }
+
+    @Test
+    public void testAgreesWithFen() {
+        Board board = Board.fromFen("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/"
+                + "PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+        assertThat(PolyglotKey.key(board)).isEqualTo(0x22a48b5a8e47ff78L);
+    }
+
+    private static long key(String... moves) {
+        Board board = new Board();
+        for (String move : moves) {
+            board.move(move.substring(0, 2), move.substring(2));
+        }
+        return PolyglotKey.key(board);
+    }
+}
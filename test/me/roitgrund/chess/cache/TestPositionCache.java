@@ -0,0 +1,164 @@
+package me.roitgrund.chess.cache;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Board.GameState;
+import me.roitgrund.chess.game.Coord;
+import me.roitgrund.chess.game.MoveList;
+import me.roitgrund.chess.game.Moves;
+import me.roitgrund.chess.game.Piece;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestPositionCache {
+
+    @Test
+    public void testCountsHitsAndMisses() {
+        PositionCache cache = new PositionCache(100);
+        Board board = new Board();
+
+        assertThat(cache.getGameState(board)).isEqualTo(GameState.PLAYING);
+        assertThat(cache.getGameState(board)).isEqualTo(GameState.PLAYING);
+        assertThat(cache.move(board, coord("e2"), coord("e4")))
+                .isEqualTo(GameState.PLAYING);
+
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void testWorksOutEachPositionOnce() throws Exception {
+        PositionCache cache = new PositionCache(100);
+        int threads = 8;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<GameState>> states = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Board board = new Board();
+                states.add(pool.submit(() -> {
+                    start.await();
+                    return cache.getGameState(board);
+                }));
+            }
+            for (Future<GameState> state : states) {
+                assertThat(state.get()).isEqualTo(GameState.PLAYING);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(threads - 1);
+    }
+
+    @Test
+    public void testMatchesBoard() {
+        PositionCache cache = new PositionCache(100);
+        Board board = new Board();
+        String[] squares = {"f2", "f3", "e7", "e5", "g2", "g4", "d8", "h4"};
+        MoveList cached = new MoveList();
+        MoveList expected = new MoveList();
+        for (int i = 0; i < squares.length; i += 2) {
+            cache.legalMoves(board, cached);
+            board.legalMoves(expected);
+            assertThat(cached.toArray()).isEqualTo(expected.toArray());
+
+            Board copy = board.copy();
+            assertThat(cache.move(board,
+                    coord(squares[i]),
+                    coord(squares[i + 1])))
+                    .isEqualTo(copy.move(squares[i], squares[i + 1]));
+            assertThat(board.hash()).isEqualTo(copy.hash());
+        }
+        assertThat(cache.getGameState(board))
+                .isEqualTo(GameState.BLACK_WINS);
+    }
+
+    @Test
+    public void testDrawsByRuleFollowTheBoard() {
+        PositionCache cache = new PositionCache(100);
+        Board board = new Board();
+        String[] squares = {"g1", "f3", "g8", "f6", "f3", "g1", "f6", "g8"};
+        GameState state = null;
+        for (int i = 0; i < 2 * squares.length; i += 2) {
+            state = cache.move(board,
+                    coord(squares[i % squares.length]),
+                    coord(squares[(i + 1) % squares.length]));
+        }
+
+        assertThat(state).isEqualTo(GameState.DRAW_BY_REPETITION);
+        assertThat(cache.getGameState(new Board()))
+                .isEqualTo(GameState.PLAYING);
+    }
+
+    @Test
+    public void testIllegalMoves() {
+        PositionCache cache = new PositionCache(100);
+        Board board = new Board();
+        long hash = board.hash();
+
+        assertThat(cache.move(board, coord("e2"), coord("e5")))
+                .isEqualTo(GameState.ILLEGAL_MOVE);
+        assertThat(cache.legalMove(
+                board, coord("e2"), coord("e4"), Piece.Type.QUEEN))
+                .isEqualTo(Moves.NONE);
+        assertThat(board.hash()).isEqualTo(hash);
+    }
+
+    @Test
+    public void testPromotions() {
+        PositionCache cache = new PositionCache(100);
+        Board board = Board.fromFen("8/4P3/8/8/8/k7/8/4K3 w - - 0 1");
+
+        for (Piece.Type promotion : new Piece.Type[] {
+                null,
+                Piece.Type.QUEEN,
+                Piece.Type.KNIGHT,
+                Piece.Type.KING}) {
+            assertThat(cache.legalMove(
+                    board, coord("e7"), coord("e8"), promotion))
+                    .isEqualTo(board.legalMove(
+                            coord("e7"), coord("e8"), promotion));
+        }
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        PositionCache cache = new PositionCache(2);
+        Board first = new Board();
+        Board second = new Board();
+        second.move("e2", "e4");
+        Board third = new Board();
+        third.move("d2", "d4");
+
+        cache.getGameState(first);
+        cache.getGameState(second);
+        cache.getGameState(first);
+        cache.getGameState(third);
+        cache.getGameState(first);
+
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(2);
+
+        cache.clear();
+        assertThat(cache.size()).isEqualTo(0);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+    }
+
+    private static Coord coord(String notation) {
+        return Coord.fromNotation(notation);
+    }
+}
@@ -0,0 +1,136 @@
+package me.roitgrund.chess.format;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Coord;
+import me.roitgrund.chess.game.Piece;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestDeltaEncoder {
+
+    private final BoardFormatter formatter = new BoardFormatter();
+    private final ByteBuffer buffer =
+            ByteBuffer.allocate(DeltaEncoder.MAX_FRAME_BYTES);
+
+    @Test
+    public void testFollowsAGame() {
+        DeltaEncoder encoder = new DeltaEncoder();
+        DeltaDecoder decoder = new DeltaDecoder();
+        Board board = new Board();
+        assertThat(send(encoder, board, decoder)).isTrue();
+        assertThat(decoder.format()).isEqualTo(formatter.format(board));
+
+        // En passant, castling on both sides and a promotion.
+        String[] squares = {
+                "e2", "e4", "a7", "a6", "e4", "e5", "d7", "d5", "e5", "d6",
+                "b8", "c6", "g1", "f3", "c8", "g4", "f1", "e2", "d8", "d7",
+                "e1", "g1", "e8", "c8", "d6", "c7", "h7", "h6", "c7", "d8"};
+        for (int i = 0; i < squares.length; i += 2) {
+            assertThat(board.move(squares[i], squares[i + 1]))
+                    .isEqualTo(Board.GameState.PLAYING);
+            assertThat(send(encoder, board, decoder)).isTrue();
+            assertThat(decoder.format()).isEqualTo(formatter.format(board));
+        }
+        assertThat(decoder.getPiece(Coord.fromNotation("d8")))
+                .isEqualTo(Optional.of(
+                        Piece.of(Piece.Type.QUEEN, Piece.Color.WHITE)));
+        assertThat(decoder.getPiece(Coord.fromNotation("d5")))
+                .isEqualTo(Optional.empty());
+        assertThat(decoder.getSequence()).isEqualTo(squares.length / 2);
+    }
+
+    @Test
+    public void testFrameSizes() {
+        DeltaEncoder encoder = new DeltaEncoder();
+        Board board = new Board();
+        assertThat(encode(encoder, board).remaining())
+                .isEqualTo(DeltaEncoder.HEADER_BYTES + 32 * 2);
+
+        board.move("e2", "e4");
+        ByteBuffer frame = encode(encoder, board);
+        assertThat(frame.get(0)).isEqualTo(DeltaEncoder.DELTA);
+        assertThat(frame.remaining()).isEqualTo(10);
+
+        board = Board.fromFen("4k3/8/8/8/8/8/8/4K2R w K - 0 1");
+        encoder = new DeltaEncoder();
+        encode(encoder, board);
+        board.move("e1", "g1");
+        assertThat(encode(encoder, board).remaining())
+                .isEqualTo(DeltaEncoder.HEADER_BYTES + 4 * 2);
+    }
+
+    @Test
+    public void testResync() {
+        DeltaEncoder encoder = new DeltaEncoder(2);
+        DeltaDecoder decoder = new DeltaDecoder();
+        Board board = new Board();
+        String[] squares = {"g1", "f3", "g8", "f6", "f3", "g1", "f6", "g8"};
+
+        // A delta before any full frame cannot be applied.
+        send(encoder, board, new DeltaDecoder());
+        board.move(squares[0], squares[1]);
+        assertThat(send(encoder, board, decoder)).isFalse();
+        assertThat(decoder.isInSync()).isFalse();
+
+        board.move(squares[2], squares[3]);
+        assertThat(send(encoder, board, decoder)).isFalse();
+        board.move(squares[4], squares[5]);
+        // The third frame after the first is full again.
+        assertThat(send(encoder, board, decoder)).isTrue();
+        assertThat(decoder.isInSync()).isTrue();
+        assertThat(decoder.format()).isEqualTo(formatter.format(board));
+
+        // A lost frame puts the decoder out of sync.
+        board.move(squares[6], squares[7]);
+        encode(encoder, board);
+        board.move(squares[0], squares[1]);
+        assertThat(send(encoder, board, decoder)).isFalse();
+        assertThat(decoder.isInSync()).isFalse();
+    }
+
+    @Test
+    public void testLateJoiner() {
+        DeltaEncoder encoder = new DeltaEncoder();
+        Board board = new Board();
+        encode(encoder, board);
+        board.move("d2", "d4");
+        encode(encoder, board);
+
+        DeltaDecoder decoder = new DeltaDecoder();
+        buffer.clear();
+        encoder.writeFull(buffer);
+        buffer.flip();
+        assertThat(decoder.apply(buffer)).isTrue();
+        assertThat(decoder.getSequence()).isEqualTo(1);
+
+        board.move("d7", "d5");
+        assertThat(send(encoder, board, decoder)).isTrue();
+        assertThat(decoder.format()).isEqualTo(formatter.format(board));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testBadFrame() {
+        new DeltaDecoder().apply(
+                ByteBuffer.wrap(new byte[] {9, 0, 0, 0, 0, 0}));
+    }
+
+    private boolean send(DeltaEncoder encoder,
+                         Board board,
+                         DeltaDecoder decoder) {
+        return decoder.apply(encode(encoder, board));
+    }
+
+    private ByteBuffer encode(DeltaEncoder encoder, Board board) {
+        buffer.clear();
+        encoder.encode(board, buffer);
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -6,6 +6,14 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
 import static com.google.common.truth.Truth.assertThat;
 
 @RunWith(JUnit4.class)
@@ -33,4 +41,44 @@ public class TestPrettyPrinter {
                         "|WR|WC|WB|WQ|WK|WB|WC|WR| 1\n" +
                         "-------------------------\n");
     }
+
+    @Test
+    public void testFormatToBuffers() throws IOException {
+        Board board = new Board();
+        board.move("e2", "e4");
+        board.move("d7", "d5");
+        board.move("e4", "d5");
+        String expected = boardFormatter.format(board);
+        assertThat(expected).hasLength(BoardFormatter.LENGTH);
+        assertThat(expected).contains("|  |  |  |WP|  |  |  |  | 5\n");
+
+        StringBuilder builder = new StringBuilder("> ");
+        boardFormatter.formatTo(board, builder);
+        assertThat(builder.toString()).isEqualTo("> " + expected);
+
+        StringWriter writer = new StringWriter();
+        boardFormatter.formatTo(board.snapshot(), writer);
+        assertThat(writer.toString()).isEqualTo(expected);
+
+        ByteBuffer buffer = ByteBuffer.allocate(BoardFormatter.LENGTH + 3);
+        buffer.position(3);
+        boardFormatter.formatTo(board, buffer);
+        assertThat(buffer.remaining()).isEqualTo(0);
+        assertThat(new String(buffer.array(),
+                3,
+                BoardFormatter.LENGTH,
+                StandardCharsets.US_ASCII)).isEqualTo(expected);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        boardFormatter.formatTo(board, Channels.newChannel(stream));
+        boardFormatter.formatTo(new Board(), Channels.newChannel(stream));
+        assertThat(stream.toString(StandardCharsets.US_ASCII))
+                .isEqualTo(expected + boardFormatter.format(new Board()));
+    }
+
+    @Test(expected = BufferOverflowException.class)
+    public void testBufferTooSmall() {
+        boardFormatter.formatTo(new Board(),
+                ByteBuffer.allocate(BoardFormatter.LENGTH - 1));
+    }
 }
@@ -0,0 +1,53 @@
+package me.roitgrund.chess.game;
+
+import me.roitgrund.chess.game.Piece.Color;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestAttacks {
+
+    @Test
+    public void testKnight() {
+        assertThat(Attacks.knight(square("a1"))).isEqualTo(bits("b3", "c2"));
+        assertThat(Long.bitCount(Attacks.knight(square("e4")))).isEqualTo(8);
+    }
+
+    @Test
+    public void testPawn() {
+        assertThat(Attacks.pawn(Color.WHITE, square("a2")))
+                .isEqualTo(bits("b3"));
+        assertThat(Attacks.pawn(Color.BLACK, square("e5")))
+                .isEqualTo(bits("d4", "f4"));
+    }
+
+    @Test
+    public void testRookStopsAtBlockers() {
+        assertThat(Attacks.rook(square("a1"), bits("a3", "c1", "h8")))
+                .isEqualTo(bits("a2", "a3", "b1", "c1"));
+        assertThat(Long.bitCount(Attacks.rook(square("d4"), 0))).isEqualTo(14);
+    }
+
+    @Test
+    public void testBishopStopsAtBlockers() {
+        assertThat(Attacks.bishop(square("c1"), bits("e3", "b2")))
+                .isEqualTo(bits("b2", "d2", "e3"));
+        assertThat(Attacks.bishop(square("h8"), 0)).isEqualTo(
+                bits("g7", "f6", "e5", "d4", "c3", "b2", "a1"));
+    }
+
+    private static int square(String notation) {
+        return Coord.fromNotation(notation).getIndex();
+    }
+
+    private static long bits(String... squares) {
+        long bits = 0;
+        for (String square : squares) {
+            bits |= Bitboards.squareBit(square(square));
+        }
+        return bits;
+    }
+}
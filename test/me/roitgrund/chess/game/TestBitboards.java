@@ -0,0 +1,37 @@
+package me.roitgrund.chess.game;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestBitboards {
+
+    @Test
+    public void testBetween() {
+        assertThat(between("a1", "a4")).isEqualTo(
+                bits("a2", "a3"));
+        assertThat(between("h8", "e5")).isEqualTo(
+                bits("g7", "f6"));
+        assertThat(between("b1", "e1")).isEqualTo(
+                bits("c1", "d1"));
+        assertThat(between("a1", "a2")).isEqualTo(0L);
+        assertThat(between("b1", "c3")).isEqualTo(0L);
+    }
+
+    private static long between(String from, String to) {
+        return Bitboards.between(
+                Coord.fromNotation(from).getIndex(),
+                Coord.fromNotation(to).getIndex());
+    }
+
+    private static long bits(String... squares) {
+        long bits = 0;
+        for (String square : squares) {
+            bits |= Bitboards.squareBit(Coord.fromNotation(square).getIndex());
+        }
+        return bits;
+    }
+}
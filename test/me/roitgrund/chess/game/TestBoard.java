@@ -2,23 +2,39 @@ package me.roitgrund.chess.game;
 
 import me.roitgrund.chess.format.BoardFormatter;
 import me.roitgrund.chess.game.Board.GameState;
+import me.roitgrund.chess.game.Board.Representation;
 import me.roitgrund.chess.game.Piece.Color;
 import me.roitgrund.chess.game.Piece.Type;
+import me.roitgrund.chess.perft.PerftPosition;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.junit.runners.JUnit4;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static com.google.common.truth.Truth.assertThat;
 
-@RunWith(JUnit4.class)
+@RunWith(Parameterized.class)
 public class TestBoard {
 
+    @Parameter
+    public Representation representation;
+
     private Board board;
 
+    @Parameters(name = "{0}")
+    public static Iterable<Representation> representations() {
+        return Arrays.asList(Representation.values());
+    }
+
     @Before
     public void setUp() {
-        board = new Board();
+        board = new Board(representation);
     }
 
     @Test
@@ -184,6 +200,19 @@ public class TestBoard {
         move("e1", "c1");
     }
 
+    @Test
+    public void testCastlingNotPossibleThroughPieces() {
+        move("e2", "e4");
+        move("e7", "e5");
+        move("g1", "f3");
+        move("g8", "f6");
+
+        failMove("e1", "g1");
+        move("f1", "c4");
+
+        failMove("e8", "g8");
+    }
+
     @Test
     public void testCastlingNotPossibleIfThreatened() {
         setupCastlingBoard();
@@ -208,6 +237,40 @@ public class TestBoard {
         failMove("e1", "g1");
     }
 
+    @Test
+    public void testCastlingThroughOrIntoAttackedSquares() {
+        // Each position, with the ways of castling allowed in it.
+        String[][] cases = {
+                {"4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1", "O-O", "O-O-O"},
+                {"4k3/8/8/8/8/8/5r2/R3K2R w KQ - 0 1", "O-O-O"},
+                {"4k1r1/8/8/8/8/8/8/R3K2R w KQ - 0 1", "O-O-O"},
+                {"4k3/8/8/8/8/7b/8/R3K2R w KQ - 0 1", "O-O-O"},
+                {"4k3/8/8/8/8/8/6p1/R3K2R w KQ - 0 1", "O-O-O"},
+                {"3rk3/8/8/8/8/8/8/R3K2R w KQ - 0 1", "O-O"},
+                {"2r1k3/8/8/8/8/8/8/R3K2R w KQ - 0 1", "O-O"},
+                {"1r2k3/8/8/8/8/8/8/R3K2R w KQ - 0 1", "O-O", "O-O-O"},
+                {"4k3/8/8/8/8/8/2n5/R3K2R w KQ - 0 1"},
+                {"1k2r3/8/8/8/8/8/8/R3K2R w KQ - 0 1"},
+                {"r3k2r/8/8/8/8/8/8/4K1R1 b kq - 0 1", "O-O-O"},
+                {"r3k2r/8/8/8/8/8/8/3QK3 b kq - 0 1", "O-O"},
+        };
+        List<String> expected = new ArrayList<>();
+        List<String> allowed = new ArrayList<>();
+        for (String[] c : cases) {
+            for (int i = 1; i < c.length; i++) {
+                expected.add(c[0] + " " + c[i]);
+            }
+            String row = c[0].contains(" w ") ? "1" : "8";
+            if (castles(c[0], "e" + row, "g" + row)) {
+                allowed.add(c[0] + " O-O");
+            }
+            if (castles(c[0], "e" + row, "c" + row)) {
+                allowed.add(c[0] + " O-O-O");
+            }
+        }
+        assertThat(allowed).containsExactlyElementsIn(expected).inOrder();
+    }
+
     @Test
     public void testKasparov() {
         move("d2", "d4");
@@ -292,6 +355,344 @@ public class TestBoard {
         move("e4", "f2");
     }
 
+    @Test
+    public void testLegalMovesFromStart() {
+        assertThat(board.legalMoves()).hasSize(20);
+        assertThat(board.legalMoves()).contains(new Move(
+                Coord.fromNotation("g1"), Coord.fromNotation("f3")));
+    }
+
+    @Test
+    public void testPseudoLegalMovesFilterToLegalMoves() {
+        for (PerftPosition position : PerftPosition.values()) {
+            Board board = Board.fromFen(position.getFen(), representation);
+            MoveList pseudoLegal = new MoveList();
+            board.pseudoLegalMoves(pseudoLegal);
+            List<Integer> legal = new ArrayList<>();
+            for (int i = 0; i < pseudoLegal.size(); i++) {
+                board.makeMove(pseudoLegal.get(i));
+                if (!board.movedIntoCheck()) {
+                    legal.add(pseudoLegal.get(i));
+                }
+                board.unmakeMove();
+            }
+
+            MoveList expected = new MoveList();
+            board.legalMoves(expected);
+            assertThat(legal).containsExactlyElementsIn(
+                    Arrays.stream(expected.toArray()).boxed().toArray());
+        }
+    }
+
+    @Test
+    public void testCheckmate() {
+        move("f2", "f3");
+        move("e7", "e5");
+        move("g2", "g4");
+        assertThat(board.move("d8", "h4")).isEqualTo(GameState.BLACK_WINS);
+        assertThat(board.legalMoves()).isEmpty();
+    }
+
+    @Test
+    public void testStalemate() {
+        move("e2", "e3");
+        move("a7", "a5");
+        move("d1", "h5");
+        move("a8", "a6");
+        move("h5", "a5");
+        move("h7", "h5");
+        move("h2", "h4");
+        move("a6", "h6");
+        move("a5", "c7");
+        move("f7", "f6");
+        move("c7", "d7");
+        move("e8", "f7");
+        move("d7", "b7");
+        move("d8", "d3");
+        move("b7", "b8");
+        move("d3", "h7");
+        move("b8", "c8");
+        move("f7", "g6");
+        assertThat(board.move("c8", "e6")).isEqualTo(GameState.STALEMATE);
+    }
+
+    @Test
+    public void testThreefoldRepetition() {
+        for (int i = 0; i < 2; i++) {
+            assertThat(board.getRepetitions()).isEqualTo(i + 1);
+            move("g1", "f3");
+            move("g8", "f6");
+            move("f3", "g1");
+            if (i == 0) {
+                move("f6", "g8");
+            }
+        }
+        assertThat(board.move("f6", "g8"))
+                .isEqualTo(GameState.DRAW_BY_REPETITION);
+        assertThat(board.getRepetitions()).isEqualTo(3);
+        assertThat(board.copy().getGameState())
+                .isEqualTo(GameState.DRAW_BY_REPETITION);
+
+        board.unmakeMove();
+        assertThat(board.getGameState()).isEqualTo(GameState.PLAYING);
+        // A pawn move cannot be undone, so what came before is forgotten.
+        move("e7", "e5");
+        move("g1", "f3");
+        move("f6", "g8");
+        move("f3", "g1");
+        assertThat(board.getRepetitions()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFiftyMoveRule() {
+        board = Board.fromFen("8/8/3k4/8/8/3K4/8/R7 w - - 98 80");
+        move("a1", "a2");
+        assertThat(board.move("d6", "e6"))
+                .isEqualTo(GameState.DRAW_BY_FIFTY_MOVES);
+        board.unmakeMove();
+        board.unmakeMove();
+        assertThat(board.getHalfmoveClock()).isEqualTo(98);
+        assertThat(board.getGameState()).isEqualTo(GameState.PLAYING);
+
+        // Unless the last move mates.
+        board = Board.fromFen("8/8/8/8/8/5K1k/8/R7 w - - 99 80");
+        assertThat(board.move("a1", "h1")).isEqualTo(GameState.WHITE_WINS);
+    }
+
+    @Test
+    public void testUnmakeMove() {
+        setupCastlingBoard();
+        move("h2", "h4");
+        move("a7", "a6");
+        move("h4", "h5");
+        move("g7", "g5");
+        String before = new BoardFormatter().format(board);
+        List<Move> legalMoves = board.legalMoves();
+
+        board.makeMove(Coord.fromNotation("h5"), Coord.fromNotation("g6"));
+        board.makeMove(Coord.fromNotation("f6"), Coord.fromNotation("e4"));
+        board.makeMove(Coord.fromNotation("e1"), Coord.fromNotation("g1"));
+        board.unmakeMove();
+        board.unmakeMove();
+        board.unmakeMove();
+
+        assertThat(new BoardFormatter().format(board)).isEqualTo(before);
+        assertThat(board.legalMoves()).isEqualTo(legalMoves);
+    }
+
+    @Test
+    public void testHashIsKeptUpToDate() {
+        long start = board.hash();
+        move("g1", "f3");
+        move("g8", "f6");
+        move("f3", "g1");
+        assertThat(board.hash()).isNotEqualTo(start);
+        move("f6", "g8");
+        assertThat(board.hash()).isEqualTo(start);
+
+        setupCastlingBoard();
+        move("e1", "g1");
+        move("h7", "h5");
+        assertThat(board.hash()).isEqualTo(board.computeHash());
+        board.unmakeMove();
+        board.unmakeMove();
+        assertThat(board.hash()).isEqualTo(board.computeHash());
+    }
+
+    @Test
+    public void testHashCoversEnPassantAndCastling() {
+        move("e2", "e4");
+        move("e7", "e5");
+        long withCastling = board.hash();
+        move("e1", "e2");
+        move("e8", "e7");
+        move("e2", "e1");
+        move("e7", "e8");
+        assertThat(board.hash()).isNotEqualTo(withCastling);
+
+        board = new Board(representation);
+        move("e2", "e4");
+        long withEnPassant = board.hash();
+        move("g8", "f6");
+        move("g1", "f3");
+        move("f6", "g8");
+        move("f3", "g1");
+        assertThat(board.hash()).isNotEqualTo(withEnPassant);
+        assertThat(board.hash()).isEqualTo(board.computeHash());
+    }
+
+    @Test
+    public void testScoresAreKeptUpToDate() {
+        assertThat(board.getMiddlegameScore()).isEqualTo(0);
+        assertThat(board.getEndgameScore()).isEqualTo(0);
+        assertThat(board.getPhase()).isEqualTo(PieceSquareTables.MAX_PHASE);
+
+        setupCastlingBoard();
+        move("e1", "g1");
+        move("f6", "e4");
+        move("c4", "f7");
+        move("e8", "f7");
+        assertScoresMatchPieces();
+        assertThat(board.getMiddlegameScore()).isLessThan(0);
+        assertThat(board.getPhase())
+                .isEqualTo(PieceSquareTables.MAX_PHASE - 1);
+
+        board.unmakeMove();
+        board.unmakeMove();
+        board.unmakeMove();
+        board.unmakeMove();
+        assertScoresMatchPieces();
+
+        Board copy = board.copy();
+        assertThat(copy.getMiddlegameScore())
+                .isEqualTo(board.getMiddlegameScore());
+        assertThat(copy.getEndgameScore()).isEqualTo(board.getEndgameScore());
+    }
+
+    @Test
+    public void testFenRoundTrip() {
+        String start =
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+        assertThat(board.toFen()).isEqualTo(start);
+        assertThat(Board.fromFen(start, representation).hash())
+                .isEqualTo(board.hash());
+
+        String kiwipete = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/"
+                + "PPPBBPPP/R3K2R w KQkq - 0 1";
+        assertThat(Board.fromFen(kiwipete, representation).toFen())
+                .isEqualTo(kiwipete);
+        assertThat(Board.fromFen(kiwipete, representation).legalMoves())
+                .hasSize(48);
+    }
+
+    @Test
+    public void testFenMatchesPlayedPosition() {
+        move("e2", "e4");
+        assertThat(board.toFen()).isEqualTo(
+                "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+
+        board = new Board(representation);
+        setupCastlingBoard();
+        move("e1", "g1");
+        String fen = board.toFen();
+        assertThat(fen).isEqualTo("rnbqk2r/pppp1ppp/5n2/2b1p3/2B1P3/5N2/"
+                + "PPPP1PPP/RNBQ1RK1 b kq - 5 4");
+
+        Board parsed = Board.fromFen(fen, representation);
+        assertThat(parsed.hash()).isEqualTo(board.hash());
+        assertThat(parsed.getHalfmoveClock()).isEqualTo(5);
+        assertThat(parsed.getFullmoveNumber()).isEqualTo(4);
+        assertThat(parsed.legalMoves()).isEqualTo(board.legalMoves());
+
+        board.unmakeMove();
+        assertThat(board.toFen()).isEqualTo("rnbqk2r/pppp1ppp/5n2/2b1p3/"
+                + "2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4");
+    }
+
+    @Test
+    public void testFenWithoutMoveCounters() {
+        Board parsed = Board.fromFen(
+                "4k3/8/8/3pP3/8/8/8/4K3 w - d6", representation);
+
+        assertThat(parsed.getHalfmoveClock()).isEqualTo(0);
+        assertThat(parsed.getFullmoveNumber()).isEqualTo(1);
+        assertThat(parsed.move("e5", "d6")).isEqualTo(GameState.PLAYING);
+        assertThat(parsed.getPiece(Coord.fromNotation("d5")).isPresent())
+                .isFalse();
+    }
+
+    @Test
+    public void testRejectsBadFen() {
+        String[] bad = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQ1BNR w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBN1 w KQkq - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e3 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - x 1",
+                "4k3/8/8/8/8/8/8/4K2R w - - 0 1 extra",
+                "4k3/4R3/8/8/8/8/8/4K3 w - - 0 1",
+                "4k3/8/8/3n4/4P3/8/8/4K3 w - d6 0 1",
+                "4k3/8/8/4pP2/8/8/8/4K3 w - d6 0 1",
+                "4k3/3p4/8/3pP3/8/8/8/4K3 w - d6 0 1",
+                "4k3/8/8/8/3Pp3/3B4/8/4K3 b - d3 0 1",
+        };
+        for (String fen : bad) {
+            try {
+                Board.fromFen(fen, representation);
+                throw new AssertionError("Accepted " + fen);
+            } catch (IllegalArgumentException expected) {
+                // Expected.
+            }
+        }
+    }
+
+    @Test
+    public void testUnderpromotion() {
+        move("a2", "a4");
+        move("b7", "b5");
+        move("a4", "b5");
+        move("a7", "a6");
+        move("b5", "a6");
+        move("c8", "b7");
+        move("a6", "b7");
+        move("b8", "c6");
+
+        MoveList moves = new MoveList();
+        board.legalMoves(moves);
+        int promotions = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            if (Moves.isPromotion(moves.get(i))) {
+                promotions++;
+            }
+        }
+        assertThat(promotions).isEqualTo(8);
+
+        int underpromotion = Moves.encode(
+                Coord.fromNotation("b7").getIndex(),
+                Coord.fromNotation("a8").getIndex(),
+                Type.KNIGHT,
+                0);
+        assertThat(board.move(underpromotion)).isEqualTo(GameState.PLAYING);
+        assertThat(board.getPiece(Coord.fromNotation("a8")).get())
+                .isEqualTo(Piece.of(Type.KNIGHT, Color.WHITE));
+        board.unmakeMove();
+        assertThat(board.getPiece(Coord.fromNotation("b7")).get())
+                .isEqualTo(Piece.of(Type.PAWN, Color.WHITE));
+        assertThat(board.getPiece(Coord.fromNotation("a8")).get())
+                .isEqualTo(Piece.of(Type.ROOK, Color.BLACK));
+        assertThat(board.move(Moves.encode(
+                Coord.fromNotation("g1").getIndex(),
+                Coord.fromNotation("f3").getIndex(),
+                Type.QUEEN,
+                0))).isEqualTo(GameState.ILLEGAL_MOVE);
+    }
+
+    private void assertScoresMatchPieces() {
+        int middlegame = 0;
+        int endgame = 0;
+        int phase = 0;
+        for (int square = 0; square < 64; square++) {
+            Piece piece = board.getPiece(Coord.fromIndex(square)).orElse(null);
+            if (piece != null) {
+                middlegame += PieceSquareTables.middlegame(piece, square);
+                endgame += PieceSquareTables.endgame(piece, square);
+                phase += PieceSquareTables.phase(piece.getType());
+            }
+        }
+        assertThat(board.getMiddlegameScore()).isEqualTo(middlegame);
+        assertThat(board.getEndgameScore()).isEqualTo(endgame);
+        assertThat(board.getPhase()).isEqualTo(phase);
+    }
+
+    private boolean castles(String fen, String from, String to) {
+        return Board.fromFen(fen, representation).move(from, to) !=
+                GameState.ILLEGAL_MOVE;
+    }
+
     private void setupCastlingBoard() {
         move("e2", "e4");
 
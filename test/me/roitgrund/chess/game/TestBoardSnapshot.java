@@ -0,0 +1,93 @@
+package me.roitgrund.chess.game;
+
+import me.roitgrund.chess.format.BoardFormatter;
+import me.roitgrund.chess.game.Board.Representation;
+import me.roitgrund.chess.perft.PerftPosition;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(Parameterized.class)
+public class TestBoardSnapshot {
+
+    @Parameter
+    public Representation representation;
+
+    @Parameters(name = "{0}")
+    public static Iterable<Representation> representations() {
+        return Arrays.asList(Representation.values());
+    }
+
+    @Test
+    public void testUnchangedByLaterMoves() {
+        Board board = new Board(representation);
+        board.move("e2", "e4");
+        BoardSnapshot snapshot = board.snapshot();
+        String fen = board.toFen();
+        String formatted = new BoardFormatter().format(board);
+
+        board.move("c7", "c5");
+        board.setPiece(Coord.fromNotation("e4"),
+                Piece.of(Piece.Type.QUEEN, Piece.Color.BLACK));
+
+        assertThat(snapshot.toFen()).isEqualTo(fen);
+        assertThat(new BoardFormatter().format(snapshot)).isEqualTo(formatted);
+        assertThat(snapshot.getTurn()).isEqualTo(Piece.Color.BLACK);
+        assertThat(snapshot.canEnPassant(Coord.fromNotation("e3"))).isTrue();
+        assertThat(snapshot.getPiece(Coord.fromNotation("e4")))
+                .isEqualTo(Optional.of(
+                        Piece.of(Piece.Type.PAWN, Piece.Color.WHITE)));
+        assertThat(snapshot.getPiece(Coord.fromNotation("e2")))
+                .isEqualTo(Optional.empty());
+        assertThat(snapshot).isNotEqualTo(board.snapshot());
+    }
+
+    @Test
+    public void testReadsLikeTheBoard() {
+        for (PerftPosition position : PerftPosition.values()) {
+            Board board = Board.fromFen(position.getFen(), representation);
+            BoardSnapshot snapshot = board.snapshot();
+
+            assertThat(snapshot.hash()).isEqualTo(board.hash());
+            assertThat(snapshot.getOccupancy())
+                    .isEqualTo(board.getOccupancy());
+            for (Castle castle : Castle.values()) {
+                assertThat(snapshot.hasCastlingRight(castle))
+                        .isEqualTo(board.hasCastlingRight(castle));
+            }
+            for (Piece.Color color : Piece.Color.values()) {
+                for (Piece.Type type : Piece.Type.values()) {
+                    assertThat(snapshot.getPieces(type, color))
+                            .isEqualTo(board.getPieces(type, color));
+                }
+            }
+            assertThat(snapshot).isEqualTo(board.snapshot());
+            assertThat(snapshot.hashCode())
+                    .isEqualTo(board.snapshot().hashCode());
+        }
+    }
+
+    @Test
+    public void testToBoard() {
+        for (PerftPosition position : PerftPosition.values()) {
+            Board board = Board.fromFen(position.getFen(), representation);
+            Board copy = board.snapshot().toBoard(representation);
+
+            assertThat(copy.toFen()).isEqualTo(board.toFen());
+            assertThat(copy.hash()).isEqualTo(board.hash());
+            assertThat(copy.legalMoves()).isEqualTo(board.legalMoves());
+            assertThat(copy.getMiddlegameScore())
+                    .isEqualTo(board.getMiddlegameScore());
+            assertThat(copy.getEndgameScore())
+                    .isEqualTo(board.getEndgameScore());
+            assertThat(copy.getPhase()).isEqualTo(board.getPhase());
+        }
+    }
+}
@@ -13,5 +13,28 @@ public class TestCoord {
     public void testIsValid() {
         assertThat(new Coord(0, 0).isValid()).isTrue();
         assertThat(new Coord(-1, 0).isValid()).isFalse();
+        assertThat(new Coord(8, 0).isValid()).isFalse();
+        assertThat(new Coord(0, 8).isValid()).isFalse();
+    }
+
+    @Test
+    public void testSquaresAreShared() {
+        assertThat(Coord.of(3, 4)).isSameInstanceAs(Coord.fromNotation("e4"));
+        assertThat(Coord.fromIndex(28)).isSameInstanceAs(Coord.of(3, 4));
+        assertThat(Coord.oneInFrontOf(Coord.of(3, 4), Piece.Color.WHITE))
+                .isSameInstanceAs(Coord.fromNotation("e5"));
+        assertThat(Coord.of(7, 7).next(1, 0).isValid()).isFalse();
+    }
+
+    @Test
+    public void testNotation() {
+        assertThat(Coord.fromNotation("A1")).isEqualTo(new Coord(0, 0));
+        assertThat(Coord.fromNotation("h8")).isEqualTo(new Coord(7, 7));
+        assertThat(Coord.of(3, 4).toNotation()).isEqualTo("e4");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotationOffTheBoard() {
+        Coord.fromNotation("i9");
     }
 }
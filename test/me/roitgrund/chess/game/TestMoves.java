@@ -0,0 +1,60 @@
+package me.roitgrund.chess.game;
+
+import me.roitgrund.chess.game.Piece.Type;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestMoves {
+
+    @Test
+    public void testEncodeDecode() {
+        int move = Moves.encode(
+                square("b7"), square("a8"), Type.KNIGHT, Moves.CAPTURE);
+
+        assertThat(Moves.from(move)).isEqualTo(square("b7"));
+        assertThat(Moves.to(move)).isEqualTo(square("a8"));
+        assertThat(Moves.promotion(move)).isEqualTo(Type.KNIGHT);
+        assertThat(Moves.isCapture(move)).isTrue();
+        assertThat(Moves.isCastle(move)).isFalse();
+        assertThat(Moves.toNotation(move)).isEqualTo("b7a8n");
+        assertThat(Moves.encode(Moves.decode(move)))
+                .isEqualTo(move & ~Moves.CAPTURE);
+    }
+
+    @Test
+    public void testMoveWithoutPromotion() {
+        int move = Moves.encode(square("e2"), square("e4"));
+
+        assertThat(Moves.isPromotion(move)).isFalse();
+        assertThat(Moves.promotion(move)).isNull();
+        assertThat(Moves.isSameMove(move, move | Moves.DOUBLE_PUSH)).isTrue();
+    }
+
+    @Test
+    public void testMoveList() {
+        MoveList moves = new MoveList(1);
+        moves.add(Moves.encode(square("e2"), square("e4")));
+        moves.add(Moves.encode(square("d2"), square("d4")));
+        moves.swap(0, 1);
+
+        assertThat(moves.size()).isEqualTo(2);
+        assertThat(Moves.toNotation(moves.get(0))).isEqualTo("d2d4");
+        assertThat(moves.contains(Moves.encode(square("e2"), square("e4"))))
+                .isTrue();
+        moves.clear();
+        assertThat(moves.isEmpty()).isTrue();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMoveListNeedsCapacity() {
+        new MoveList(0);
+    }
+
+    private static int square(String notation) {
+        return Coord.fromNotation(notation).getIndex();
+    }
+}
@@ -0,0 +1,95 @@
+package me.roitgrund.chess.game;
+
+import me.roitgrund.chess.perft.PerftPosition;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestPositionCodec {
+
+    @Test
+    public void testRoundTrip() {
+        for (PerftPosition position : PerftPosition.values()) {
+            assertRoundTrips(position.create());
+        }
+    }
+
+    @Test
+    public void testRoundTripAfterMoves() {
+        Board board = new Board();
+        board.move("e2", "e4");
+        assertRoundTrips(board);
+        board.move("g8", "f6");
+        board.move("e1", "e2");
+        assertRoundTrips(board);
+        assertThat(board.hasCastlingRight(Castle.WHITE_KING)).isFalse();
+    }
+
+    @Test
+    public void testFullBoard() {
+        Board board = Board.fromFen(
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR b Kq - 99 300");
+        assertRoundTrips(board);
+    }
+
+    @Test
+    public void testRelativeAccessAndByteOrder() {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * PositionCodec.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        Board start = new Board();
+        Board kiwipete = PerftPosition.KIWIPETE.create();
+        PositionCodec.encode(start, buffer);
+        PositionCodec.encode(kiwipete, buffer);
+        assertThat(buffer.position()).isEqualTo(2 * PositionCodec.BYTES);
+
+        buffer.flip().order(ByteOrder.BIG_ENDIAN);
+        assertThat(PositionCodec.decode(buffer).toFen())
+                .isEqualTo(start.toFen());
+        assertThat(PositionCodec.decode(buffer).toFen())
+                .isEqualTo(kiwipete.toFen());
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsTooManyPieces() {
+        PositionCodec.encode(Board.fromFen(
+                "rnbqkbnr/pppppppp/8/8/8/P7/PPPPPPPP/RNBQKBNR w - - 0 1"),
+                ByteBuffer.allocate(PositionCodec.BYTES));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEmptyRecord() {
+        PositionCodec.decode(ByteBuffer.allocate(PositionCodec.BYTES));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRejectsEnPassantWithoutPawn() {
+        Board board = new Board();
+        board.move("e2", "e4");
+        ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.BYTES);
+        PositionCodec.encode(board, buffer, 0);
+        // The f file, stored one up, where no pawn has just moved.
+        buffer.put(25, (byte) 6);
+        PositionCodec.decode(buffer, 0, Board.Representation.ARRAY);
+    }
+
+    private static void assertRoundTrips(Board board) {
+        ByteBuffer buffer = ByteBuffer.allocate(PositionCodec.BYTES + 3);
+        PositionCodec.encode(board, buffer, 3);
+        Board decoded = PositionCodec.decode(
+                buffer, 3, Board.Representation.ARRAY);
+
+        assertThat(decoded.toFen()).isEqualTo(board.toFen());
+        assertThat(decoded.hash()).isEqualTo(board.hash());
+        assertThat(decoded.getMiddlegameScore())
+                .isEqualTo(board.getMiddlegameScore());
+        assertThat(decoded.legalMoves()).containsExactlyElementsIn(
+                board.legalMoves());
+    }
+}
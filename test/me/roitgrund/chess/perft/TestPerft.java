@@ -0,0 +1,56 @@
+package me.roitgrund.chess.perft;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Move;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestPerft {
+
+    // Deep enough to reach checks, captures and en passant while keeping the
+    // suite fast.
+    private static final int MAX_DEPTH = 4;
+
+    private Perft perft;
+
+    @Before
+    public void setUp() {
+        perft = new Perft(new ForkJoinPool(2));
+    }
+
+    @Test
+    public void testReferencePositions() {
+        for (PerftPosition position : PerftPosition.values()) {
+            for (int depth = 1;
+                 depth <= Math.min(MAX_DEPTH, position.getMaxDepth());
+                 depth++) {
+                assertThat(Perft.count(position.create(), depth))
+                        .isEqualTo(position.getExpectedCount(depth));
+            }
+        }
+    }
+
+    @Test
+    public void testParallelCountMatchesSequential() {
+        Board board = new Board();
+        assertThat(perft.countInParallel(board, MAX_DEPTH))
+                .isEqualTo(Perft.count(board, MAX_DEPTH));
+    }
+
+    @Test
+    public void testDivideSumsToCount() {
+        Map<Move, Long> divide = perft.divide(new Board(), 3);
+
+        assertThat(divide).hasSize(20);
+        assertThat(divide.values().stream().mapToLong(Long::longValue).sum())
+                .isEqualTo(8902L);
+    }
+}
@@ -0,0 +1,130 @@
+package me.roitgrund.chess.pgn;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestPgnParser {
+
+    private static final String PGN = "[Event \"Casual \\\"blitz\\\"\"]\n"
+            + "[Site \"?\"]\n"
+            + "\n"
+            + "1.e4 {best by test (1. d4)} 1... e5 2. Nf3 $1 (2. f4 exf4\n"
+            + "(2... d5) 3. Nf3) Nc6!? ; a comment\n"
+            + "% an escaped line 3. a4\n"
+            + "3. Bb5 a6 1-0\n"
+            + "\n"
+            + "[Event \"No result\"]\n"
+            + "1. d4 d5\n"
+            + "[Event \"Third\"]\n"
+            + "\n"
+            + "1. c4 1/2-1/2\n";
+
+    @Test
+    public void testEvents() throws IOException {
+        assertThat(parse(PGN, 1 << 20)).containsExactly(
+                "start 0",
+                "tag Event Casual \"blitz\"",
+                "tag Site ?",
+                "move e4",
+                "move e5",
+                "move Nf3",
+                "move Nc6",
+                "move Bb5",
+                "move a6",
+                "end 1-0",
+                "start " + PGN.indexOf("[Event \"No"),
+                "tag Event No result",
+                "move d4",
+                "move d5",
+                "end *",
+                "start " + PGN.indexOf("[Event \"Th"),
+                "tag Event Third",
+                "move c4",
+                "end 1/2-1/2").inOrder();
+    }
+
+    @Test
+    public void testChunkBoundaries() throws IOException {
+        List<String> expected = parse(PGN, 1 << 20);
+        for (int chunkSize = 1; chunkSize < 16; chunkSize++) {
+            assertThat(parse(PGN, chunkSize)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testGameWithoutTagsOrResult() throws IOException {
+        assertThat(parse("\n1. e4 e5 2. Qh5", 4)).containsExactly(
+                "start 1",
+                "move e4",
+                "move e5",
+                "move Qh5",
+                "end *").inOrder();
+    }
+
+    @Test
+    public void testRemovesCheckAndAnnotationMarks() throws IOException {
+        String pgn = "1. e4 f5 2. Qh5+! g6 3. Qxg6+?? hxg6 4. Kd1 Rxh2#! 0-1";
+        assertThat(parse(pgn, 8)).containsExactly(
+                "start 0",
+                "move e4",
+                "move f5",
+                "move Qh5",
+                "move g6",
+                "move Qxg6",
+                "move hxg6",
+                "move Kd1",
+                "move Rxh2",
+                "end 0-1").inOrder();
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        assertThat(parse("", 16)).isEmpty();
+        assertThat(parse("  \n{just a comment}\n", 16)).isEmpty();
+    }
+
+    private static List<String> parse(String pgn, int chunkSize)
+            throws IOException {
+        List<String> events = new ArrayList<>();
+        PgnParser parser = new PgnParser(
+                Channels.newChannel(new ByteArrayInputStream(
+                        pgn.getBytes(StandardCharsets.US_ASCII))),
+                chunkSize);
+        PgnListener listener = new PgnListener() {
+            @Override
+            public void startGame(long offset) {
+                events.add("start " + offset);
+            }
+
+            @Override
+            public void tag(CharSequence name, CharSequence value) {
+                events.add("tag " + name + " " + value);
+            }
+
+            @Override
+            public void move(CharSequence san) {
+                events.add("move " + san);
+            }
+
+            @Override
+            public void endGame(CharSequence result) {
+                events.add("end " + result);
+            }
+        };
+        while (parser.parseGame(listener)) {
+            // Keep going.
+        }
+        return events;
+    }
+}
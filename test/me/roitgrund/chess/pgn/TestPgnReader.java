@@ -0,0 +1,98 @@
+package me.roitgrund.chess.pgn;
+
+import me.roitgrund.chess.game.Board.GameState;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestPgnReader {
+
+    private static final String PGN = "[Event \"Scholar's mate\"]\n"
+            + "\n"
+            + "1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6?? 4. Qxf7# 1-0\n"
+            + "\n"
+            + "[Event \"Illegal\"]\n"
+            + "\n"
+            + "1. e4 e5 2. Ke3 Nc6 *\n"
+            + "\n"
+            + "[Event \"From a position\"]\n"
+            + "[SetUp \"1\"]\n"
+            + "[FEN \"7k/5Q2/6K1/8/8/8/8/8 b - - 0 1\"]\n"
+            + "\n"
+            + "1... Kh7 1/2-1/2\n"
+            + "\n"
+            + "[FEN \"not a position\"]\n"
+            + "\n"
+            + "1. e4 *\n";
+
+    @Test
+    public void testReplaysGames() throws IOException {
+        List<GameRecord> records;
+        try (PgnReader reader = reader(PGN)) {
+            records = reader.stream().collect(Collectors.toList());
+        }
+
+        assertThat(records).hasSize(4);
+
+        GameRecord mate = records.get(0);
+        assertThat(mate.getGameNumber()).isEqualTo(1);
+        assertThat(mate.getOffset()).isEqualTo(0);
+        assertThat(mate.getPlies()).isEqualTo(7);
+        assertThat(mate.getFinalState()).isEqualTo(GameState.WHITE_WINS);
+        assertThat(mate.getResult()).isEqualTo("1-0");
+        assertThat(mate.isLegal()).isTrue();
+
+        GameRecord illegal = records.get(1);
+        assertThat(illegal.getPlies()).isEqualTo(2);
+        assertThat(illegal.getFinalState()).isEqualTo(GameState.ILLEGAL_MOVE);
+        assertThat(illegal.getIllegalMove()).isEqualTo(Optional.of("Ke3"));
+        assertThat(illegal.getOffset()).isEqualTo(PGN.indexOf("[Event \"Ill"));
+
+        GameRecord fromFen = records.get(2);
+        assertThat(fromFen.getPlies()).isEqualTo(0);
+        assertThat(fromFen.getFinalState()).isEqualTo(GameState.ILLEGAL_MOVE);
+        assertThat(fromFen.getIllegalMove()).isEqualTo(Optional.of("Kh7"));
+
+        GameRecord badFen = records.get(3);
+        assertThat(badFen.getFinalState()).isEqualTo(GameState.ILLEGAL_MOVE);
+        assertThat(badFen.getIllegalMove()).isEqualTo(Optional.of(""));
+    }
+
+    @Test
+    public void testPositionFromFen() throws IOException {
+        String pgn = "[FEN \"7k/5Q2/6K1/8/8/8/8/8 w - - 0 1\"]\n\n"
+                + "1. Qg7# 1-0\n";
+        try (PgnReader reader = reader(pgn)) {
+            GameRecord record = reader.next();
+
+            assertThat(record.getFinalState()).isEqualTo(GameState.WHITE_WINS);
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    public void testCallback() throws IOException {
+        int[] games = {0};
+        try (PgnReader reader = reader(PGN)) {
+            reader.read(record -> games[0]++);
+        }
+
+        assertThat(games[0]).isEqualTo(4);
+    }
+
+    private static PgnReader reader(String pgn) {
+        return new PgnReader(Channels.newChannel(new ByteArrayInputStream(
+                pgn.getBytes(StandardCharsets.US_ASCII))));
+    }
+}
@@ -0,0 +1,79 @@
+package me.roitgrund.chess.pgn;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Moves;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestSan {
+
+    @Test
+    public void testPawnAndPieceMoves() {
+        Board board = new Board();
+
+        assertThat(resolve(board, "e4")).isEqualTo("e2e4");
+        assertThat(resolve(board, "Nf3")).isEqualTo("g1f3");
+        assertThat(resolve(board, "Ng1f3")).isEqualTo("g1f3");
+        assertThat(resolve(board, "Nf3+!?")).isEqualTo("g1f3");
+        assertThat(resolve(board, "e5")).isNull();
+        assertThat(resolve(board, "Bc4")).isNull();
+        assertThat(resolve(board, "Xe4")).isNull();
+        assertThat(resolve(board, "e")).isNull();
+    }
+
+    @Test
+    public void testCapturesAndDisambiguation() {
+        Board board = Board.fromFen("4k3/8/8/3p4/2P1P3/8/8/R3K2R w KQ -");
+
+        assertThat(resolve(board, "cxd5")).isEqualTo("c4d5");
+        assertThat(resolve(board, "exd5")).isEqualTo("e4d5");
+        assertThat(resolve(board, "xd5")).isNull();
+        assertThat(resolve(board, "Rd1")).isEqualTo("a1d1");
+        assertThat(resolve(board, "Rf1")).isEqualTo("h1f1");
+        assertThat(resolve(board, "Rb1")).isEqualTo("a1b1");
+        assertThat(resolve(board, "O-O")).isEqualTo("e1g1");
+        assertThat(resolve(board, "0-0-0")).isEqualTo("e1c1");
+
+        board = Board.fromFen("4k3/8/8/8/8/8/8/R3K2R w - -");
+        assertThat(resolve(board, "O-O")).isNull();
+
+        board = Board.fromFen("4k3/8/8/8/8/8/8/R1R1K3 w - -");
+        assertThat(resolve(board, "Rb1")).isNull();
+        assertThat(resolve(board, "Rab1")).isEqualTo("a1b1");
+        assertThat(resolve(board, "Rcb1")).isEqualTo("c1b1");
+    }
+
+    @Test
+    public void testPawnCapturesNeedFileAndTakes() {
+        Board board = Board.fromFen("4k3/8/8/3p4/2P5/8/8/4K3 w - -");
+        assertThat(resolve(board, "cxd5")).isEqualTo("c4d5");
+        assertThat(resolve(board, "d5")).isNull();
+        assertThat(resolve(board, "cd5")).isNull();
+        assertThat(resolve(board, "c5")).isEqualTo("c4c5");
+        assertThat(resolve(board, "cxc5")).isNull();
+
+        board = Board.fromFen("4k3/8/8/3pP3/8/8/8/4K3 w - d6");
+        assertThat(resolve(board, "d6")).isNull();
+        assertThat(resolve(board, "exd6")).isEqualTo("e5d6");
+    }
+
+    @Test
+    public void testPromotions() {
+        Board board = Board.fromFen("1r2k3/P7/8/8/8/8/8/4K3 w - -");
+
+        assertThat(resolve(board, "a8=Q")).isEqualTo("a7a8q");
+        assertThat(resolve(board, "a8N")).isEqualTo("a7a8n");
+        assertThat(resolve(board, "a8")).isEqualTo("a7a8q");
+        assertThat(resolve(board, "axb8=R+")).isEqualTo("a7b8r");
+        assertThat(resolve(board, "a8=K")).isNull();
+    }
+
+    private String resolve(Board board, String san) {
+        int move = San.resolve(board, san);
+        return move == Moves.NONE ? null : Moves.toNotation(move);
+    }
+}
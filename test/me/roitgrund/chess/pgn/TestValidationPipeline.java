@@ -0,0 +1,135 @@
+package me.roitgrund.chess.pgn;
+
+import me.roitgrund.chess.game.Board.GameState;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestValidationPipeline {
+
+    private static final String[] GAMES = {
+            "[Event \"Scholar's mate\"]\n\n"
+                    + "1. e4 e5 2. Bc4 Nc6 3. Qh5 Nf6?? 4. Qxf7# 1-0\n\n",
+            "[Event \"Illegal\"]\n\n1. e4 e5 2. Ke3 Nc6 *\n\n",
+            "[FEN \"7k/8/6K1/8/8/8/8/5Q2 w - - 0 1\"]\n\n"
+                    + "1. Qf7 1/2-1/2\n\n",
+            "[Event \"Wrong result\"]\n\n"
+                    + "1. f3 e5 2. g4 Qh4# 1-0\n\n",
+            "1. d4 d5 2. c4 e6 3. Nc3 Nf6 1/2-1/2\n\n",
+    };
+
+    @Test
+    public void testMatchesSingleThreadedReplay() throws Exception {
+        StringBuilder pgn = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            pgn.append(GAMES[i % GAMES.length]);
+        }
+
+        List<GameRecord> expected;
+        try (PgnReader reader = new PgnReader(channel(pgn.toString()))) {
+            expected = reader.stream().collect(Collectors.toList());
+        }
+
+        List<GameRecord> records = new ArrayList<>();
+        ValidationSummary summary = new ValidationPipeline(4, 2, 3)
+                .run(channel(pgn.toString()), records::add);
+
+        assertThat(records).containsExactlyElementsIn(expected).inOrder();
+        assertThat(summary.getGames()).isEqualTo(50);
+        assertThat(summary.getIllegalGames()).isEqualTo(10);
+        assertThat(summary.getStates().get(GameState.WHITE_WINS))
+                .isEqualTo(10);
+        assertThat(summary.getStates().get(GameState.BLACK_WINS))
+                .isEqualTo(10);
+        assertThat(summary.getStates().get(GameState.STALEMATE))
+                .isEqualTo(10);
+        assertThat(summary.getStates().get(GameState.PLAYING))
+                .isEqualTo(10);
+        assertThat(summary.getResultMismatches()).isEqualTo(10);
+    }
+
+    @Test
+    public void testEmptyInput() throws Exception {
+        List<GameRecord> records = new ArrayList<>();
+        ValidationSummary summary =
+                new ValidationPipeline(2).run(channel(""), records::add);
+
+        assertThat(records).isEmpty();
+        assertThat(summary.getGames()).isEqualTo(0);
+    }
+
+    @Test
+    public void testRunsTwice() throws Exception {
+        ValidationPipeline pipeline = new ValidationPipeline(2, 1, 1);
+        for (int i = 0; i < 2; i++) {
+            ValidationSummary summary =
+                    pipeline.run(channel(GAMES[0] + GAMES[1]), record -> { });
+
+            assertThat(summary.getGames()).isEqualTo(2);
+            assertThat(pipeline.getGamesChecked()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void testStopsOnFailureWithBoundedBacklog() throws Exception {
+        StringBuilder pgn = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            pgn.append(GAMES[0]);
+        }
+        RuntimeException broken = new RuntimeException("broken");
+        AtomicInteger started = new AtomicInteger();
+        AtomicInteger startedWhileSlow = new AtomicInteger();
+        ValidationPipeline pipeline = new ValidationPipeline(2, 1, 1, () -> {
+            GameReplayer replayer = new GameReplayer();
+            return game -> {
+                started.incrementAndGet();
+                if (game.getGameNumber() == 1) {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                    startedWhileSlow.set(started.get());
+                } else if (game.getGameNumber() == 20) {
+                    throw broken;
+                }
+                return replayer.replay(game);
+            };
+        });
+
+        List<GameRecord> records = new ArrayList<>();
+        try {
+            pipeline.run(channel(pgn.toString()), records::add);
+            throw new AssertionError("Replay failure not thrown");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasCauseThat().isSameInstanceAs(broken);
+        }
+        // Two queues of one batch and two replay threads.
+        assertThat(startedWhileSlow.get()).isAtMost(4);
+        assertThat(started.get()).isLessThan(30);
+        assertThat(records.size()).isLessThan(20);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNeedsAReplayThread() {
+        new ValidationPipeline(0);
+    }
+
+    private static ReadableByteChannel channel(String pgn) {
+        return Channels.newChannel(new ByteArrayInputStream(
+                pgn.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
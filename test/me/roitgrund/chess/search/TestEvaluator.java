@@ -0,0 +1,73 @@
+package me.roitgrund.chess.search;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Coord;
+import me.roitgrund.chess.game.Piece;
+import me.roitgrund.chess.game.Piece.Color;
+import me.roitgrund.chess.game.Piece.Type;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestEvaluator {
+
+    private Evaluator evaluator;
+    private Board board;
+
+    @Before
+    public void setUp() {
+        evaluator = new Evaluator();
+        board = new Board();
+    }
+
+    @Test
+    public void testStartIsLevel() {
+        assertThat(evaluator.evaluate(board)).isEqualTo(0);
+    }
+
+    @Test
+    public void testScoresForPlayerToMove() {
+        board.removePiece(Coord.fromNotation("b8"));
+
+        int whiteToMove = evaluator.evaluate(board);
+        board.move("e2", "e4");
+        int blackToMove = evaluator.evaluate(board);
+
+        assertThat(whiteToMove).isGreaterThan(200);
+        assertThat(blackToMove).isLessThan(-200);
+    }
+
+    @Test
+    public void testPrefersCentralisedKnight() {
+        board.move("g1", "f3");
+        board.move("g8", "h6");
+
+        assertThat(evaluator.evaluate(board)).isGreaterThan(0);
+    }
+
+    @Test
+    public void testEndgameKingWantsCentre() {
+        Board endgame = kingsAndPawns("e4", "h8");
+
+        assertThat(evaluator.evaluate(endgame)).isGreaterThan(0);
+    }
+
+    private static Board kingsAndPawns(String whiteKing, String blackKing) {
+        Board board = new Board();
+        for (int square = 0; square < 64; square++) {
+            Coord coord = Coord.fromIndex(square);
+            if (coord.getRow() != 1 && coord.getRow() != 6) {
+                board.removePiece(coord);
+            }
+        }
+        board.setPiece(Coord.fromNotation(whiteKing),
+                Piece.of(Type.KING, Color.WHITE));
+        board.setPiece(Coord.fromNotation(blackKing),
+                Piece.of(Type.KING, Color.BLACK));
+        return board;
+    }
+}
@@ -0,0 +1,66 @@
+package me.roitgrund.chess.search;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Moves;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestParallelSearcher {
+
+    private ParallelSearcher searcher;
+    private Board board;
+
+    @Before
+    public void setUp() {
+        searcher = new ParallelSearcher(4, new TranspositionTable(4));
+        board = new Board();
+    }
+
+    @After
+    public void tearDown() {
+        searcher.close();
+    }
+
+    @Test
+    public void testFindsMateInOne() {
+        board.move("f2", "f3");
+        board.move("e7", "e5");
+        board.move("g2", "g4");
+
+        SearchResult result = searcher.search(board, SearchLimits.depth(4));
+
+        assertThat(Moves.toNotation(result.getBestMove())).isEqualTo("d8h4");
+        assertThat(result.isMate()).isTrue();
+    }
+
+    @Test
+    public void testAgreesWithSingleThread() {
+        board.move("e2", "e4");
+        board.move("d7", "d5");
+        board.move("d1", "g4");
+
+        SearchResult parallel = searcher.search(board, SearchLimits.depth(4));
+        SearchResult single =
+                new Searcher().search(board, SearchLimits.depth(4));
+
+        assertThat(Moves.toNotation(parallel.getBestMove())).isEqualTo("c8g4");
+        assertThat(parallel.getBestMove()).isEqualTo(single.getBestMove());
+    }
+
+    @Test
+    public void testLeavesBoardAsFound() {
+        long hash = board.hash();
+
+        SearchResult result = searcher.search(board, SearchLimits.depth(5));
+
+        assertThat(board.hash()).isEqualTo(hash);
+        assertThat(result.getDepth()).isEqualTo(5);
+        assertThat(result.getNodes()).isGreaterThan(0L);
+    }
+}
@@ -0,0 +1,107 @@
+package me.roitgrund.chess.search;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Moves;
+import me.roitgrund.chess.tablebase.Material;
+import me.roitgrund.chess.tablebase.Tablebase;
+import me.roitgrund.chess.tablebase.TablebaseGenerator;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestSearcher {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Searcher searcher;
+    private Board board;
+
+    @Before
+    public void setUp() {
+        searcher = new Searcher();
+        board = new Board();
+    }
+
+    @Test
+    public void testFindsMateInOne() {
+        board.move("f2", "f3");
+        board.move("e7", "e5");
+        board.move("g2", "g4");
+
+        SearchResult result = searcher.search(board, SearchLimits.depth(3));
+
+        assertThat(Moves.toNotation(result.getBestMove())).isEqualTo("d8h4");
+        assertThat(result.isMate()).isTrue();
+        assertThat(result.getScore()).isGreaterThan(0);
+    }
+
+    @Test
+    public void testTakesHangingQueen() {
+        board.move("e2", "e4");
+        board.move("d7", "d5");
+        board.move("d1", "g4");
+
+        SearchResult result = searcher.search(board, SearchLimits.depth(3));
+
+        assertThat(Moves.toNotation(result.getBestMove())).isEqualTo("c8g4");
+        assertThat(result.getScore()).isGreaterThan(500);
+    }
+
+    @Test
+    public void testLeavesBoardAsFound() {
+        long hash = board.hash();
+
+        searcher.search(board, SearchLimits.depth(4));
+
+        assertThat(board.hash()).isEqualTo(hash);
+        assertThat(board.legalMoves()).hasSize(20);
+    }
+
+    @Test
+    public void testStopsAtNodeLimit() {
+        SearchResult result = searcher.search(board, SearchLimits.nodes(5000));
+
+        assertThat(result.getBestMove()).isNotEqualTo(Moves.NONE);
+        assertThat(result.getDepth()).isLessThan(SearchLimits.MAX_DEPTH);
+        assertThat(result.getNodes()).isAtMost(5000L);
+    }
+
+    @Test
+    public void testNoMovesWhenMated() {
+        board.move("f2", "f3");
+        board.move("e7", "e5");
+        board.move("g2", "g4");
+        board.move("d8", "h4");
+
+        SearchResult result = searcher.search(board, SearchLimits.depth(2));
+
+        assertThat(result.getBestMove()).isEqualTo(Moves.NONE);
+        assertThat(result.getScore()).isEqualTo(-Searcher.MATE);
+    }
+
+    @Test
+    public void testScoresFromTablebase() throws Exception {
+        TablebaseGenerator generator =
+                new TablebaseGenerator(folder.getRoot().toPath(), 2);
+        generator.generate(Material.of("KRvK"));
+        Tablebase tablebase = generator.getTablebase();
+        board = Board.fromFen("8/8/8/4k3/8/8/8/R3K3 w - - 0 1");
+        int plies = tablebase.probe(board).get().getPliesToMate();
+        searcher = new Searcher(
+                new Evaluator(), new TranspositionTable(1), tablebase);
+
+        SearchResult result = searcher.search(board, SearchLimits.depth(2));
+
+        assertThat(result.getScore()).isEqualTo(Searcher.MATE - plies);
+        board.makeMove(result.getBestMove());
+        assertThat(tablebase.probe(board).get().getPliesToMate())
+                .isEqualTo(plies - 1);
+    }
+}
@@ -0,0 +1,139 @@
+package me.roitgrund.chess.search;
+
+import me.roitgrund.chess.game.Moves;
+import me.roitgrund.chess.search.TranspositionTable.Bound;
+import me.roitgrund.chess.search.TranspositionTable.ReplacementPolicy;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestTranspositionTable {
+
+    private static final long HASH = 0x1234_5678_9abc_def0L;
+    private static final int MOVE =
+            Moves.encode(12, 28, null, Moves.DOUBLE_PUSH);
+
+    private TranspositionTable table;
+
+    @Before
+    public void setUp() {
+        table = new TranspositionTable(1);
+    }
+
+    @Test
+    public void testProbeReturnsStoredEntry() {
+        table.store(HASH, MOVE, -Searcher.MATE + 3, 5, Bound.LOWER);
+
+        long entry = table.probe(HASH);
+
+        assertThat(entry).isNotEqualTo(TranspositionTable.MISS);
+        assertThat(TranspositionTable.move(entry)).isEqualTo(MOVE);
+        assertThat(TranspositionTable.score(entry))
+                .isEqualTo(-Searcher.MATE + 3);
+        assertThat(TranspositionTable.depth(entry)).isEqualTo(5);
+        assertThat(TranspositionTable.bound(entry)).isEqualTo(Bound.LOWER);
+    }
+
+    @Test
+    public void testMissesOtherPositionInSameSlot() {
+        table.store(HASH, MOVE, 10, 5, Bound.EXACT);
+
+        assertThat(table.probe(HASH ^ 1L << 60))
+                .isEqualTo(TranspositionTable.MISS);
+        assertThat(table.probe(HASH + 1)).isEqualTo(TranspositionTable.MISS);
+    }
+
+    @Test
+    public void testKeepsDeeperResultForSamePosition() {
+        table.store(HASH, MOVE, 10, 6, Bound.EXACT);
+        table.store(HASH, Moves.NONE, 20, 2, Bound.UPPER);
+
+        assertThat(TranspositionTable.depth(table.probe(HASH))).isEqualTo(6);
+    }
+
+    @Test
+    public void testAlwaysReplace() {
+        table = new TranspositionTable(1, ReplacementPolicy.ALWAYS_REPLACE);
+        table.store(HASH, MOVE, 10, 6, Bound.EXACT);
+
+        table.store(HASH ^ 1L << 60, Moves.NONE, 20, 2, Bound.UPPER);
+
+        assertThat(table.probe(HASH)).isEqualTo(TranspositionTable.MISS);
+        assertThat(table.getOverwrites()).isEqualTo(1);
+    }
+
+    @Test
+    public void testDepthPreferred() {
+        table = new TranspositionTable(1, ReplacementPolicy.DEPTH_PREFERRED);
+        table.store(HASH, MOVE, 10, 6, Bound.EXACT);
+
+        table.store(HASH ^ 1L << 60, Moves.NONE, 20, 2, Bound.UPPER);
+
+        assertThat(table.probe(HASH)).isNotEqualTo(TranspositionTable.MISS);
+        assertThat(table.probe(HASH ^ 1L << 60))
+                .isEqualTo(TranspositionTable.MISS);
+
+        table.store(HASH ^ 1L << 60, Moves.NONE, 20, 6, Bound.UPPER);
+
+        assertThat(table.probe(HASH)).isEqualTo(TranspositionTable.MISS);
+    }
+
+    @Test
+    public void testDepthPreferredGivesWayToNewSearch() {
+        table = new TranspositionTable(1, ReplacementPolicy.DEPTH_PREFERRED);
+        table.store(HASH, MOVE, 10, 6, Bound.EXACT);
+
+        table.newSearch();
+        table.store(HASH ^ 1L << 60, Moves.NONE, 20, 2, Bound.UPPER);
+
+        assertThat(table.probe(HASH ^ 1L << 60))
+                .isNotEqualTo(TranspositionTable.MISS);
+    }
+
+    @Test
+    public void testTwoTierKeepsBoth() {
+        table = new TranspositionTable(1, ReplacementPolicy.TWO_TIER);
+        table.store(HASH, MOVE, 10, 6, Bound.EXACT);
+
+        table.store(HASH ^ 1L << 60, Moves.NONE, 20, 2, Bound.UPPER);
+        table.store(HASH ^ 1L << 61, Moves.NONE, 30, 3, Bound.UPPER);
+
+        assertThat(TranspositionTable.depth(table.probe(HASH))).isEqualTo(6);
+        assertThat(table.probe(HASH ^ 1L << 60))
+                .isEqualTo(TranspositionTable.MISS);
+        assertThat(TranspositionTable.score(table.probe(HASH ^ 1L << 61)))
+                .isEqualTo(30);
+    }
+
+    @Test
+    public void testCountsHits() {
+        table.store(HASH, MOVE, 10, 5, Bound.EXACT);
+
+        table.probe(HASH);
+        table.probe(HASH + 1);
+
+        assertThat(table.getProbes()).isEqualTo(2);
+        assertThat(table.getHits()).isEqualTo(1);
+        assertThat(table.getHitRate()).isEqualTo(0.5);
+        assertThat(table.getStores()).isEqualTo(1);
+    }
+
+    @Test
+    public void testCapacity() {
+        assertThat(new TranspositionTable(1).getCapacity()).isEqualTo(1 << 16);
+        assertThat(new TranspositionTable(3).getCapacity()).isEqualTo(1 << 17);
+    }
+
+    @Test
+    public void testClear() {
+        table.store(HASH, MOVE, 10, 5, Bound.EXACT);
+
+        table.clear();
+
+        assertThat(table.probe(HASH)).isEqualTo(TranspositionTable.MISS);
+    }
+}
@@ -0,0 +1,201 @@
+package me.roitgrund.chess.session;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.Board.GameState;
+import me.roitgrund.chess.game.BoardSnapshot;
+import me.roitgrund.chess.game.Coord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestGameSessionManager {
+    // Knights out and back, which leaves both sides where they started.
+    private static final String[] SHUFFLE =
+            {"g1", "f3", "b8", "c6", "f3", "g1", "c6", "b8"};
+
+    private GameSessionManager manager;
+
+    @Before
+    public void setUp() {
+        manager = new GameSessionManager(4);
+    }
+
+    @After
+    public void tearDown() {
+        manager.close();
+    }
+
+    @Test
+    public void testMovesAreAppliedInOrder() throws Exception {
+        long gameId = manager.newGame();
+        List<CompletableFuture<GameState>> states = new ArrayList<>();
+        for (String[] move : new String[][] {
+                {"f2", "f3"}, {"e7", "e5"}, {"g2", "g4"}, {"d8", "h4"}}) {
+            states.add(manager.move(gameId, coord(move[0]), coord(move[1])));
+        }
+
+        assertThat(states.get(2).get()).isEqualTo(GameState.PLAYING);
+        assertThat(states.get(3).get()).isEqualTo(GameState.BLACK_WINS);
+        assertThat(manager.submit(gameId, Board::toFen).get())
+                .isEqualTo("rnb1kbnr/pppp1ppp/8/4p3/6Pq/5P2/PPPPP2P/RNBQKBNR"
+                        + " w KQkq - 1 3");
+    }
+
+    @Test
+    public void testManyGamesAtOnce() throws Exception {
+        int games = 200;
+        int shuffles = 10;
+        long[] gameIds = new long[games];
+        for (int i = 0; i < games; i++) {
+            gameIds[i] = manager.newGame();
+        }
+
+        // Each game gets its moves from one thread, but the threads send
+        // to all the games at once.
+        List<Thread> senders = new ArrayList<>();
+        List<CompletableFuture<GameState>> last = new ArrayList<>();
+        for (int sender = 0; sender < 4; sender++) {
+            List<Long> mine = new ArrayList<>();
+            for (int i = sender; i < games; i += 4) {
+                mine.add(gameIds[i]);
+            }
+            Thread thread = new Thread(() -> {
+                for (int shuffle = 0; shuffle < shuffles; shuffle++) {
+                    for (int i = 0; i < SHUFFLE.length; i += 2) {
+                        for (long gameId : mine) {
+                            CompletableFuture<GameState> state =
+                                    manager.move(gameId,
+                                            coord(SHUFFLE[i]),
+                                            coord(SHUFFLE[i + 1]));
+                            if (shuffle == shuffles - 1 &&
+                                    i == SHUFFLE.length - 2) {
+                                synchronized (last) {
+                                    last.add(state);
+                                }
+                            }
+                        }
+                    }
+                }
+            });
+            senders.add(thread);
+            thread.start();
+        }
+        for (Thread thread : senders) {
+            thread.join();
+        }
+
+        assertThat(last).hasSize(games);
+        for (CompletableFuture<GameState> state : last) {
+            // The start position keeps coming back.
+            assertThat(state.get()).isEqualTo(GameState.DRAW_BY_REPETITION);
+        }
+        for (long gameId : gameIds) {
+            assertThat(manager.submit(gameId, Board::getFullmoveNumber).get())
+                    .isEqualTo(1 + 2 * shuffles);
+        }
+        SessionStats stats = manager.getStats();
+        assertThat(stats.getGames()).isEqualTo(games);
+        assertThat(stats.getMoves())
+                .isEqualTo((long) games * shuffles * SHUFFLE.length / 2);
+        assertThat(stats.getIllegalMoves()).isEqualTo(0);
+        assertThat(stats.getLatencyNanos(0.5))
+                .isAtMost(stats.getLatencyNanos(0.99));
+        assertThat(stats.getLatencyNanos(1)).isGreaterThan(0L);
+    }
+
+    @Test
+    public void testSnapshots() throws Exception {
+        long gameId = manager.newGame();
+        BoardSnapshot start = manager.getSnapshot(gameId);
+        assertThat(start).isEqualTo(new Board().snapshot());
+
+        // A reader that never waits for the game.
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<String> badFen = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (!done.get()) {
+                String fen = manager.getSnapshot(gameId).toFen();
+                if (!Board.fromFen(fen).toFen().equals(fen)) {
+                    badFen.set(fen);
+                }
+            }
+        });
+        reader.start();
+        CompletableFuture<GameState> state = null;
+        for (int i = 0; i < 100; i++) {
+            state = manager.move(gameId,
+                    coord(SHUFFLE[(2 * i) % SHUFFLE.length]),
+                    coord(SHUFFLE[(2 * i + 1) % SHUFFLE.length]));
+        }
+        state.get();
+        done.set(true);
+        reader.join();
+
+        assertThat(badFen.get()).isNull();
+        assertThat(manager.getSnapshot(gameId).getFullmoveNumber())
+                .isEqualTo(51);
+        assertThat(manager.getSnapshot(gameId))
+                .isEqualTo(manager.submit(gameId, Board::snapshot).get());
+        assertThat(start).isEqualTo(new Board().snapshot());
+    }
+
+    @Test
+    public void testIllegalMove() throws Exception {
+        long gameId = manager.newGame();
+
+        assertThat(manager.move(gameId, coord("e2"), coord("e5")).get())
+                .isEqualTo(GameState.ILLEGAL_MOVE);
+        assertThat(manager.getStats().getIllegalMoves()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFailedWorkDoesNotStopTheGame() throws Exception {
+        long gameId = manager.newGame();
+
+        CompletableFuture<Object> failed = manager.submit(gameId, board -> {
+            throw new IllegalStateException("Broken");
+        });
+        CompletableFuture<GameState> state =
+                manager.move(gameId, coord("e2"), coord("e4"));
+
+        assertThat(state.get()).isEqualTo(GameState.PLAYING);
+        assertThat(failed.isCompletedExceptionally()).isTrue();
+    }
+
+    @Test
+    public void testEndGame() {
+        long gameId = manager.newGame(
+                Board.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1"));
+        long otherId = manager.newGame();
+        assertThat(otherId).isNotEqualTo(gameId);
+        assertThat(manager.getGames()).isEqualTo(2);
+
+        assertThat(manager.endGame(gameId)).isTrue();
+        assertThat(manager.endGame(gameId)).isFalse();
+        assertThat(manager.hasGame(gameId)).isFalse();
+        assertThat(manager.getGames()).isEqualTo(1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoSuchGame() {
+        long gameId = manager.newGame();
+        manager.endGame(gameId);
+
+        manager.move(gameId, coord("e2"), coord("e4"));
+    }
+
+    private static Coord coord(String notation) {
+        return Coord.fromNotation(notation);
+    }
+}
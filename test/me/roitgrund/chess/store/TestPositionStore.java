@@ -0,0 +1,89 @@
+package me.roitgrund.chess.store;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.PositionCodec;
+import me.roitgrund.chess.perft.PerftPosition;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestPositionStore {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAppendAndReopen() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("positions");
+        PerftPosition[] positions = PerftPosition.values();
+        try (PositionStore store = open(path)) {
+            for (int i = 0; i < 10; i++) {
+                assertThat(store.append(positions[i % positions.length]
+                        .create())).isEqualTo(i);
+            }
+            assertThat(store.size()).isEqualTo(10);
+            assertThat(store.get(7).toFen()).isEqualTo(fen(positions, 7));
+        }
+
+        assertThat(Files.size(path)).isEqualTo(10 * PositionCodec.BYTES);
+
+        try (PositionStore store = open(path)) {
+            assertThat(store.size()).isEqualTo(10);
+            for (int i = 0; i < 10; i++) {
+                assertThat(store.get(i).toFen()).isEqualTo(fen(positions, i));
+            }
+            store.append(new Board());
+            assertThat(store.get(10).toFen()).isEqualTo(new Board().toFen());
+        }
+    }
+
+    @Test
+    public void testDropsUnwrittenRecords() throws IOException {
+        Path path = folder.getRoot().toPath().resolve("positions");
+        try (PositionStore store = open(path)) {
+            store.append(new Board());
+        }
+        // As if the process died with a chunk mapped but not filled.
+        try (FileChannel channel =
+                     FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(1),
+                    4 * PositionCodec.BYTES - 1);
+        }
+
+        try (PositionStore store = open(path)) {
+            assertThat(store.size()).isEqualTo(1);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetPastEnd() throws IOException {
+        try (PositionStore store =
+                     open(folder.getRoot().toPath().resolve("positions"))) {
+            store.append(new Board());
+            store.get(1);
+        }
+    }
+
+    private static String fen(PerftPosition[] positions, int i) {
+        return positions[i % positions.length].create().toFen();
+    }
+
+    private static PositionStore open(Path path) throws IOException {
+        return new PositionStore(FileChannel.open(path,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE), 3);
+    }
+}
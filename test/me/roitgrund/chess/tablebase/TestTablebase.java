@@ -0,0 +1,190 @@
+package me.roitgrund.chess.tablebase;
+
+import me.roitgrund.chess.game.Board;
+import me.roitgrund.chess.game.MoveList;
+import me.roitgrund.chess.tablebase.TablebaseResult.Outcome;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Optional;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+
+@RunWith(JUnit4.class)
+public class TestTablebase {
+
+    @ClassRule
+    public static final TemporaryFolder FOLDER = new TemporaryFolder();
+
+    private static Tablebase tablebase;
+
+    @BeforeClass
+    public static void generate() throws Exception {
+        TablebaseGenerator generator =
+                new TablebaseGenerator(FOLDER.getRoot().toPath(), 4);
+        generator.generate(Material.of("KQvK"));
+        generator.generate(Material.of("KRvK"));
+        generator.generate(Material.of("KPvK"));
+        tablebase = generator.getTablebase();
+    }
+
+    @Test
+    public void testMaterial() {
+        Material material = Material.of("PRKvRK");
+        assertThat(material.getName()).isEqualTo("KRPvKR");
+        assertThat(material.getPieceCount()).isEqualTo(5);
+        assertThat(material.size()).isEqualTo(1 << 30);
+        assertThat(Material.of("KPvK").successors()).containsExactly(
+                Material.of("KvK"),
+                Material.of("KQvK"),
+                Material.of("KRvK"),
+                Material.of("KBvK"),
+                Material.of("KNvK"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTooManyPieces() {
+        Material.of("KQRPvKQ");
+    }
+
+    @Test
+    public void testMates() {
+        assertThat(probe("7k/6Q1/6K1/8/8/8/8/8 b - - 0 1"))
+                .isEqualTo("LOSS in 0 plies");
+        assertThat(probe("7k/8/6K1/8/8/8/8/1Q6 w - - 0 1"))
+                .isEqualTo("WIN in 1 plies");
+        assertThat(probe("7k/5Q2/6K1/8/8/8/8/8 b - - 0 1"))
+                .isEqualTo("DRAW");
+    }
+
+    @Test
+    public void testLongestMates() {
+        // Ten moves with a queen, sixteen with a rook.
+        assertThat(longestWin("KQvK")).isEqualTo(19);
+        assertThat(longestWin("KRvK")).isEqualTo(31);
+    }
+
+    @Test
+    public void testPawnEndings() {
+        assertThat(probe("4k3/8/4K3/4P3/8/8/8/8 w - - 0 1"))
+                .startsWith("WIN");
+        assertThat(probe("4k3/8/4P3/4K3/8/8/8/8 w - - 0 1"))
+                .isEqualTo("DRAW");
+        assertThat(probe("4k3/8/4K3/4P3/8/8/8/8 b - - 0 1"))
+                .startsWith("LOSS");
+        // The king cannot get in front of a rook pawn in time, but the
+        // defender reaches the corner.
+        assertThat(probe("k7/8/8/8/P7/8/8/7K w - - 0 1"))
+                .isEqualTo("DRAW");
+    }
+
+    @Test
+    public void testEveryResultFollowsFromTheMoves() throws IOException {
+        for (String name : new String[]{"KQvK", "KRvK", "KPvK"}) {
+            Material material = Material.of(name);
+            Random random = new Random(name.hashCode());
+            int[] squares = new int[material.getPieceCount()];
+            ByteBuffer scratch = ByteBuffer.allocate(32);
+            MoveList moves = new MoveList();
+            for (int checked = 0; checked < 2000; ) {
+                int index = random.nextInt(material.size());
+                boolean whiteToMove = material.squares(index, squares);
+                if (!material.isValid(squares, whiteToMove)) {
+                    continue;
+                }
+                checked++;
+                Board board = material.toBoard(squares, whiteToMove, scratch);
+                assertThat(tablebase.probe(board))
+                        .isEqualTo(Optional.of(fromMoves(board, moves)));
+            }
+        }
+    }
+
+    @Test
+    public void testNotProbed() throws IOException {
+        assertThat(tablebase.probe(new Board())).isEqualTo(Optional.empty());
+        assertThat(tablebase.probe(
+                Board.fromFen("4k3/8/8/8/8/8/8/4K2R w K - 0 1")))
+                .isEqualTo(Optional.empty());
+        assertThat(tablebase.probe(
+                Board.fromFen("4k3/8/8/8/8/8/8/3QKB2 w - - 0 1")))
+                .isEqualTo(Optional.empty());
+        assertThat(tablebase.getMaxPieces()).isEqualTo(3);
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        Tablebase reopened = new Tablebase(FOLDER.getRoot().toPath());
+        String fen = "8/8/8/8/8/2k5/8/KR6 w - - 0 1";
+        assertThat(reopened.probe(Board.fromFen(fen)))
+                .isEqualTo(tablebase.probe(Board.fromFen(fen)));
+        assertThat(Files.size(FOLDER.getRoot().toPath().resolve("KRvK.tb")))
+                .isEqualTo(Material.of("KRvK").size());
+    }
+
+    private static String probe(String fen) {
+        return tablebase.probe(Board.fromFen(fen)).get().toString();
+    }
+
+    private static int longestWin(String name) {
+        Material material = Material.of(name);
+        int[] squares = new int[material.getPieceCount()];
+        ByteBuffer scratch = ByteBuffer.allocate(32);
+        int longest = 0;
+        for (int index = 0; index < material.size(); index++) {
+            boolean whiteToMove = material.squares(index, squares);
+            if (material.isValid(squares, whiteToMove)) {
+                TablebaseResult result = tablebase.probe(
+                        material.toBoard(squares, whiteToMove, scratch)).get();
+                if (result.getOutcome() == Outcome.WIN) {
+                    longest = Math.max(longest, result.getPliesToMate());
+                }
+            }
+        }
+        return longest;
+    }
+
+    /**
+     * Works out the result of a position from the results of its moves.
+     */
+    private static TablebaseResult fromMoves(Board board, MoveList moves) {
+        board.legalMoves(moves);
+        if (moves.isEmpty()) {
+            return board.isInCheck()
+                    ? new TablebaseResult(Outcome.LOSS, 0)
+                    : new TablebaseResult(Outcome.DRAW, 0);
+        }
+        int[] encoded = moves.toArray();
+        int shortestWin = Integer.MAX_VALUE;
+        int longestLoss = -1;
+        boolean draw = false;
+        for (int move : encoded) {
+            board.makeMove(move);
+            TablebaseResult child = tablebase.probe(board).get();
+            board.unmakeMove();
+            if (child.getOutcome() == Outcome.LOSS) {
+                shortestWin = Math.min(shortestWin,
+                        child.getPliesToMate() + 1);
+            } else if (child.getOutcome() == Outcome.DRAW) {
+                draw = true;
+            } else {
+                longestLoss = Math.max(longestLoss,
+                        child.getPliesToMate() + 1);
+            }
+        }
+        if (shortestWin != Integer.MAX_VALUE) {
+            return new TablebaseResult(Outcome.WIN, shortestWin);
+        }
+        return draw
+                ? new TablebaseResult(Outcome.DRAW, 0)
+                : new TablebaseResult(Outcome.LOSS, longestLoss);
+    }
+}